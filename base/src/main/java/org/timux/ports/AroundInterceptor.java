@@ -0,0 +1,38 @@
+/*
+ * Copyright 2018-2022 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import java.util.function.Function;
+
+/**
+ * An interceptor that wraps the delivery of a message to its receiver.
+ *
+ * @param <T> The type of the intercepted messages.
+ *
+ * @see InterceptorClause#around
+ * @since 0.7.0
+ */
+@FunctionalInterface
+public interface AroundInterceptor<T> {
+
+    /**
+     * Intercepts the delivery of the provided message. Implementations should call 'proceed' exactly
+     * once in order to deliver the message and return its result, which is the response in case of
+     * requests and null in case of events.
+     */
+    Object intercept(T message, Function<T, Object> proceed);
+}
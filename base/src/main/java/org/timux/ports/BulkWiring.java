@@ -0,0 +1,340 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Connects or disconnects all components of a collection with each other. The result is the same
+ * as if each pair of components (in collection order) had been connected via
+ * {@link Ports#connect}, but only the pairs that actually share port signatures are touched,
+ * so the effort grows with the number of connections instead of the number of pairs.
+ */
+final class BulkWiring {
+
+    private BulkWiring() {
+        //
+    }
+
+    static void connectAll(Collection<?> components, int portsOptions) {
+        connectAll(components, portsOptions, 1);
+    }
+
+    static void connectAll(Collection<?> components, int portsOptions, int parallelism) {
+        Object[] componentArray = toArray(components);
+
+        if (componentArray.length < 2) {
+            return;
+        }
+
+        if ((portsOptions & PortsOptions.DO_NOT_ALLOW_MISSING_PORTS) != 0 || hasAmbiguousPorts(componentArray)) {
+            // These cases fail on pairs without matching ports, so we must look at all pairs
+            // in order to fail in the same way.
+            forEachPair(componentArray, (a, b) -> Ports.connectBoth(a, b, portsOptions));
+            return;
+        }
+
+        instantiatePorts(componentArray);
+
+        long[] pairs = getMatchingPairs(componentArray);
+
+        if (parallelism <= 1) {
+            for (long pair : pairs) {
+                Ports.connectBoth(componentArray[(int) (pair >>> 32)], componentArray[(int) pair], portsOptions);
+            }
+
+            return;
+        }
+
+        connectInParallel(getConnectionsBySignature(componentArray, pairs), portsOptions, parallelism);
+    }
+
+    /*
+     * Each component is the sender and the receiver of at least one pair, which instantiates
+     * all of its OUT ports and connects the event exception port. Pairwise wiring visits the
+     * receivers in the order 1, 0, 2, 3, ...
+     */
+    private static void instantiatePorts(Object[] components) {
+        try {
+            for (int k = 0; k < components.length; k++) {
+                Object component = components[k < 2 ? 1 - k : k];
+
+                for (ComponentMetadata.OutPort outPort : ComponentMetadata.of(component).getOutPorts(false).values()) {
+                    Ports.ensurePortInstantiation(outPort, component);
+                }
+
+                Ports.connectEventExceptionSender(component);
+            }
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * A single port connection from the OUT port of one component to the matching IN port
+     * of another component.
+     */
+    private static final class Connection {
+
+        final Object from;
+        final Object to;
+        final WiringPlan.Step step;
+
+        Connection(Object from, Object to, WiringPlan.Step step) {
+            this.from = from;
+            this.to = to;
+            this.step = step;
+        }
+    }
+
+    /*
+     * Splits the connections of the provided pairs by port signature. Within a signature, the
+     * connections are in the order of pairwise wiring. Since connections of different signatures
+     * never touch the same port, the signatures can be connected independently of each other.
+     */
+    private static Collection<List<Connection>> getConnectionsBySignature(Object[] components, long[] pairs) {
+        Map<String, List<Connection>> connectionsBySignature = new HashMap<>();
+
+        for (long pair : pairs) {
+            Object a = components[(int) (pair >>> 32)];
+            Object b = components[(int) pair];
+
+            addConnections(a, b, connectionsBySignature);
+            addConnections(b, a, connectionsBySignature);
+        }
+
+        return connectionsBySignature.values();
+    }
+
+    private static void addConnections(Object from, Object to, Map<String, List<Connection>> connectionsBySignature) {
+        for (WiringPlan.Step step : ComponentMetadata.of(from).getWiringPlan(from, to).steps) {
+            if (step.inPortHandlerMethod != null || step.inPortField != null) {
+                connectionsBySignature
+                        .computeIfAbsent(step.outPort.signature, k -> new ArrayList<>())
+                        .add(new Connection(from, to, step));
+            }
+        }
+    }
+
+    private static void connectInParallel(Collection<List<Connection>> connectionGroups, int portsOptions, int parallelism) {
+        List<List<Connection>> groups = new ArrayList<>(connectionGroups);
+        groups.sort((x, y) -> Integer.compare(y.size(), x.size()));
+
+        // Assign the largest groups first, each to the partition with the fewest connections so far.
+        int numberOfPartitions = Math.min(parallelism, groups.size());
+        List<List<List<Connection>>> partitions = new ArrayList<>(numberOfPartitions);
+        int[] partitionSizes = new int[numberOfPartitions];
+
+        for (int i = 0; i < numberOfPartitions; i++) {
+            partitions.add(new ArrayList<>());
+        }
+
+        for (List<Connection> group : groups) {
+            int smallestPartition = 0;
+
+            for (int i = 1; i < numberOfPartitions; i++) {
+                if (partitionSizes[i] < partitionSizes[smallestPartition]) {
+                    smallestPartition = i;
+                }
+            }
+
+            partitions.get(smallestPartition).add(group);
+            partitionSizes[smallestPartition] += group.size();
+        }
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] threads = new Thread[numberOfPartitions - 1];
+
+        for (int i = 0; i < threads.length; i++) {
+            List<List<Connection>> partition = partitions.get(i + 1);
+            threads[i] = new Thread(() -> connectPartition(partition, portsOptions, failure), "ports-wiring-" + (i + 1));
+            threads[i].start();
+        }
+
+        if (numberOfPartitions > 0) {
+            connectPartition(partitions.get(0), portsOptions, failure);
+        }
+
+        for (Thread thread : threads) {
+            boolean isInterrupted = false;
+
+            while (true) {
+                try {
+                    thread.join();
+                    break;
+                } catch (InterruptedException e) {
+                    isInterrupted = true;
+                }
+            }
+
+            if (isInterrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        Throwable t = failure.get();
+
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        }
+
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+
+        if (t != null) {
+            throw new RuntimeException(t);
+        }
+    }
+
+    private static void connectPartition(List<List<Connection>> partition, int portsOptions, AtomicReference<Throwable> failure) {
+        try {
+            for (List<Connection> connections : partition) {
+                for (Connection connection : connections) {
+                    if (failure.get() != null) {
+                        return;
+                    }
+
+                    Ports.connectSinglePort(
+                            connection.step.outPort.field,
+                            connection.step.outPort.signature,
+                            connection.from,
+                            connection.to,
+                            connection.step.inPortHandlerMethod,
+                            connection.step.inPortField,
+                            null,
+                            portsOptions);
+                }
+            }
+        } catch (IllegalAccessException e) {
+            failure.compareAndSet(null, new RuntimeException(e));
+        } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+        }
+    }
+
+    static void disconnectAll(Collection<?> components) {
+        Object[] componentArray = toArray(components);
+
+        if (componentArray.length < 2) {
+            return;
+        }
+
+        if (hasAmbiguousPorts(componentArray)) {
+            forEachPair(componentArray, (a, b) -> Ports.disconnectBoth(a, b, PortsOptions.DEFAULT));
+            return;
+        }
+
+        for (long pair : getMatchingPairs(componentArray)) {
+            Ports.disconnectBoth(componentArray[(int) (pair >>> 32)], componentArray[(int) pair], PortsOptions.DEFAULT);
+        }
+    }
+
+    private static Object[] toArray(Collection<?> components) {
+        Object[] componentArray = components.toArray();
+
+        for (Object component : componentArray) {
+            if (component == null) {
+                throw new IllegalArgumentException("component must not be null");
+            }
+        }
+
+        return componentArray;
+    }
+
+    private static boolean hasAmbiguousPorts(Object[] components) {
+        for (Object component : components) {
+            if (ComponentMetadata.of(component).hasAmbiguousPorts()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private interface PairConsumer {
+
+        void accept(Object a, Object b);
+    }
+
+    private static void forEachPair(Object[] components, PairConsumer consumer) {
+        for (int i = 0; i < components.length; i++) {
+            for (int j = i + 1; j < components.length; j++) {
+                consumer.accept(components[i], components[j]);
+            }
+        }
+    }
+
+    /*
+     * Returns the index pairs (i, j) with i < j of all components that share at least one port
+     * signature in any direction, encoded as (i << 32) | j and sorted in the order in which
+     * pairwise wiring would visit them.
+     */
+    private static long[] getMatchingPairs(Object[] components) {
+        Map<String, List<Integer>> receiversBySignature = new HashMap<>();
+
+        for (int j = 0; j < components.length; j++) {
+            for (String signature : ComponentMetadata.of(components[j]).getInPortSignatures()) {
+                receiversBySignature.computeIfAbsent(signature, k -> new ArrayList<>(4)).add(j);
+            }
+        }
+
+        long[] pairs = new long[16];
+        int numberOfPairs = 0;
+
+        for (int i = 0; i < components.length; i++) {
+            for (String signature : ComponentMetadata.of(components[i]).getOutPorts(false).keySet()) {
+                List<Integer> receivers = receiversBySignature.get(signature);
+
+                if (receivers == null) {
+                    continue;
+                }
+
+                for (int j : receivers) {
+                    if (i == j) {
+                        continue;
+                    }
+
+                    if (numberOfPairs == pairs.length) {
+                        pairs = Arrays.copyOf(pairs, pairs.length * 2);
+                    }
+
+                    pairs[numberOfPairs++] = ((long) Math.min(i, j) << 32) | Math.max(i, j);
+                }
+            }
+        }
+
+        long[] sortedPairs = Arrays.copyOf(pairs, numberOfPairs);
+        Arrays.sort(sortedPairs);
+
+        int numberOfDistinctPairs = 0;
+
+        for (int k = 0; k < sortedPairs.length; k++) {
+            if (k == 0 || sortedPairs[k] != sortedPairs[k - 1]) {
+                sortedPairs[numberOfDistinctPairs++] = sortedPairs[k];
+            }
+        }
+
+        return Arrays.copyOf(sortedPairs, numberOfDistinctPairs);
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2018-2022 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Use this annotation on a field or on a parameterless method of a message type in order to
+ * declare the key that relates messages to the cache entries of {@link Pure} requests
+ * (an entity id, for example).
+ *
+ * <p> When a message whose type is listed in the {@link Pure#clearCacheOn()} property of a
+ * request type is sent, and both the message type and the request type declare a cache key,
+ * only those cache entries are evicted whose key equals the key of the message. Otherwise,
+ * the whole cache is cleared.
+ *
+ * <p> Each message type may declare at most one cache key.
+ *
+ * @author Tim Rohlfs
+ * @since 0.7.0
+ */
+@Target({ElementType.FIELD, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CacheKey {}
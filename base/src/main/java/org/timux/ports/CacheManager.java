@@ -16,19 +16,85 @@
 
 package org.timux.ports;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 class CacheManager {
 
-    private static final Map<Class<?>, ArrayList<WeakReference<Request<?, ?>>>> cachesToBeCleared = new HashMap<>();
+    private static final Object NO_KEY = new Object();
+    private static final Function<Object, Object> NO_KEY_EXTRACTOR = x -> NO_KEY;
 
-    synchronized static void registerRequestPort(Request<?, ?> requestPort, Pure pureAnno) {
+    private static final Map<Class<?>, ArrayList<WeakReference<Request<?, ?>>>> cachesToBeCleared = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Function<Object, Object>> cacheKeyExtractors = new ConcurrentHashMap<>();
+
+    private static final int SCOPED_CACHE_CAPACITY = 16;
+
+    private static final Map<Object, ScopeCaches> scopedCaches = new WeakHashMap<>();
+    private static final Map<Class<?>, Set<Class<?>>> scopedRequestTypesToBeCleared = new HashMap<>();
+
+    /* The request types of loaded cache snapshot entries, by the message types that invalidate them. */
+    private static final Map<Class<?>, Set<Class<?>>> snapshotRequestTypesToBeCleared = new HashMap<>();
+
+    private static volatile CacheScopeResolver cacheScopeResolver = null;
+    private static volatile int resolverVersion = 0;
+
+    /*
+     * The caches of one scope key. Released together with the key.
+     */
+    private static final class ScopeCaches {
+
+        final Map<Class<?>, RequestCache<?, ?>> caches = new HashMap<>();
+        volatile boolean isReleased = false;
+    }
+
+    /**
+     * The result of resolving the scoped cache of a request port. It stays valid until the
+     * scope it was resolved for is released or the {@link CacheScopeResolver} is replaced, so
+     * that ports neither re-resolve on every call nor when some unrelated scope is released.
+     */
+    static final class ScopedCache<I, O> {
+
+        private final RequestCache<I, O> cache;
+        private final ScopeCaches scope;
+        private final int resolverVersion;
+
+        private ScopedCache(RequestCache<I, O> cache, ScopeCaches scope, int resolverVersion) {
+            this.cache = cache;
+            this.scope = scope;
+            this.resolverVersion = resolverVersion;
+        }
+
+        /**
+         * Returns the cache, or null if the scope could not be resolved.
+         */
+        RequestCache<I, O> getCache() {
+            return cache;
+        }
+
+        boolean isValid() {
+            return resolverVersion == CacheManager.resolverVersion && (scope == null || !scope.isReleased);
+        }
+    }
+
+    synchronized static void registerRequestPort(Request<?, ?> requestPort, Class<?> requestType, Pure pureAnno) {
         Class<?>[] clearCacheOn = pureAnno.clearCacheOn();
 
         for (Class<?> messageType : clearCacheOn) {
+            if (pureAnno.cacheScope() != CacheScope.PORT) {
+                scopedRequestTypesToBeCleared.computeIfAbsent(messageType, k -> new HashSet<>()).add(requestType);
+            }
+
             ArrayList<WeakReference<Request<?, ?>>> requestPorts = cachesToBeCleared.get(messageType);
 
             if (requestPorts == null) {
@@ -48,11 +114,49 @@ class CacheManager {
         }
     }
 
-    synchronized static void onMessageSent(Class<?> messageType) {
-        ArrayList<WeakReference<Request<?, ?>>> requestPorts = cachesToBeCleared.get(messageType);
+    /**
+     * Makes the provided message types invalidate the loaded cache snapshot entries of the provided
+     * request type, even if no port of that request type exists yet.
+     */
+    synchronized static void registerSnapshotRequestType(Class<?> requestType, Pure pureAnno) {
+        for (Class<?> messageType : pureAnno.clearCacheOn()) {
+            snapshotRequestTypesToBeCleared.computeIfAbsent(messageType, k -> new HashSet<>()).add(requestType);
+            cachesToBeCleared.computeIfAbsent(messageType, k -> new ArrayList<>());
+        }
+    }
+
+    static void onMessageSent(Object message) {
+        /*
+         * This is called for every message that is sent, so we try to avoid the lock
+         * for all those message types that do not invalidate any caches.
+         */
+        if (!cachesToBeCleared.containsKey(message.getClass())) {
+            return;
+        }
+
+        Object messageKey = getCacheKey(message);
+        Set<Class<?>> snapshotRequestTypes = onInvalidatingMessageSent(message, messageKey);
+
+        if (snapshotRequestTypes != null) {
+            // Outside of the lock because CacheSnapshots calls into this class while holding its own lock.
+            snapshotRequestTypes.forEach(requestType -> CacheSnapshots.evict(requestType, messageKey));
+        }
+    }
+
+    /*
+     * Returns the request types whose loaded snapshot entries must be evicted, or null if there are none.
+     */
+    private synchronized static Set<Class<?>> onInvalidatingMessageSent(Object message, Object messageKey) {
+        Set<Class<?>> snapshotRequestTypes = snapshotRequestTypesToBeCleared.get(message.getClass());
+
+        if (snapshotRequestTypes != null) {
+            snapshotRequestTypes = new HashSet<>(snapshotRequestTypes);
+        }
+
+        ArrayList<WeakReference<Request<?, ?>>> requestPorts = cachesToBeCleared.get(message.getClass());
 
         if (requestPorts == null) {
-            return;
+            return snapshotRequestTypes;
         }
 
         for (WeakReference<Request<?, ?>> ref : requestPorts) {
@@ -62,10 +166,151 @@ class CacheManager {
                 continue;
             }
 
-            requestPort.clearCache();
+            if (messageKey == NO_KEY) {
+                requestPort.clearCache();
+            } else {
+                requestPort.evictFromCache(messageKey);
+            }
+        }
+
+        Set<Class<?>> scopedRequestTypes = scopedRequestTypesToBeCleared.get(message.getClass());
+
+        if (scopedRequestTypes == null) {
+            return snapshotRequestTypes;
+        }
+
+        for (ScopeCaches scope : scopedCaches.values()) {
+            for (Class<?> requestType : scopedRequestTypes) {
+                RequestCache<?, ?> cache = scope.caches.get(requestType);
+
+                if (cache == null) {
+                    continue;
+                }
+
+                if (messageKey == NO_KEY) {
+                    cache.clear();
+                } else {
+                    evict(cache, messageKey);
+                }
+            }
+        }
+
+        return snapshotRequestTypes;
+    }
+
+    /**
+     * Evicts all entries of the provided cache whose {@link CacheKey} equals the provided key. If the
+     * request type doesn't declare a cache key, the whole cache is cleared.
+     */
+    static void evict(RequestCache<?, ?> cache, Object key) {
+        cache.evict(payload -> {
+            Object payloadKey = getCacheKey(payload);
+            return payloadKey == NO_KEY || Objects.equals(payloadKey, key);
+        });
+    }
+
+    /**
+     * Resolves the cache of the provided request type within the provided scope of the provided
+     * owner. The cache of the result is null if the scope cannot be resolved.
+     */
+    @SuppressWarnings("unchecked")
+    static <I, O> ScopedCache<I, O> getScopedCache(Class<?> requestType, CacheScope cacheScope, Object owner) {
+        // Read the version first, so that a concurrent change of the resolver invalidates the result.
+        int currentResolverVersion = resolverVersion;
+        CacheScopeResolver resolver = cacheScopeResolver;
+        Object scopeKey = resolver != null ? resolver.resolve(cacheScope, owner) : null;
+
+        if (scopeKey == null) {
+            return new ScopedCache<>(null, null, currentResolverVersion);
+        }
+
+        synchronized (CacheManager.class) {
+            ScopeCaches scope = scopedCaches.computeIfAbsent(scopeKey, k -> new ScopeCaches());
+
+            RequestCache<I, O> cache = (RequestCache<I, O>) scope.caches
+                    .computeIfAbsent(requestType, k -> new RequestCache<>(SCOPED_CACHE_CAPACITY, requestType));
+
+            return new ScopedCache<>(cache, scope, currentResolverVersion);
+        }
+    }
+
+    static void setCacheScopeResolver(CacheScopeResolver resolver) {
+        cacheScopeResolver = resolver;
+        resolverVersion++;
+    }
+
+    synchronized static void releaseScope(Object scopeKey) {
+        ScopeCaches scope = scopedCaches.remove(scopeKey);
+
+        if (scope != null) {
+            release(scope);
         }
     }
 
+    private static void release(ScopeCaches scope) {
+        scope.isReleased = true;
+
+        // Ports that still hold on to these caches must not serve stale responses.
+        scope.caches.values().forEach(RequestCache::clear);
+    }
+
+    /**
+     * Returns the value of the {@link CacheKey} member of the provided message, or
+     * {@link #NO_KEY} if the message type doesn't declare a cache key.
+     */
+    static Object getCacheKey(Object message) {
+        return cacheKeyExtractors
+                .computeIfAbsent(message.getClass(), CacheManager::createCacheKeyExtractor)
+                .apply(message);
+    }
+
+    static boolean isNoKey(Object key) {
+        return key == NO_KEY;
+    }
+
+    private static Function<Object, Object> createCacheKeyExtractor(Class<?> messageType) {
+        for (Class<?> clazz = messageType; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            for (Field field : clazz.getDeclaredFields()) {
+                if (field.getAnnotation(CacheKey.class) != null) {
+                    field.setAccessible(true);
+
+                    return x -> {
+                        try {
+                            return field.get(x);
+                        } catch (IllegalAccessException e) {
+                            throw new PortsExecutionException(e);
+                        }
+                    };
+                }
+            }
+
+            for (Method method : clazz.getDeclaredMethods()) {
+                if (method.getAnnotation(CacheKey.class) != null) {
+                    if (method.getParameterCount() != 0) {
+                        throw new IllegalStateException(String.format(
+                                "cache key method %s of type %s must not have parameters",
+                                method.getName(),
+                                messageType.getName()));
+                    }
+
+                    method.setAccessible(true);
+
+                    return x -> {
+                        try {
+                            return method.invoke(x);
+                        } catch (IllegalAccessException e) {
+                            throw new PortsExecutionException(e);
+                        } catch (InvocationTargetException e) {
+                            throw new PortsExecutionException(e.getCause());
+                        }
+                    };
+                }
+            }
+        }
+
+        return NO_KEY_EXTRACTOR;
+    }
+
     synchronized static void clear() {
         cachesToBeCleared.forEach((messageType, requestPorts) -> {
             requestPorts.forEach(ref -> {
@@ -76,10 +321,20 @@ class CacheManager {
                 }
             });
         });
+
+        scopedCaches.values().forEach(scope -> scope.caches.values().forEach(RequestCache::clear));
     }
 
+    /**
+     * Clears all caches and forgets all registrations. The {@link CacheScopeResolver} is
+     * retained since it is part of the configuration rather than of the state.
+     */
     synchronized static void reset() {
         clear();
         cachesToBeCleared.clear();
+        scopedCaches.values().forEach(CacheManager::release);
+        scopedCaches.clear();
+        scopedRequestTypesToBeCleared.clear();
+        snapshotRequestTypesToBeCleared.clear();
     }
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2018-2022 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+/**
+ * An enum providing options for the lifetime and sharing of the cache of a {@link Pure} request.
+ *
+ * <p> Scopes other than {@link #PORT} require a {@link CacheScopeResolver} that maps the owners of
+ * the respective OUT ports to scope keys (see {@link Ports#setCacheScopeResolver}). This is usually
+ * done by an integration module like ports-vaadinspring. If no resolver is available or if it cannot
+ * resolve a scope, the port falls back to {@link #PORT}.
+ *
+ * @see Pure#cacheScope()
+ * @since 0.7.0
+ */
+public enum CacheScope {
+
+    /**
+     * Specifies that each OUT port has its own cache.
+     *
+     * <p> This is the default setting.
+     */
+    PORT,
+
+    /**
+     * Specifies that the cache is shared among all components of the same session and
+     * is dropped when the session is released.
+     */
+    SESSION,
+
+    /**
+     * Specifies that the cache is shared among all components of the same UI and
+     * is dropped when the UI is released.
+     */
+    UI
+}
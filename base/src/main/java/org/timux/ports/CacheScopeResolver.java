@@ -0,0 +1,35 @@
+/*
+ * Copyright 2018-2022 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+/**
+ * Maps the owner of an OUT port to the key of a {@link CacheScope}, e.g. to the session
+ * or UI the owner belongs to. Scoped caches are held weakly by their keys, and they are
+ * dropped when {@link Ports#releaseCacheScope} is called for the key.
+ *
+ * @see Ports#setCacheScopeResolver
+ * @since 0.7.0
+ */
+@FunctionalInterface
+public interface CacheScopeResolver {
+
+    /**
+     * Returns the key of the provided scope that the provided component belongs to, or null
+     * if the component doesn't belong to such a scope.
+     */
+    Object resolve(CacheScope scope, Object owner);
+}
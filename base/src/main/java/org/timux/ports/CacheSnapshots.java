@@ -0,0 +1,504 @@
+/*
+ * Copyright 2018-2022 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.CodeSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists the caches of {@link Pure} requests with {@link Pure#snapshot()} enabled.
+ *
+ * <p> A snapshot file consists of a header (magic number, format version, record count)
+ * followed by one record per request type: the request type name, the serialVersionUID of
+ * the request type, the number of entries, and the length-prefixed serialized request/response
+ * pairs. The pairs of a record share one object stream, so that the class descriptors are only
+ * written once per request type. Records whose request type is unknown or has a different
+ * serialVersionUID, as well as records that cannot be deserialized for other reasons, are
+ * skipped on load.
+ *
+ * <p> Since snapshot files are read from disk, only a restricted set of classes can be
+ * deserialized: common JDK value classes, the classes of {@code org.timux.ports.types}, and
+ * the classes that come from the same code source (directory or jar) as the request type.
+ */
+class CacheSnapshots {
+
+    private static final int MAGIC = 0x504f5254; // "PORT"
+    private static final short FORMAT_VERSION = 2;
+
+    private static final String[] ALLOWED_PACKAGE_PREFIXES = {
+            "java.lang.", "java.util.", "java.time.", "java.math.", "org.timux.ports.types."
+    };
+
+    /* Serializes concurrent saves, which write to the same temporary file. */
+    private static final Object saveMonitor = new Object();
+
+    private static final List<WeakReference<Request<?, ?>>> requestPorts = new ArrayList<>();
+
+    /**
+     * The entries of the last loaded snapshot, by request type name. These are
+     * used to prefill the caches of request ports that are created after loading.
+     * They are subject to the same invalidation as the caches, see {@link #evict}.
+     */
+    private static final Map<String, List<Object[]>> loadedEntries = new HashMap<>();
+
+    private static ScheduledExecutorService scheduler;
+    private static Thread shutdownHook;
+
+    static synchronized void registerRequestPort(Request<?, ?> requestPort) {
+        requestPorts.removeIf(ref -> ref.get() == null);
+        requestPorts.add(new WeakReference<>(requestPort));
+
+        List<Object[]> entries = loadedEntries.get(requestPort.getRequestTypeName());
+
+        if (entries != null) {
+            entries.forEach(entry -> requestPort.putIntoCache(entry[0], entry[1]));
+        }
+    }
+
+    /**
+     * Evicts the loaded entries of the provided request type whose {@link CacheKey} equals the
+     * provided key, or all of them if there is no key. This is called by the {@link CacheManager}
+     * so that ports created after an invalidating message do not get stale responses.
+     */
+    static synchronized void evict(Class<?> requestType, Object messageKey) {
+        List<Object[]> entries = loadedEntries.get(requestType.getName());
+
+        if (entries == null) {
+            return;
+        }
+
+        if (CacheManager.isNoKey(messageKey)) {
+            loadedEntries.remove(requestType.getName());
+            return;
+        }
+
+        entries.removeIf(entry -> {
+            Object requestKey = CacheManager.getCacheKey(entry[0]);
+            return CacheManager.isNoKey(requestKey) || Objects.equals(requestKey, messageKey);
+        });
+
+        if (entries.isEmpty()) {
+            loadedEntries.remove(requestType.getName());
+        }
+    }
+
+    static synchronized void clearLoadedEntries() {
+        loadedEntries.clear();
+    }
+
+    static int save(Path file) throws IOException {
+        // Only the references are collected while holding the locks. Serializing and writing happens outside
+        // of them, so that a save doesn't stall requests, invalidations, and the creation of request ports.
+        Map<String, List<Object[]>> entriesByRequestType = collectEntries();
+
+        synchronized (saveMonitor) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+            DataOutputStream out = new DataOutputStream(bytes);
+            List<byte[]> records = new ArrayList<>();
+            int entryCount = 0;
+
+            for (Map.Entry<String, List<Object[]>> e : entriesByRequestType.entrySet()) {
+                byte[] record = createRecord(e.getKey(), e.getValue());
+
+                if (record != null) {
+                    records.add(record);
+                    entryCount += e.getValue().size();
+                }
+            }
+
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT_VERSION);
+            out.writeInt(records.size());
+
+            for (byte[] record : records) {
+                out.write(record);
+            }
+
+            out.flush();
+
+            Path tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+
+            try (FileChannel channel = FileChannel.open(
+                    tmpFile,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE))
+            {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes.size());
+                buffer.put(bytes.toByteArray());
+                buffer.force();
+            }
+
+            try {
+                Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            return entryCount;
+        }
+    }
+
+    /*
+     * Returns the serializable request/response pairs of all registered ports, by request type name.
+     */
+    private static Map<String, List<Object[]>> collectEntries() {
+        List<Request<?, ?>> ports = new ArrayList<>();
+
+        synchronized (CacheSnapshots.class) {
+            for (WeakReference<Request<?, ?>> ref : requestPorts) {
+                Request<?, ?> requestPort = ref.get();
+
+                if (requestPort != null) {
+                    ports.add(requestPort);
+                }
+            }
+        }
+
+        Map<String, List<Object[]>> entriesByRequestType = new LinkedHashMap<>();
+
+        for (Request<?, ?> requestPort : ports) {
+            requestPort.forEachCacheEntry((request, response) -> {
+                if (request instanceof Serializable && response instanceof Serializable) {
+                    entriesByRequestType
+                            .computeIfAbsent(requestPort.getRequestTypeName(), k -> new ArrayList<>())
+                            .add(new Object[] {request, response});
+                }
+            });
+        }
+
+        return entriesByRequestType;
+    }
+
+    private static byte[] createRecord(String requestTypeName, List<Object[]> entries) {
+        try {
+            ByteArrayOutputStream pairBytes = new ByteArrayOutputStream(256);
+
+            try (ObjectOutputStream objectOut = new ObjectOutputStream(pairBytes)) {
+                for (Object[] entry : entries) {
+                    objectOut.writeObject(entry[0]);
+                    objectOut.writeObject(entry[1]);
+                }
+            }
+
+            ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(pairBytes.size() + 64);
+            DataOutputStream out = new DataOutputStream(recordBytes);
+
+            out.writeUTF(requestTypeName);
+            out.writeLong(ObjectStreamClass.lookup(entries.get(0)[0].getClass()).getSerialVersionUID());
+            out.writeInt(entries.size());
+            out.writeInt(pairBytes.size());
+            pairBytes.writeTo(out);
+            out.flush();
+
+            return recordBytes.toByteArray();
+        } catch (IOException e) {
+            Ports.printWarning(String.format(
+                    "cache entries of request type %s cannot be serialized (%s)", requestTypeName, e));
+            return null;
+        }
+    }
+
+    static synchronized int load(Path file) throws IOException {
+        loadedEntries.clear();
+
+        int loadedCount = 0;
+        Set<Class<?>> loadedRequestTypes = new HashSet<>();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            DataInputStream in = new DataInputStream(new ByteBufferInputStream(buffer));
+
+            if (buffer.remaining() < 10 || in.readInt() != MAGIC) {
+                throw new IOException("not a cache snapshot file: " + file);
+            }
+
+            short formatVersion = in.readShort();
+
+            if (formatVersion != FORMAT_VERSION) {
+                Ports.printWarning(String.format(
+                        "ignoring cache snapshot %s with unsupported format version %d", file, formatVersion));
+                return 0;
+            }
+
+            int recordCount = in.readInt();
+
+            for (int i = 0; i < recordCount; i++) {
+                String requestTypeName = in.readUTF();
+                long serialVersionUid = in.readLong();
+                int entryCount = in.readInt();
+                int length = in.readInt();
+
+                ByteBuffer pairBuffer = buffer.slice();
+                pairBuffer.limit(length);
+                buffer.position(buffer.position() + length);
+
+                List<Object[]> entries = readEntries(requestTypeName, serialVersionUid, entryCount, pairBuffer);
+
+                if (!entries.isEmpty()) {
+                    loadedEntries.computeIfAbsent(requestTypeName, k -> new ArrayList<>()).addAll(entries);
+                    loadedRequestTypes.add((Class<?>) entries.get(0)[2]);
+                    loadedCount += entries.size();
+                }
+            }
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            // A record length points beyond the end of the file.
+            loadedEntries.clear();
+            throw new IOException("corrupt cache snapshot file: " + file, e);
+        } catch (IOException e) {
+            loadedEntries.clear();
+            throw e;
+        }
+
+        for (Class<?> requestType : loadedRequestTypes) {
+            CacheManager.registerSnapshotRequestType(requestType, requestType.getDeclaredAnnotation(Pure.class));
+        }
+
+        for (WeakReference<Request<?, ?>> ref : requestPorts) {
+            Request<?, ?> requestPort = ref.get();
+
+            if (requestPort != null) {
+                List<Object[]> entries = loadedEntries.get(requestPort.getRequestTypeName());
+
+                if (entries != null) {
+                    entries.forEach(entry -> requestPort.putIntoCache(entry[0], entry[1]));
+                }
+            }
+        }
+
+        return loadedCount;
+    }
+
+    /*
+     * Returns the request/response pairs of a record (together with the request type), or as many of them as
+     * could be read before an error occurred.
+     */
+    private static List<Object[]> readEntries(
+            String requestTypeName, long serialVersionUid, int entryCount, ByteBuffer pairBuffer)
+    {
+        Class<?> requestType;
+
+        try {
+            requestType = Class.forName(requestTypeName, false, getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return Collections.emptyList();
+        }
+
+        Pure pureAnno = requestType.getDeclaredAnnotation(Pure.class);
+
+        if (pureAnno == null || !pureAnno.cache() || !pureAnno.snapshot()) {
+            return Collections.emptyList();
+        }
+
+        ObjectStreamClass streamClass = ObjectStreamClass.lookup(requestType);
+
+        if (streamClass == null || streamClass.getSerialVersionUID() != serialVersionUid) {
+            return Collections.emptyList();
+        }
+
+        ClassLoader classLoader = requestType.getClassLoader();
+        List<Object[]> entries = new ArrayList<>(Math.min(entryCount, 1024));
+
+        try (ObjectInputStream in = new ObjectInputStream(new ByteBufferInputStream(pairBuffer)) {
+                @Override
+                protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+                    Class<?> clazz;
+
+                    try {
+                        clazz = Class.forName(desc.getName(), false, classLoader);
+                    } catch (ClassNotFoundException e) {
+                        clazz = super.resolveClass(desc);
+                    }
+
+                    if (!isAllowedInSnapshot(clazz, requestType)) {
+                        throw new InvalidClassException(desc.getName(), "class is not allowed in cache snapshots");
+                    }
+
+                    return clazz;
+                }
+
+                @Override
+                protected Class<?> resolveProxyClass(String[] interfaces) throws IOException {
+                    throw new InvalidClassException("proxy classes are not allowed in cache snapshots");
+                }
+            })
+        {
+            for (int i = 0; i < entryCount; i++) {
+                Object request = in.readObject();
+                Object response = in.readObject();
+
+                if (requestType.isInstance(request)) {
+                    entries.add(new Object[] {request, response, requestType});
+                }
+            }
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            Ports.printWarning(String.format(
+                    "skipping cache snapshot entries of request type %s (%s)", requestTypeName, e));
+        }
+
+        return entries;
+    }
+
+    private static boolean isAllowedInSnapshot(Class<?> clazz, Class<?> requestType) {
+        while (clazz.isArray()) {
+            clazz = clazz.getComponentType();
+        }
+
+        if (clazz.isPrimitive()) {
+            return true;
+        }
+
+        for (String prefix : ALLOWED_PACKAGE_PREFIXES) {
+            if (clazz.getName().startsWith(prefix)) {
+                return true;
+            }
+        }
+
+        CodeSource codeSource = clazz.getProtectionDomain().getCodeSource();
+        CodeSource requestCodeSource = requestType.getProtectionDomain().getCodeSource();
+
+        return codeSource != null
+                && requestCodeSource != null
+                && Objects.equals(codeSource.getLocation(), requestCodeSource.getLocation());
+    }
+
+    private static ClassLoader getClassLoader() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return classLoader != null ? classLoader : CacheSnapshots.class.getClassLoader();
+    }
+
+    static synchronized void enable(Path file, Duration period) {
+        disable();
+
+        try {
+            load(file);
+        } catch (NoSuchFileException e) {
+            // There is no snapshot yet, so there is nothing to load.
+        } catch (IOException e) {
+            Ports.printWarning(String.format("cannot load cache snapshot %s (%s)", file, e));
+        }
+
+        shutdownHook = new Thread(() -> saveSafely(file), "ports-cache-snapshot");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+        if (period != null && !period.isZero() && !period.isNegative()) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ports-cache-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            long periodMillis = period.toMillis();
+            scheduler.scheduleAtFixedRate(() -> saveSafely(file), periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static void saveSafely(Path file) {
+        try {
+            save(file);
+        } catch (Exception e) {
+            Ports.printWarning(String.format("cannot save cache snapshot %s (%s)", file, e));
+        }
+    }
+
+    static synchronized void disable() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+
+        if (shutdownHook != null) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // The JVM is already shutting down.
+            }
+
+            shutdownHook = null;
+        }
+    }
+
+    static synchronized void reset() {
+        disable();
+        requestPorts.clear();
+        loadedEntries.clear();
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,418 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * The port metadata of a component class. The metadata is computed once per class and then
+ * reused for all instances, so that wiring many components of the same classes (e.g. prototype
+ * or UI scoped beans) does not repeat the reflection work.
+ */
+final class ComponentMetadata {
+
+    private static final ClassValue<ComponentMetadata> metadata = new ClassValue<ComponentMetadata>() {
+
+        @Override
+        protected ComponentMetadata computeValue(Class<?> type) {
+            return new ComponentMetadata(type);
+        }
+    };
+
+    /**
+     * An OUT port field together with everything that is required to instantiate the port.
+     */
+    static final class OutPort {
+
+        final Field field;
+        final String signature;
+        final String messageTypeName;
+        final String responseTypeName;
+
+        private Class<?> requestType;
+        private Pure pureAnno;
+        private ClassNotFoundException requestTypeException;
+
+        OutPort(Field field, String signature) {
+            this.field = field;
+            this.signature = signature;
+
+            String genericTypeName = field.getGenericType().getTypeName();
+            String extractedMessageTypeName = TypeUtils.extractTypeParameter(genericTypeName, genericTypeName);
+
+            this.messageTypeName = TypeUtils.extractRequestTypeName(extractedMessageTypeName);
+
+            String typeParameter = TypeUtils.extractTypeParameter(genericTypeName, null);
+            this.responseTypeName = typeParameter != null
+                    ? typeParameter.substring(typeParameter.indexOf(' ') + 1)
+                    : null;
+
+            if (field.getType() == Request.class) {
+                try {
+                    requestType = Request.class.getClassLoader().loadClass(messageTypeName);
+                    pureAnno = requestType.getDeclaredAnnotation(Pure.class);
+                } catch (ClassNotFoundException e) {
+                    requestTypeException = e;
+                }
+            }
+        }
+
+        Object instantiate(Object owner) {
+            if (field.getType() == Event.class) {
+                return new Event<>(messageTypeName, owner);
+            }
+
+            if (field.getType() == Request.class) {
+                if (requestTypeException != null) {
+                    throw new RuntimeException(requestTypeException);
+                }
+
+                return new Request<>(messageTypeName, responseTypeName, requestType, pureAnno, field.getName(), owner);
+            }
+
+            return null;
+        }
+    }
+
+    private final Class<?> clazz;
+
+    private final Field[] fields;
+    private final Method[] methods;
+
+    private final Map<String, OutPort> outPortsBySignature;
+    private final String duplicateOutPortSignature;
+
+    private final Map<String, Field> inPortFieldsBySignature;
+    private final String duplicateInPortFieldSignature;
+
+    private final Map<String, Method> inPortHandlerMethodsBySignature;
+    private final String ambiguousInPortHandlerSignature;
+
+    private final Set<String> inPortSignatures;
+
+    /* The wiring plans by receiver class. The plans are only softly referenced because they
+     * reference the receiver class, which must not be kept alive by a sender class. */
+    private final Map<Class<?>, SoftReference<WiringPlan>> wiringPlans = new WeakHashMap<>();
+
+    private ComponentMetadata(Class<?> clazz) {
+        this.clazz = clazz;
+
+        Field[] indexedFields = getIndexedFields(clazz);
+        Method[] indexedMethods = getIndexedMethods(clazz);
+
+        this.fields = indexedFields != null ? indexedFields : clazz.getDeclaredFields();
+        this.methods = indexedMethods != null ? indexedMethods : clazz.getDeclaredMethods();
+
+        Map<String, OutPort> outPorts = new HashMap<>();
+        Map<String, Field> inPortFields = new HashMap<>();
+        String duplicateOutPortSignature = null;
+        String duplicateInPortFieldSignature = null;
+
+        for (Field field : fields) {
+            boolean isOutPort = field.getAnnotation(Out.class) != null;
+            boolean isInPort = field.getAnnotation(In.class) != null;
+
+            if (!isOutPort && !isInPort) {
+                continue;
+            }
+
+            field.setAccessible(true);
+
+            String signature = getSignature(field);
+
+            if (isOutPort) {
+                if (outPorts.containsKey(signature) && duplicateOutPortSignature == null) {
+                    duplicateOutPortSignature = signature;
+                }
+
+                outPorts.put(signature, new OutPort(field, signature));
+            }
+
+            if (isInPort) {
+                if (inPortFields.containsKey(signature) && duplicateInPortFieldSignature == null) {
+                    duplicateInPortFieldSignature = signature;
+                }
+
+                inPortFields.put(signature, field);
+            }
+        }
+
+        Map<String, Method> inPortHandlerMethods = new HashMap<>();
+        String ambiguousInPortHandlerSignature = null;
+
+        for (Method method : methods) {
+            if (method.getAnnotation(In.class) == null) {
+                continue;
+            }
+
+            method.setAccessible(true);
+
+            String signature = getSignature(method);
+
+            if (inPortHandlerMethods.containsKey(signature)) {
+                if (ambiguousInPortHandlerSignature == null) {
+                    ambiguousInPortHandlerSignature = signature;
+                }
+
+                continue;
+            }
+
+            inPortHandlerMethods.put(signature, method);
+        }
+
+        this.outPortsBySignature = Collections.unmodifiableMap(outPorts);
+        this.duplicateOutPortSignature = duplicateOutPortSignature;
+        this.inPortFieldsBySignature = Collections.unmodifiableMap(inPortFields);
+        this.duplicateInPortFieldSignature = duplicateInPortFieldSignature;
+        this.inPortHandlerMethodsBySignature = Collections.unmodifiableMap(inPortHandlerMethods);
+        this.ambiguousInPortHandlerSignature = ambiguousInPortHandlerSignature;
+
+        Set<String> inPortSignatures = new HashSet<>(inPortFields.keySet());
+        inPortSignatures.addAll(inPortHandlerMethods.keySet());
+        this.inPortSignatures = Collections.unmodifiableSet(inPortSignatures);
+    }
+
+    static ComponentMetadata of(Class<?> clazz) {
+        return metadata.get(clazz);
+    }
+
+    static ComponentMetadata of(Object component) {
+        return metadata.get(component.getClass());
+    }
+
+    /**
+     * Returns the port fields of the class, or all declared fields if the class is not covered
+     * by a port index. All port fields are accessible.
+     */
+    Field[] getFields() {
+        return fields;
+    }
+
+    /**
+     * Returns the IN port methods of the class, or all declared methods if the class is not
+     * covered by a port index. All IN port methods are accessible.
+     */
+    Method[] getMethods() {
+        return methods;
+    }
+
+    Map<String, OutPort> getOutPorts(boolean allowDuplicateTypes) {
+        if (!allowDuplicateTypes && duplicateOutPortSignature != null) {
+            throw new DuplicateTypesException(duplicateOutPortSignature);
+        }
+
+        return outPortsBySignature;
+    }
+
+    Map<String, Field> getInPortFields() {
+        if (duplicateInPortFieldSignature != null) {
+            throw new DuplicateTypesException(duplicateInPortFieldSignature);
+        }
+
+        return inPortFieldsBySignature;
+    }
+
+    Map<String, Method> getInPortHandlerMethods(Object from) {
+        if (ambiguousInPortHandlerSignature != null) {
+            throw new AmbiguousPortsException(from.getClass().getName(), clazz.getName(), ambiguousInPortHandlerSignature);
+        }
+
+        return inPortHandlerMethodsBySignature;
+    }
+
+    /**
+     * Returns the signatures of all IN ports (handler methods and fields) of the class.
+     */
+    Set<String> getInPortSignatures() {
+        return inPortSignatures;
+    }
+
+    /**
+     * Returns true if connecting this class in any direction would fail with an
+     * {@link AmbiguousPortsException}.
+     */
+    boolean hasAmbiguousPorts() {
+        return duplicateOutPortSignature != null
+                || duplicateInPortFieldSignature != null
+                || ambiguousInPortHandlerSignature != null;
+    }
+
+    /**
+     * Returns the plan for connecting an instance of this class (as sender) to an instance of the
+     * provided receiver's class.
+     */
+    WiringPlan getWiringPlan(Object from, Object to) {
+        Class<?> toClass = to.getClass();
+
+        synchronized (wiringPlans) {
+            SoftReference<WiringPlan> planRef = wiringPlans.get(toClass);
+            WiringPlan plan = planRef != null ? planRef.get() : null;
+
+            if (plan != null) {
+                return plan;
+            }
+        }
+
+        ComponentMetadata toMetadata = of(toClass);
+
+        Map<String, Method> inPortHandlerMethods = toMetadata.getInPortHandlerMethods(from);
+
+        Map<String, OutPort> outPorts;
+        Map<String, Field> inPortFields;
+
+        try {
+            outPorts = getOutPorts(false);
+            inPortFields = toMetadata.getInPortFields();
+        } catch (DuplicateTypesException e) {
+            throw new AmbiguousPortsException(clazz.getName(), toClass.getName(), e.getMessage());
+        }
+
+        List<WiringPlan.Step> steps = new ArrayList<>(outPorts.size());
+
+        for (OutPort outPort : outPorts.values()) {
+            steps.add(new WiringPlan.Step(
+                    outPort,
+                    inPortHandlerMethods.get(outPort.signature),
+                    inPortFields.get(outPort.signature)));
+        }
+
+        WiringPlan plan = new WiringPlan(steps.toArray(new WiringPlan.Step[0]));
+
+        synchronized (wiringPlans) {
+            wiringPlans.put(toClass, new SoftReference<>(plan));
+        }
+
+        return plan;
+    }
+
+    private static String getSignature(Field field) {
+        String typeParameter = TypeUtils.extractTypeParameter(field.getGenericType().getTypeName(), "");
+
+        if (typeParameter.isEmpty()) {
+            typeParameter = (field.getType() == Request.class ? "java.lang.Object, java.lang.Object" : "java.lang.Object");
+        }
+
+        if (field.getType() != Request.class) {
+            typeParameter += ", void";
+        }
+
+        return typeParameter;
+    }
+
+    private static String getSignature(Method method) {
+        Type[] parameterTypes = method.getGenericParameterTypes();
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+
+            sb.append(parameterTypes[i].getTypeName());
+        }
+
+        if (parameterTypes.length == 0) {
+            sb.append('-');
+        }
+
+        return sb.append(", ").append(method.getGenericReturnType().getTypeName()).toString();
+    }
+
+    /*
+     * Returns only the port fields of the provided class if it is covered by a port index,
+     * or null if the class must be scanned via reflection.
+     */
+    private static Field[] getIndexedFields(Class<?> clazz) {
+        PortIndex index = PortIndex.forClass(clazz);
+
+        if (index.isPortsComponent(clazz) == Boolean.FALSE) {
+            return new Field[0];
+        }
+
+        PortIndex.ClassEntry entry = index.getEntry(clazz);
+
+        if (entry == null) {
+            return null;
+        }
+
+        List<Field> fields = new ArrayList<>();
+
+        try {
+            for (String fieldName : entry.outPortFields) {
+                fields.add(clazz.getDeclaredField(fieldName));
+            }
+
+            for (String fieldName : entry.inPortFields) {
+                fields.add(clazz.getDeclaredField(fieldName));
+            }
+        } catch (NoSuchFieldException e) {
+            // The index is outdated.
+            return null;
+        }
+
+        return fields.toArray(new Field[0]);
+    }
+
+    /*
+     * Returns only the IN port methods of the provided class if it is covered by a port index,
+     * or null if the class must be scanned via reflection.
+     */
+    private static Method[] getIndexedMethods(Class<?> clazz) {
+        PortIndex index = PortIndex.forClass(clazz);
+
+        if (index.isPortsComponent(clazz) == Boolean.FALSE) {
+            return new Method[0];
+        }
+
+        PortIndex.ClassEntry entry = index.getEntry(clazz);
+
+        if (entry == null) {
+            return null;
+        }
+
+        Method[] methods = new Method[entry.inPortMethods.size()];
+
+        try {
+            for (int i = 0; i < methods.length; i++) {
+                String messageType = entry.inPortMessageTypes.get(i);
+
+                if (messageType.equals("-")) {
+                    return null;
+                }
+
+                Class<?> messageClass = Class.forName(messageType, false, clazz.getClassLoader());
+                methods[i] = clazz.getDeclaredMethod(entry.inPortMethods.get(i), messageClass);
+            }
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            // The index is outdated.
+            return null;
+        }
+
+        return methods;
+    }
+}
@@ -16,159 +16,176 @@
 
 package org.timux.ports;
 
-import org.timux.ports.types.NoSuchConstituentException;
-
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.Iterator;
-import java.util.Map;
-import java.util.WeakHashMap;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
+/**
+ * A concurrent map with weakly referenced keys. Keys are compared with {@link Object#equals}, like in
+ * {@link java.util.WeakHashMap}.
+ *
+ * <p> The map is backed by a {@link ConcurrentHashMap} whose keys are weak references, so reads do not
+ * take any locks. Mappings of garbage-collected keys are expunged via a reference queue whenever the
+ * map is modified. Iteration is weakly consistent: it never throws a
+ * {@link java.util.ConcurrentModificationException} and skips keys that have been garbage-collected.
+ */
 @SuppressWarnings("unchecked")
 class ConcurrentWeakHashMap<K, V> implements Iterable<K> {
 
-    private static final int NUMBER_OF_PARTITIONS =
-            (int) Math.pow(2.0, Math.ceil(Math.log(4.0 * Runtime.getRuntime().availableProcessors()) / Math.log(2.0)));
+    /*
+     * The stored key. Once the referent has been cleared, a key is only equal to itself, which is
+     * exactly what expunging it from the map requires.
+     */
+    private static final class KeyRef<K> extends WeakReference<K> {
+
+        final int hash;
+
+        KeyRef(K key, ReferenceQueue<Object> queue) {
+            super(key, queue);
+            this.hash = spread(key.hashCode());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof KeyRef)) {
+                return false;
+            }
 
-    private static final int HASH_MASK = NUMBER_OF_PARTITIONS - 1;
+            KeyRef<?> other = (KeyRef<?>) o;
+            K key = get();
 
-    private final Map<K, V>[] maps = new WeakHashMap[NUMBER_OF_PARTITIONS];
-    private final Lock[] locks = new ReentrantLock[NUMBER_OF_PARTITIONS];
+            return key != null && hash == other.hash && key.equals(other.get());
+        }
 
-    public ConcurrentWeakHashMap() {
-        for (int i = 0; i < maps.length; i++) {
-            maps[i] = new WeakHashMap<>();
-            locks[i] = new ReentrantLock(false);
+        @Override
+        public int hashCode() {
+            return hash;
         }
     }
 
-    public void put(K key, V value) {
-        int p = key.hashCode() & HASH_MASK;
-        Map<K, V> map = maps[p];
-        Lock lock = locks[p];
+    /*
+     * Used for reads, so that a lookup does not have to allocate a weak reference. ConcurrentHashMap
+     * always compares the provided key against the stored key, so only this direction of equals is needed.
+     */
+    private static final class LookupKey<K> {
 
-        lock.lock();
+        final K key;
+        final int hash;
 
-        try {
-            map.put(key, value);
-        } finally {
-            lock.unlock();
+        LookupKey(K key) {
+            this.key = key;
+            this.hash = spread(key.hashCode());
         }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof KeyRef && hash == ((KeyRef<?>) o).hash && key.equals(((KeyRef<?>) o).get());
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final ConcurrentHashMap<Object, V> map = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+    /*
+     * Identity hash codes tend to have poor low-order bits, so mix all bits before ConcurrentHashMap
+     * applies its own spreading.
+     */
+    private static int spread(int h) {
+        h *= 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    public void put(K key, V value) {
+        expungeStaleEntries();
+        map.put(new KeyRef<>(key, queue), value);
     }
 
     public V get(K key) {
-        int p = key.hashCode() & HASH_MASK;
-        Map<K, V> map = maps[p];
-        Lock lock = locks[p];
+        return map.get(new LookupKey<>(key));
+    }
+
+    public V remove(K key) {
+        expungeStaleEntries();
+        return map.remove(new LookupKey<>(key));
+    }
 
-        lock.lock();
+    public V compute(K key, BiFunction<K, V, V> mapper) {
+        expungeStaleEntries();
+        return map.compute(new KeyRef<>(key, queue), (k, v) -> mapper.apply(key, v));
+    }
+
+    public V computeIfAbsent(K key, Function<K, V> mapper) {
+        V value = get(key);
 
-        try {
-            return map.get(key);
-        } finally {
-            lock.unlock();
+        if (value != null) {
+            return value;
         }
+
+        expungeStaleEntries();
+        return map.computeIfAbsent(new KeyRef<>(key, queue), k -> mapper.apply(key));
     }
 
-    public V remove(K key) {
-        int p = key.hashCode() & HASH_MASK;
-        Map<K, V> map = maps[p];
-        Lock lock = locks[p];
+    public int size() {
+        expungeStaleEntries();
+        return map.size();
+    }
 
-        lock.lock();
+    public void clear() {
+        map.clear();
+        expungeStaleEntries();
+    }
 
-        try {
-            return map.remove(key);
-        } finally {
-            lock.unlock();
+    private void expungeStaleEntries() {
+        for (Reference<?> reference; (reference = queue.poll()) != null; ) {
+            map.remove(reference);
         }
     }
 
     private class It implements Iterator<K> {
 
-        private int currentIndex = 0;
-        private Iterator<K> currentIt;
+        private final Iterator<Object> keyIt = map.keySet().iterator();
+
+        /* Strongly referenced so that it cannot be collected between hasNext and next. */
+        private K nextKey;
 
         @Override
         public boolean hasNext() {
-            if (currentIndex >= maps.length) {
-                return false;
-            }
-
-            if (currentIt == null) {
-                for (; currentIndex < maps.length; currentIndex++) {
-                    if (!maps[currentIndex].isEmpty()) {
-                        currentIt = maps[currentIndex].keySet().iterator();
-                        break;
-                    }
-                }
-
-                if (currentIt == null) {
-                    return false;
-                }
+            while (nextKey == null && keyIt.hasNext()) {
+                nextKey = ((KeyRef<K>) keyIt.next()).get();
             }
 
-            return currentIt.hasNext() || (currentIndex + 1 < maps.length && !maps[currentIndex + 1].isEmpty());
+            return nextKey != null;
         }
 
         @Override
         public K next() {
-            K key = currentIt.next();
-
-            if (!currentIt.hasNext()) {
-                currentIt = null;
-                currentIndex++;
+            if (!hasNext()) {
+                throw new NoSuchElementException();
             }
 
+            K key = nextKey;
+            nextKey = null;
             return key;
         }
     }
 
     @Override
     public Iterator<K> iterator() {
+        expungeStaleEntries();
         return new It();
     }
-
-    public V compute(K key, BiFunction<K, V, V> mapper) {
-        int p = key.hashCode() & HASH_MASK;
-        Map<K, V> map = maps[p];
-        Lock lock = locks[p];
-
-        lock.lock();
-
-        try {
-            return map.compute(key, mapper);
-        } finally {
-            lock.unlock();
-        }
-    }
-
-    public V computeIfAbsent(K key, Function<K, V> mapper) {
-        int p = key.hashCode() & HASH_MASK;
-        Map<K, V> map = maps[p];
-        Lock lock = locks[p];
-
-        lock.lock();
-
-        try {
-            return map.computeIfAbsent(key, mapper);
-        } finally {
-            lock.unlock();
-        }
-    }
-
-    public void clear() {
-        for (int i = 0; i < maps.length; i++) {
-            Lock lock = locks[i];
-            lock.lock();
-
-            try {
-                maps[i].clear();
-            } finally {
-                lock.unlock();
-            }
-        }
-    }
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018-2022 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import java.util.Arrays;
+
+/**
+ * The registry of the {@link ContextPropagator}s.
+ */
+@SuppressWarnings({"unchecked", "rawtypes"})
+final class ContextPropagation {
+
+    private static final ContextPropagator[] NO_PROPAGATORS = new ContextPropagator[0];
+
+    private static volatile ContextPropagator[] propagators = NO_PROPAGATORS;
+
+    private ContextPropagation() {
+        //
+    }
+
+    static synchronized void add(ContextPropagator<?> propagator) {
+        ContextPropagator[] newPropagators = Arrays.copyOf(propagators, propagators.length + 1);
+        newPropagators[propagators.length] = propagator;
+        propagators = newPropagators;
+    }
+
+    static synchronized void remove(ContextPropagator<?> propagator) {
+        propagators = Arrays.stream(propagators)
+                .filter(p -> p != propagator)
+                .toArray(ContextPropagator[]::new);
+    }
+
+    static synchronized void clear() {
+        propagators = NO_PROPAGATORS;
+    }
+
+    /**
+     * Returns the contexts of the current thread, or null if there are no propagators.
+     */
+    static Captured capture() {
+        ContextPropagator[] currentPropagators = propagators;
+
+        if (currentPropagators.length == 0) {
+            return null;
+        }
+
+        Object[] contexts = new Object[currentPropagators.length];
+
+        for (int i = 0; i < currentPropagators.length; i++) {
+            contexts[i] = currentPropagators[i].capture();
+        }
+
+        return new Captured(currentPropagators, contexts);
+    }
+
+    /**
+     * The contexts captured by a fixed set of propagators. Restoring returns the previous contexts
+     * of the current thread, which can be restored in turn. A propagator that fails to restore its
+     * context does not prevent the others from restoring theirs; its previous context is not part
+     * of the result because it has not been replaced.
+     */
+    static final class Captured {
+
+        private final ContextPropagator[] propagators;
+        private final Object[] contexts;
+
+        private Captured(ContextPropagator[] propagators, Object[] contexts) {
+            this.propagators = propagators;
+            this.contexts = contexts;
+        }
+
+        Captured restore() {
+            ContextPropagator[] appliedPropagators = new ContextPropagator[propagators.length];
+            Object[] previousContexts = new Object[propagators.length];
+            int appliedCount = 0;
+
+            for (int i = 0; i < propagators.length; i++) {
+                try {
+                    previousContexts[appliedCount] = propagators[i].restore(contexts[i]);
+                    appliedPropagators[appliedCount] = propagators[i];
+                    appliedCount++;
+                } catch (Exception e) {
+                    Ports.printWarning("a context propagator terminated with an exception:");
+                    e.printStackTrace();
+                }
+            }
+
+            if (appliedCount < propagators.length) {
+                appliedPropagators = Arrays.copyOf(appliedPropagators, appliedCount);
+                previousContexts = Arrays.copyOf(previousContexts, appliedCount);
+            }
+
+            return new Captured(appliedPropagators, previousContexts);
+        }
+    }
+}
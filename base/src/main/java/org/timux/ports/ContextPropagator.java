@@ -0,0 +1,44 @@
+/*
+ * Copyright 2018-2022 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+/**
+ * A service provider interface for propagating thread-bound context (e.g. logging MDCs, trace ids,
+ * or security contexts) along with messages. The context is captured when a message is dispatched
+ * and restored around the handler invocation if the handler runs in a different thread, i.e. when
+ * the receiver belongs to an {@link DispatchPolicy#ASYNCHRONOUS} or {@link DispatchPolicy#PARALLEL}
+ * domain.
+ *
+ * @param <C> The type of the context.
+ *
+ * @see Ports#addContextPropagator
+ * @since 0.7.0
+ */
+public interface ContextPropagator<C> {
+
+    /**
+     * Returns the context of the current thread. This is called within the thread of the sender.
+     */
+    C capture();
+
+    /**
+     * Makes the provided context the context of the current thread and returns the previous context
+     * of the current thread. This is called within the thread of the receiver, once with the captured
+     * context before the handler is invoked, and once with the returned context afterwards.
+     */
+    C restore(C context);
+}
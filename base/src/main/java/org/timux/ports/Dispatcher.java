@@ -25,17 +25,27 @@ class Dispatcher {
 
     private final Deque<Task> queue = new ArrayDeque<>();
 
+    private final String name;
     private final Executor workerExecutor;
+    private final DomainMetrics metrics;
 
     Dispatcher(String name, int maxNumberOfThreads) {
+        this.name = name;
+
         workerExecutor = maxNumberOfThreads > 0
                 ? new Executor(this, "ports-worker-" + name, maxNumberOfThreads)
                 : null;
+
+        metrics = new DomainMetrics(name, this);
     }
 
     <T> void dispatch(Consumer<T> eventPort, T payload, Object mutexSubject, Object sender, Object receiver) {
         Task task = new Task(eventPort, payload, mutexSubject, sender, receiver);
 
+        if (Metrics.isEnabled) {
+            task.enableMetrics(metrics);
+        }
+
         if (workerExecutor == null || task.getCreatedByThread().getThreadGroup() == workerExecutor.getThreadGroup()) {
             /*
              * We must use the task infrastructure here (instead of a direct call to 'accept') because of the
@@ -52,6 +62,7 @@ class Dispatcher {
 
         synchronized (queue) {
             queue.offerLast(task);
+            JfrSupport.taskEnqueued(name, payload, queue.size());
             workerExecutor.onNewEventTaskAvailable(task, queue.size());
         }
     }
@@ -59,6 +70,10 @@ class Dispatcher {
     <I, O> PortsFuture<O> dispatch(Function<I, O> requestPort, I payload, Object mutexSubject, Object sender, Object receiver, PortsFutureResponseTypeInfo responseTypeInfo) {
         Task task = new Task(requestPort, payload, mutexSubject, sender, receiver);
 
+        if (Metrics.isEnabled) {
+            task.enableMetrics(metrics);
+        }
+
         if (workerExecutor == null || task.getCreatedByThread().getThreadGroup() == workerExecutor.getThreadGroup()) {
             /*
              * We must use the task infrastructure here (instead of a direct call to 'apply') because of the
@@ -71,6 +86,7 @@ class Dispatcher {
 
         synchronized (queue) {
             queue.offerLast(task);
+            JfrSupport.taskEnqueued(name, payload, queue.size());
             workerExecutor.onNewRequestTaskAvailable(task, queue.size());
         }
 
@@ -79,7 +95,13 @@ class Dispatcher {
 
     Task poll() {
         synchronized (queue) {
-            return queue.pollFirst();
+            Task task = queue.pollFirst();
+
+            if (task != null) {
+                JfrSupport.taskDequeued(name, task.getPayload(), queue.size());
+            }
+
+            return task;
         }
     }
 
@@ -87,10 +109,30 @@ class Dispatcher {
         return workerExecutor != null ? workerExecutor.getNumberOfThreadsCreated() : 0;
     }
 
+    int getNumberOfThreads() {
+        return workerExecutor != null ? workerExecutor.getNumberOfThreads() : 0;
+    }
+
+    int getNumberOfBusyThreads() {
+        return workerExecutor != null ? workerExecutor.getNumberOfBusyThreads() : 0;
+    }
+
+    int getQueueDepth() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    DomainMetrics getMetrics() {
+        return metrics;
+    }
+
     void release() {
         if (workerExecutor != null) {
             workerExecutor.release();
         }
+
+        metrics.unregister();
     }
 
     void awaitQuiescence() {
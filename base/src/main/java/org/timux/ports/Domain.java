@@ -128,6 +128,10 @@ public class Domain {
         return dispatcher.getNumberOfThreadsCreated();
     }
 
+    DomainMetrics getMetrics() {
+        return dispatcher.getMetrics();
+    }
+
     void release() {
         dispatcher.release();
     }
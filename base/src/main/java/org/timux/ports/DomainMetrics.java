@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018-2022 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+class DomainMetrics implements DomainMetricsMXBean {
+
+    private final String name;
+    private final Dispatcher dispatcher;
+
+    private final Map<Class<?>, MessageMetrics> messageMetrics = new ConcurrentHashMap<>();
+
+    private volatile boolean isRegistered = false;
+    private volatile boolean isReleased = false;
+
+    DomainMetrics(String name, Dispatcher dispatcher) {
+        this.name = name;
+        this.dispatcher = dispatcher;
+    }
+
+    void record(Class<?> messageType, long waitNanos, long serviceNanos, boolean hasFailed) {
+        if (isReleased) {
+            // Tasks that were still in flight when the domain was released must not register the MBeans again.
+            return;
+        }
+
+        MessageMetrics metrics = messageMetrics.get(messageType);
+
+        if (metrics == null) {
+            synchronized (this) {
+                if (isReleased) {
+                    return;
+                }
+
+                metrics = messageMetrics.computeIfAbsent(messageType, this::createMessageMetrics);
+            }
+        }
+
+        metrics.record(waitNanos, serviceNanos, hasFailed);
+    }
+
+    private MessageMetrics createMessageMetrics(Class<?> messageType) {
+        if (!isRegistered) {
+            Metrics.register(Metrics.getDomainObjectName(name), this);
+            isRegistered = true;
+        }
+
+        MessageMetrics metrics = new MessageMetrics(messageType.getName(), name);
+        Metrics.register(Metrics.getMessageObjectName(name, messageType.getName()), metrics);
+        return metrics;
+    }
+
+    MessageMetrics getMessageMetrics(Class<?> messageType) {
+        return messageMetrics.get(messageType);
+    }
+
+    synchronized void unregister() {
+        isReleased = true;
+
+        if (isRegistered) {
+            messageMetrics.keySet().forEach(
+                    messageType -> Metrics.unregister(Metrics.getMessageObjectName(name, messageType.getName())));
+            Metrics.unregister(Metrics.getDomainObjectName(name));
+            isRegistered = false;
+        }
+
+        messageMetrics.clear();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return dispatcher.getQueueDepth();
+    }
+
+    @Override
+    public int getBusyThreadCount() {
+        return dispatcher.getNumberOfBusyThreads();
+    }
+
+    @Override
+    public int getIdleThreadCount() {
+        return dispatcher.getNumberOfThreads() - dispatcher.getNumberOfBusyThreads();
+    }
+
+    @Override
+    public int getThreadCount() {
+        return dispatcher.getNumberOfThreads();
+    }
+
+    @Override
+    public int getThreadsCreatedCount() {
+        return dispatcher.getNumberOfThreadsCreated();
+    }
+
+    @Override
+    public long getMessageCount() {
+        return messageMetrics.values().stream().mapToLong(MessageMetrics::getCount).sum();
+    }
+}
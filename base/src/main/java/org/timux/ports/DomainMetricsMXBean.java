@@ -0,0 +1,46 @@
+/*
+ * Copyright 2018-2022 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+/**
+ * The management interface of the metrics of a {@link Domain}.
+ *
+ * @see Ports#enableMetrics
+ * @since 0.7.0
+ */
+public interface DomainMetricsMXBean {
+
+    String getName();
+
+    /**
+     * Returns the number of messages that are currently waiting for a worker thread.
+     */
+    int getQueueDepth();
+
+    int getBusyThreadCount();
+
+    int getIdleThreadCount();
+
+    int getThreadCount();
+
+    /**
+     * Returns the number of worker threads that have been created since the domain was created.
+     */
+    int getThreadsCreatedCount();
+
+    long getMessageCount();
+}
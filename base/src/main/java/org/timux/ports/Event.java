@@ -16,7 +16,6 @@
 
 package org.timux.ports;
 
-import java.lang.ref.WeakReference;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.*;
@@ -35,27 +34,138 @@ import java.util.function.Consumer;
  */
 public class Event<T> {
 
-    private static class PortEntry<T> {
+    /*
+     * The domain of a receiver together with the port as wrapped by the interceptors of that domain.
+     * Immutable, so that both are always published together.
+     */
+    private static final class DispatchTarget<T> {
+
+        final Domain domain;
+        final Consumer<T> interceptedPort;
+
+        DispatchTarget(Domain domain, Consumer<T> interceptedPort) {
+            this.domain = domain;
+            this.interceptedPort = interceptedPort;
+        }
+    }
+
+    /*
+     * A connection to one IN port. The entry references its receiver weakly (by being the weak reference
+     * itself) and is pruned by the ReceiverReaper once the receiver has been garbage-collected. For handler
+     * methods, the entry also serves as the consumer that invokes the method, so that a connection costs
+     * a single object.
+     */
+    private static final class PortEntry<T> extends ReceiverReaper.ReceiverRef implements Consumer<T> {
+
+        final Event<T> event;
+
+        /* The IN port object (QueuePort or StackPort), or the handler method, identifying this connection. */
+        final Object inPort;
+
+        final Consumer<T> port;
+        final EventWrapper eventWrapper;
 
-        Consumer<T> port;
-        WeakReference<?> receiverRef;
+        /* The identity hash code of the receiver, which stays available after the receiver has been collected. */
+        final int receiverHash;
 
-        Domain receiverDomain;
+        volatile DispatchTarget<T> dispatchTarget;
 
-        PortEntry(Consumer<T> port, Object receiverRef) {
+        /* Set when the connection is removed. The entry stays in the array until the next compaction. */
+        volatile boolean isRemoved = false;
+
+        PortEntry(Event<T> event, Consumer<T> port, Object inPort, Object receiver) {
+            super(receiver);
+            this.event = event;
+            this.receiverHash = System.identityHashCode(receiver);
+            this.inPort = inPort;
             this.port = port;
-            this.receiverRef = new WeakReference<>(receiverRef);
+            this.eventWrapper = null;
+        }
+
+        PortEntry(Event<T> event, Method portMethod, Object receiver, EventWrapper eventWrapper) {
+            super(receiver);
+            this.event = event;
+            this.receiverHash = System.identityHashCode(receiver);
+            this.inPort = portMethod;
+            this.port = this;
+            this.eventWrapper = eventWrapper;
+        }
+
+        @Override
+        public void accept(T x) {
+            if (eventWrapper == null) {
+                invoke(x);
+            } else {
+                eventWrapper.execute(() -> invoke(x), x, get());
+            }
+        }
+
+        private void invoke(T x) {
+            Object receiver = get();
+
+            if (receiver == null) {
+                return;
+            }
+
+            try {
+                ((Method) inPort).invoke(receiver, x);
+            } catch (InvocationTargetException e) {
+                Ports.triggerEventException(e.getCause());
+            } catch (Exception e) {
+                Ports.triggerEventException(e);
+            }
+        }
+
+        @Override
+        void reap() {
+            event.remove(this);
+        }
+    }
+
+    /*
+     * An immutable view of the connections. New entries are appended in place behind the size of earlier
+     * views, and removed entries are only marked as such, so neither requires copying the array. The array
+     * is only replaced when it is full or when it is compacted.
+     */
+    private static final class PortEntries<T> {
+
+        final PortEntry<T>[] entries;
+        final int size;
+
+        PortEntries(PortEntry<T>[] entries, int size) {
+            this.entries = entries;
+            this.size = size;
         }
     }
 
-    private final List<PortEntry<T>> ports = new ArrayList<>(4);
-    private Map<Method, Map<Object, Consumer<T>>> portMethods = null;
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final PortEntries NO_PORTS = new PortEntries<>(new PortEntry[0], 0);
+
+    @SuppressWarnings("unchecked")
+    private static <T> PortEntries<T> noPorts() {
+        return NO_PORTS;
+    }
+
+    /* Read by trigger without locking. Only modified while holding this. */
+    private volatile PortEntries<T> ports = noPorts();
+
+    /* The number of entries of the current view that are marked as removed. Guarded by this. */
+    private int removedCount = 0;
+
+    /*
+     * Indexes the entries by the identity hash codes of their receivers for trigger(payload, receivers), so that
+     * receivers are matched by identity rather than by equals. Created on first use. Guarded by this.
+     */
+    private Map<Integer, List<PortEntry<T>>> portEntriesByReceiver = null;
 
     private String eventTypeName;
     private Object owner;
 
     private int domainVersion = -1;
 
+    /* Set while the receivers of this port are to be resolved lazily, see Ports.connectLazily. */
+    volatile LazyResolution lazyResolution = null;
+
     public Event() {
         //
     }
@@ -65,69 +175,84 @@ public class Event<T> {
         this.owner = owner;
     }
 
-    /**
-     * Connects this OUT port to the given IN port. In case this OUT port is already connected to any IN ports,
-     * the new connection will be added to the existing ones.
-     *
-     * @param port The IN port that this OUT port should be connected to. Must not be null.
-     */
-    private synchronized void connect(Consumer<T> port, Object receiver) {
-        if (port == null) {
-            throw new IllegalArgumentException("port must not be null");
+    private synchronized void add(PortEntry<T> portEntry) {
+        PortEntries<T> p = ports;
+        PortEntry<T>[] entries = p.entries;
+
+        if (p.size == entries.length) {
+            entries = Arrays.copyOf(entries, Math.max(4, 2 * entries.length));
+        }
+
+        // Views with a smaller size never read this slot.
+        entries[p.size] = portEntry;
+        ports = new PortEntries<>(entries, p.size + 1);
+
+        if (portEntriesByReceiver != null) {
+            portEntriesByReceiver.computeIfAbsent(portEntry.receiverHash, k -> new ArrayList<>(1)).add(portEntry);
         }
 
-        ports.add(new PortEntry<>(port, receiver));
         domainVersion = -1;
     }
 
-    synchronized void connect(Method portMethod, Object methodOwner, EventWrapper eventWrapper) {
-        if (portMethod == null) {
-            throw new IllegalArgumentException("port must not be null");
+    private synchronized void remove(PortEntry<T> portEntry) {
+        if (portEntry.isRemoved) {
+            return;
         }
 
-        if (portMethods == null) {
-            portMethods = new HashMap<>(8);
+        portEntry.isRemoved = true;
+        removedCount++;
+
+        PortEntries<T> p = ports;
+
+        // Compacting once more than half of the entries are removed keeps removals amortized O(1). This also
+        // ensures that a non-empty view always contains at least one connection.
+        if (2 * removedCount > p.size) {
+            compact(p);
         }
 
-        Map<Object, Consumer<T>> portOwners = portMethods.computeIfAbsent(portMethod, k -> new WeakHashMap<>(4));
+        if (portEntriesByReceiver != null) {
+            List<PortEntry<T>> receiverEntries = portEntriesByReceiver.get(portEntry.receiverHash);
 
-        WeakReference<?> methodOwnerRef = new WeakReference<>(methodOwner);
+            if (receiverEntries != null) {
+                receiverEntries.remove(portEntry);
 
-        if (eventWrapper == null) {
-            portOwners.put(
-                    methodOwner,
-                    x -> {
-                        try {
-                            Object owner = methodOwnerRef.get();
+                if (receiverEntries.isEmpty()) {
+                    portEntriesByReceiver.remove(portEntry.receiverHash);
+                }
+            }
+        }
+
+        domainVersion = -1;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private void compact(PortEntries<T> p) {
+        int size = p.size - removedCount;
 
-                            if (owner != null) {
-                                portMethod.invoke(owner, x);
-                            }
-                        } catch (InvocationTargetException e) {
-                            Ports.triggerEventException(e.getCause());
-                        } catch (Exception e) {
-                            Ports.triggerEventException(e);
-                        }
-                    });
+        if (size == 0) {
+            ports = noPorts();
         } else {
-            portOwners.put(
-                    methodOwner,
-                    x -> eventWrapper.execute(() -> {
-                        Object owner = methodOwnerRef.get();
-
-                        if (owner != null) {
-                            try {
-                                portMethod.invoke(owner, x);
-                            } catch (InvocationTargetException e) {
-                                Ports.triggerEventException(e.getCause());
-                            } catch (Exception e) {
-                                Ports.triggerEventException(e);
-                            }
-                        }
-                    }));
-        }
-
-        connect(portOwners.get(methodOwner), methodOwner);
+            PortEntry<T>[] entries = new PortEntry[Math.max(4, 2 * size)];
+            int j = 0;
+
+            for (int i = 0; i < p.size; i++) {
+                if (!p.entries[i].isRemoved) {
+                    entries[j++] = p.entries[i];
+                }
+            }
+
+            ports = new PortEntries<>(entries, size);
+        }
+
+        removedCount = 0;
+    }
+
+    synchronized void connect(Method portMethod, Object methodOwner, EventWrapper eventWrapper) {
+        if (portMethod == null) {
+            throw new IllegalArgumentException("port must not be null");
+        }
+
+        add(new PortEntry<>(this, portMethod, methodOwner, eventWrapper));
     }
 
     /**
@@ -137,7 +262,11 @@ public class Event<T> {
      * @param port The IN port that this OUT port should be connected to.
      */
     void connect(QueuePort<T> port, Object portOwner) {
-        connect(port::add, portOwner);
+        if (port == null) {
+            throw new IllegalArgumentException("port must not be null");
+        }
+
+        add(new PortEntry<>(this, port::add, port, portOwner));
     }
 
     /**
@@ -147,49 +276,41 @@ public class Event<T> {
      * @param port The IN port that this OUT port should be connected to.
      */
     void connect(StackPort<T> port, Object portOwner) {
-        connect(port::push, portOwner);
+        if (port == null) {
+            throw new IllegalArgumentException("port must not be null");
+        }
+
+        add(new PortEntry<>(this, port::push, port, portOwner));
     }
 
     /**
-     * Disconnects this OUT port from the given IN port.
+     * Disconnects this OUT port from the given IN port (a handler method, a {@link QueuePort} or
+     * a {@link StackPort}) of the given receiver.
      */
-    synchronized void disconnect(Consumer<T> port) {
-        int index = -1;
+    synchronized void disconnect(Object inPort, Object receiver) {
+        PortEntries<T> p = ports;
 
-        for (int i = ports.size() - 1; i >= 0; i--) {
-            if (ports.get(i).port == port) {
-                index = i;
-                break;
-            }
-        }
+        for (int i = p.size - 1; i >= 0; i--) {
+            PortEntry<T> portEntry = p.entries[i];
 
-        if (index >= 0) {
-            ports.remove(index);
-            domainVersion = -1;
+            if (!portEntry.isRemoved && portEntry.inPort == inPort && portEntry.get() == receiver) {
+                remove(portEntry);
+                return;
+            }
         }
     }
 
-    synchronized void disconnect(Method portMethod, Object methodOwner) {
-        Map<Object, Consumer<T>> portOwners = portMethods.get(portMethod);
-
-        if (portOwners == null) {
-            return;
-        }
-
-        Consumer<T> port = portOwners.remove(methodOwner);
-
-        if (port != null) {
-            disconnect(port);
-        }
+    synchronized void disconnect() {
+        PortEntries<T> p = ports;
 
-        if (portOwners.isEmpty()) {
-            portMethods.remove(portMethod);
+        for (int i = 0; i < p.size; i++) {
+            // So that the reaper doesn't count them as removed again.
+            p.entries[i].isRemoved = true;
         }
-    }
 
-    synchronized void disconnect() {
-        ports.clear();
-        portMethods = null;
+        ports = noPorts();
+        removedCount = 0;
+        portEntriesByReceiver = null;
         domainVersion = -1;
     }
 
@@ -203,20 +324,25 @@ public class Event<T> {
      * @see Domain
      */
     public void trigger(T payload) {
-        CacheManager.onMessageSent(payload.getClass());
+        LazyResolution resolution = lazyResolution;
+
+        if (resolution != null) {
+            resolution.resolve();
+        }
 
-        final List<PortEntry<T>> p = ports;
+        CacheManager.onMessageSent(payload);
+        boolean isObserved = EventObservers.onEventTriggered(eventTypeName, payload);
 
-        int i = p.size();
+        final PortEntries<T> p = ports;
 
-        if (i == 0) {
+        if (p.size == 0) {
             if (Protocol.areProtocolsActive) {
                 try {
                     Protocol.onDataSent(eventTypeName, owner, payload);
                 } catch (Exception e) {
                     Ports.triggerEventException(e);
                 }
-            } else {
+            } else if (!isObserved) {
                 Ports.printWarning(String.format(
                         "event %s was fired by component %s but there is no receiver",
                         eventTypeName,
@@ -234,89 +360,162 @@ public class Event<T> {
             }
         }
 
-        boolean updateDomains;
+        boolean updateDomains = checkDomainVersion();
 
-        synchronized (this) {
-            updateDomains = domainVersion != DomainManager.getCurrentVersion();
+        for (int i = p.size - 1; i >= 0; i--) {
+            dispatch(p.entries[i], payload, updateDomains);
+        }
+    }
+
+    /**
+     * Sends the given payload only to those of the connected IN ports that belong to one of the provided
+     * receivers. Receivers that are not connected to this OUT port are ignored. The cost of this method
+     * depends on the number of provided receivers, not on the number of connected IN ports, which makes it
+     * suitable for delivering events to a small subset of many connected components.
+     *
+     * <p> Like with {@link #trigger(Object)}, the way the event is dispatched depends on the {@link Domain}(s)
+     * of the receiver(s).
+     *
+     * @param payload The payload to be sent.
+     * @param receivers The components that should receive the payload.
+     *
+     * @see #trigger(Object)
+     * @since 0.7.0
+     */
+    public void trigger(T payload, Collection<?> receivers) {
+        LazyResolution resolution = lazyResolution;
+
+        if (resolution != null) {
+            resolution.resolve();
+        }
+
+        CacheManager.onMessageSent(payload);
+        EventObservers.onEventTriggered(eventTypeName, payload);
 
-            if (updateDomains) {
-                domainVersion = DomainManager.getCurrentVersion();
+        if (Protocol.areProtocolsActive) {
+            try {
+                Protocol.onDataSent(eventTypeName, owner, payload);
+            } catch (Exception e) {
+                Ports.triggerEventException(e);
             }
         }
 
-        try {
-            for (i--; i >= 0; i--) {
-                PortEntry<T> portEntry;
+        if (receivers.isEmpty()) {
+            return;
+        }
+
+        boolean updateDomains = checkDomainVersion();
+
+        List<PortEntry<T>> targetEntries = new ArrayList<>(receivers.size());
+
+        synchronized (this) {
+            if (portEntriesByReceiver == null) {
+                portEntriesByReceiver = new HashMap<>();
+
+                PortEntries<T> p = ports;
+
+                for (int i = 0; i < p.size; i++) {
+                    PortEntry<T> portEntry = p.entries[i];
 
-                synchronized (this) {
-                    // Synchronize this so that no disconnect can happen in parallel.
-                    portEntry = p.get(i);
+                    if (!portEntry.isRemoved) {
+                        portEntriesByReceiver.computeIfAbsent(portEntry.receiverHash, k -> new ArrayList<>(1)).add(portEntry);
+                    }
                 }
+            }
 
-                Object receiver = portEntry.receiverRef.get();
+            // Each receiver gets the event only once, even if it is contained in the collection multiple times.
+            Set<Object> visitedReceivers = receivers.size() > 1
+                    ? Collections.newSetFromMap(new IdentityHashMap<>())
+                    : null;
 
-                if (receiver == null) {
+            for (Object receiver : receivers) {
+                if (receiver == null || (visitedReceivers != null && !visitedReceivers.add(receiver))) {
                     continue;
                 }
 
-                if (updateDomains || portEntry.receiverDomain == null) {
-                    // We have to check the domain for null because a connect could have happened
-                    // in parallel (before the loop).
-                    portEntry.receiverDomain = DomainManager.getDomain(receiver);
+                List<PortEntry<T>> receiverEntries = portEntriesByReceiver.get(System.identityHashCode(receiver));
+
+                if (receiverEntries == null) {
+                    continue;
                 }
 
-                portEntry.receiverDomain.dispatch(portEntry.port, payload, owner, receiver);
+                for (PortEntry<T> portEntry : receiverEntries) {
+                    // Different receivers may share an identity hash code.
+                    if (portEntry.get() == receiver) {
+                        targetEntries.add(portEntry);
+                    }
+                }
             }
-        } catch (IndexOutOfBoundsException e) {
-            // The "p.get(i)" above could cause this if a disconnect happened while
-            // the loop was executing.
-            return;
         }
 
+        for (PortEntry<T> portEntry : targetEntries) {
+            dispatch(portEntry, payload, updateDomains);
+        }
+    }
+
+    private synchronized boolean checkDomainVersion() {
+        boolean updateDomains = domainVersion != DomainManager.getCurrentVersion();
+
+        if (updateDomains) {
+            domainVersion = DomainManager.getCurrentVersion();
+        }
 
+        return updateDomains;
     }
 
-    private synchronized void cleanUp() {
-        if (portMethods != null) {
-            List<Method> garbageMethods = null;
+    private void dispatch(PortEntry<T> portEntry, T payload, boolean updateDomains) {
+        Object receiver = portEntry.get();
 
-            for (Map.Entry<Method, Map<Object, Consumer<T>>> e : portMethods.entrySet()) {
-                if (e.getValue().isEmpty()) {
-                    if (garbageMethods == null) {
-                        garbageMethods = new ArrayList<>();
-                    }
+        if (receiver == null || portEntry.isRemoved) {
+            return;
+        }
 
-                    garbageMethods.add(e.getKey());
-                }
-            }
+        DispatchTarget<T> dispatchTarget = portEntry.dispatchTarget;
 
-            if (garbageMethods != null) {
-                garbageMethods.forEach(portMethods::remove);
-            }
+        if (updateDomains || dispatchTarget == null) {
+            // We have to check the target for null because a connect could have happened
+            // in parallel (before the loop).
+            Domain receiverDomain = DomainManager.getDomain(receiver);
+            dispatchTarget = new DispatchTarget<>(
+                    receiverDomain, Interceptors.wrapEvent(eventTypeName, receiverDomain, portEntry.port));
+            portEntry.dispatchTarget = dispatchTarget;
         }
 
-        List<PortEntry<T>> garbagePortEntries = null;
+        dispatchTarget.domain.dispatch(dispatchTarget.interceptedPort, payload, owner, receiver);
+    }
 
-        for (PortEntry<T> portEntry : ports) {
-            if (portEntry.receiverRef.get() == null) {
-                if (garbagePortEntries == null) {
-                    garbagePortEntries = new ArrayList<>();
-                }
+    private synchronized void cleanUp() {
+        PortEntries<T> p = ports;
 
-                garbagePortEntries.add(portEntry);
+        for (int i = p.size - 1; i >= 0; i--) {
+            if (p.entries[i].get() == null) {
+                // The reaper would remove this entry soon, but the caller wants an accurate answer now.
+                remove(p.entries[i]);
             }
         }
+    }
 
-        if (garbagePortEntries != null) {
-            ports.removeAll(garbagePortEntries);
-        }
+    /**
+     * Returns the number of connections, including those whose receivers have been garbage-collected
+     * but not pruned yet.
+     */
+    synchronized int getConnectionCount() {
+        return ports.size - removedCount;
     }
 
     /**
      * Returns true if this OUT port is connected to an IN port, false otherwise.
      */
-    public synchronized boolean isConnected() {
-        cleanUp();
-        return !ports.isEmpty();
+    public boolean isConnected() {
+        LazyResolution resolution = lazyResolution;
+
+        if (resolution != null) {
+            resolution.resolve();
+        }
+
+        synchronized (this) {
+            cleanUp();
+            return ports.size > 0;
+        }
     }
 }
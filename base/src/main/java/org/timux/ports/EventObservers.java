@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.timux.ports;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * The registry of the event observers declared via {@link Ports#observe}. In contrast to
+ * protocols, observers are owned by the integration that registered them, so they don't
+ * activate the protocol machinery and are not affected by {@link Ports#releaseProtocols()}
+ * or {@link Ports#reset()}.
+ */
+@SuppressWarnings({"unchecked", "rawtypes"})
+final class EventObservers {
+
+    private static class Entry {
+
+        final String identifier;
+        final Consumer consumer;
+
+        Entry(String identifier, Consumer consumer) {
+            this.identifier = identifier;
+            this.consumer = consumer;
+        }
+    }
+
+    /*
+     * Immutable index from event type names to observers. It is replaced as a whole whenever an
+     * observer is added or removed, so that triggering events can read it without any locking.
+     */
+    private static volatile Map<String, Entry[]> observers = Collections.emptyMap();
+
+    private EventObservers() {
+        //
+    }
+
+    static synchronized void register(String identifier, String eventTypeName, Consumer<?> consumer) {
+        Entry[] entries = observers.getOrDefault(eventTypeName, new Entry[0]);
+        Entry[] newEntries = Arrays.copyOf(entries, entries.length + 1);
+        newEntries[entries.length] = new Entry(identifier, consumer);
+
+        Map<String, Entry[]> newObservers = new HashMap<>(observers);
+        newObservers.put(eventTypeName, newEntries);
+
+        observers = Collections.unmodifiableMap(newObservers);
+    }
+
+    static synchronized void release(String identifier) {
+        Map<String, Entry[]> newObservers = new HashMap<>(observers.size() * 2);
+
+        observers.forEach((eventTypeName, entries) -> {
+            Entry[] newEntries = Arrays.stream(entries)
+                    .filter(entry -> !entry.identifier.equals(identifier))
+                    .toArray(Entry[]::new);
+
+            if (newEntries.length > 0) {
+                newObservers.put(eventTypeName, newEntries);
+            }
+        });
+
+        observers = Collections.unmodifiableMap(newObservers);
+    }
+
+    /**
+     * Passes the provided event to all observers of its type. Returns true if there was at least
+     * one observer.
+     */
+    static boolean onEventTriggered(String eventTypeName, Object payload) {
+        Map<String, Entry[]> currentObservers = observers;
+
+        if (currentObservers.isEmpty()) {
+            return false;
+        }
+
+        Entry[] entries = currentObservers.get(eventTypeName);
+
+        if (entries == null) {
+            return false;
+        }
+
+        for (Entry entry : entries) {
+            try {
+                entry.consumer.accept(payload);
+            } catch (Exception e) {
+                Ports.triggerEventException(e);
+            }
+        }
+
+        return true;
+    }
+}
@@ -20,4 +20,16 @@ package org.timux.ports;
 public interface EventWrapper {
 
     void execute(PortsCommand f);
+
+    /**
+     * Executes the provided command, which delivers the provided event to the provided receiver.
+     * Ports calls this method for each wrapped event delivery. Wrappers that need to know what is
+     * delivered (e.g. in order to batch or conflate deliveries) can override it; by default, it
+     * simply calls {@link #execute(PortsCommand)}.
+     *
+     * @since 0.7.0
+     */
+    default void execute(PortsCommand f, Object event, Object receiver) {
+        execute(f);
+    }
 }
\ No newline at end of file
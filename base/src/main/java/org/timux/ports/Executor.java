@@ -245,4 +245,10 @@ class Executor {
             return threadPool.size();
         }
     }
+
+    int getNumberOfBusyThreads() {
+        synchronized (threadPool) {
+            return numberOfBusyThreads;
+        }
+    }
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018-2022 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Declares interceptors for a message type. The filters {@link #inDomain} and {@link #sampled}
+ * apply to all interceptors that are declared after them on the same clause.
+ *
+ * @param <T> The type of the intercepted messages.
+ *
+ * @see Ports#intercept(String, Class)
+ * @since 0.7.0
+ */
+public class InterceptorClause<T> {
+
+    private final String identifier;
+    private final String messageType;
+
+    private Domain domain = null;
+    private double samplingRate = 1.0;
+
+    InterceptorClause(String identifier, String messageType) {
+        this.identifier = identifier;
+        this.messageType = messageType;
+    }
+
+    /**
+     * Restricts the subsequently declared interceptors to receivers in the provided domain.
+     */
+    public InterceptorClause<T> inDomain(Domain domain) {
+        this.domain = domain;
+        return this;
+    }
+
+    /**
+     * Restricts the subsequently declared interceptors to a random sample of the messages.
+     *
+     * @param rate The fraction of messages to be intercepted, between 0.0 and 1.0.
+     */
+    public InterceptorClause<T> sampled(double rate) {
+        if (rate < 0.0 || rate > 1.0) {
+            throw new IllegalArgumentException("sampling rate must be between 0.0 and 1.0");
+        }
+
+        this.samplingRate = rate;
+        return this;
+    }
+
+    /**
+     * Declares an interceptor that is called before a message is delivered to its receiver.
+     */
+    public InterceptorClause<T> before(Consumer<T> interceptor) {
+        return around((message, proceed) -> {
+            Interceptors.runSafely(() -> interceptor.accept(message));
+            return proceed.apply(message);
+        });
+    }
+
+    /**
+     * Declares an interceptor that is called after a message has been delivered to its receiver.
+     * The second argument is the response in case of requests and null in case of events. The
+     * interceptor is not called if the receiver terminates with an exception.
+     */
+    public InterceptorClause<T> after(BiConsumer<T, Object> interceptor) {
+        return around((message, proceed) -> {
+            Object response = proceed.apply(message);
+            Interceptors.runSafely(() -> interceptor.accept(message, response));
+            return response;
+        });
+    }
+
+    /**
+     * Declares an interceptor that wraps the delivery of a message to its receiver.
+     */
+    public InterceptorClause<T> around(AroundInterceptor<T> interceptor) {
+        Interceptors.register(new Interceptors.Entry(identifier, messageType, domain, samplingRate, interceptor));
+        return this;
+    }
+}
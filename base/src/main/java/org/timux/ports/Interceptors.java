@@ -0,0 +1,161 @@
+/*
+ * Copyright 2018-2022 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * The registry of the interceptors declared via {@link Ports#intercept}. The interceptors are
+ * compiled into the dispatch functions of the ports whenever these are (re)built after a
+ * {@link DomainManager#invalidate}, so ports without interceptors don't pay anything.
+ */
+@SuppressWarnings({"unchecked", "rawtypes"})
+final class Interceptors {
+
+    static class Entry {
+
+        final String identifier;
+        final String messageType;
+        final Domain domain;
+        final double samplingRate;
+        final AroundInterceptor interceptor;
+
+        Entry(String identifier, String messageType, Domain domain, double samplingRate, AroundInterceptor interceptor) {
+            this.identifier = identifier;
+            this.messageType = messageType;
+            this.domain = domain;
+            this.samplingRate = samplingRate;
+            this.interceptor = interceptor;
+        }
+
+        boolean matches(String messageType, Domain domain) {
+            return this.messageType.equals(messageType) && (this.domain == null || this.domain == domain);
+        }
+    }
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    private static volatile Entry[] entries = NO_ENTRIES;
+
+    private Interceptors() {
+        //
+    }
+
+    static synchronized void register(Entry entry) {
+        Entry[] newEntries = Arrays.copyOf(entries, entries.length + 1);
+        newEntries[entries.length] = entry;
+        entries = newEntries;
+
+        DomainManager.invalidate();
+    }
+
+    static synchronized void release(String identifier) {
+        entries = Arrays.stream(entries)
+                .filter(entry -> !entry.identifier.equals(identifier))
+                .toArray(Entry[]::new);
+
+        DomainManager.invalidate();
+    }
+
+    static synchronized void clear() {
+        entries = NO_ENTRIES;
+        DomainManager.invalidate();
+    }
+
+    /**
+     * Returns the provided request function wrapped by all matching interceptors, or the
+     * function itself if there are no matching interceptors.
+     */
+    static <I, O> Function<I, O> wrapRequest(String messageType, Domain domain, Function<I, O> function) {
+        Entry[] currentEntries = entries;
+
+        if (currentEntries.length == 0) {
+            return function;
+        }
+
+        List<Entry> matchingEntries = null;
+
+        for (Entry entry : currentEntries) {
+            if (entry.matches(messageType, domain)) {
+                if (matchingEntries == null) {
+                    matchingEntries = new ArrayList<>(4);
+                }
+
+                matchingEntries.add(entry);
+            }
+        }
+
+        if (matchingEntries == null) {
+            return function;
+        }
+
+        Function<I, Object> chain = (Function<I, Object>) function;
+
+        // The interceptor declared first becomes the outermost one.
+        for (int i = matchingEntries.size() - 1; i >= 0; i--) {
+            chain = compile(matchingEntries.get(i), chain);
+        }
+
+        return (Function<I, O>) chain;
+    }
+
+    /**
+     * Returns the provided event consumer wrapped by all matching interceptors, or the
+     * consumer itself if there are no matching interceptors.
+     */
+    static <T> Consumer<T> wrapEvent(String messageType, Domain domain, Consumer<T> consumer) {
+        Function<T, Object> function = x -> {
+            consumer.accept(x);
+            return null;
+        };
+
+        Function<T, Object> wrappedFunction = wrapRequest(messageType, domain, function);
+
+        return wrappedFunction == function ? consumer : wrappedFunction::apply;
+    }
+
+    private static <T> Function<T, Object> compile(Entry entry, Function<T, Object> next) {
+        AroundInterceptor<T> interceptor = entry.interceptor;
+        double samplingRate = entry.samplingRate;
+
+        if (samplingRate >= 1.0) {
+            return x -> interceptor.intercept(x, next);
+        }
+
+        return x -> ThreadLocalRandom.current().nextDouble() < samplingRate
+                ? interceptor.intercept(x, next)
+                : next.apply(x);
+    }
+
+    /**
+     * Runs the provided monitoring code. Exceptions are logged but don't affect the
+     * delivery of the message.
+     */
+    static void runSafely(Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (Exception e) {
+            Ports.printWarning("an interceptor terminated with an exception:");
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2018-2022 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+/**
+ * Emits Java Flight Recorder events. This is the Java 8 variant, which does nothing. The
+ * multi-release variant in META-INF/versions/11 emits actual events; both variants must
+ * have the same signatures.
+ */
+final class JfrSupport {
+
+    private JfrSupport() {
+        //
+    }
+
+    static void taskEnqueued(String domain, Object payload, int queueDepth) {
+        //
+    }
+
+    static void taskDequeued(String domain, Object payload, int queueDepth) {
+        //
+    }
+
+    static Object beginTaskRun() {
+        return null;
+    }
+
+    static void endTaskRun(Object event, Object payload, Object receiver) {
+        //
+    }
+
+    static Object beginLockWait() {
+        return null;
+    }
+
+    static void endLockWait(Object event, Object payload, Object receiver, boolean isDeadlocked) {
+        //
+    }
+
+    static void deadlockDetected(Object payload, Object deadlockStartPayload, boolean isResolvedByNewThread) {
+        //
+    }
+
+    static void cacheAccessed(String requestType, boolean isHit) {
+        //
+    }
+}
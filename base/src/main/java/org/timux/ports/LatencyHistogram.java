@@ -0,0 +1,175 @@
+/*
+ * Copyright 2018-2022 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of durations in nanoseconds with logarithmic buckets. Each power of two
+ * is divided into {@link #SUB_BUCKETS} linear sub-buckets, which bounds the relative error of
+ * the reported percentiles by 1/{@link #SUB_BUCKETS} (below 1%), similar to an HDR histogram
+ * with one significant binary digit of precision per sub-bucket bit. Durations of
+ * 2^{@link #MAX_EXPONENT} ns (about 18 minutes) and above are counted in the last bucket.
+ *
+ * <p> The buckets start out as a single array. When recording threads contend for it, they are
+ * spread over up to {@link #MAX_STRIPES} arrays, selected by a per-thread probe, like the cells
+ * of a {@link LongAdder}.
+ */
+class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final long MAX_TRACKABLE_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    private static final int NUMBER_OF_BUCKETS = getBucketIndex(MAX_TRACKABLE_VALUE) + 1;
+
+    private static final int MAX_STRIPES =
+            Math.min(8, Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1) << 1));
+
+    private volatile AtomicLongArray[] stripes = { new AtomicLongArray(NUMBER_OF_BUCKETS) };
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+
+        int index = getBucketIndex(Math.min(nanos, MAX_TRACKABLE_VALUE));
+        AtomicLongArray[] currentStripes = stripes;
+        AtomicLongArray stripe = currentStripes[getProbe() & (currentStripes.length - 1)];
+        long value = stripe.get(index);
+
+        if (!stripe.compareAndSet(index, value, value + 1)) {
+            stripe.incrementAndGet(index);
+            expandStripes(currentStripes);
+        }
+
+        count.increment();
+        sum.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    private static int getProbe() {
+        int hash = (int) Thread.currentThread().getId() * 0x9e3779b9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private synchronized void expandStripes(AtomicLongArray[] currentStripes) {
+        if (stripes != currentStripes || currentStripes.length >= MAX_STRIPES) {
+            return;
+        }
+
+        AtomicLongArray[] newStripes = new AtomicLongArray[currentStripes.length << 1];
+        System.arraycopy(currentStripes, 0, newStripes, 0, currentStripes.length);
+
+        for (int i = currentStripes.length; i < newStripes.length; i++) {
+            newStripes[i] = new AtomicLongArray(NUMBER_OF_BUCKETS);
+        }
+
+        stripes = newStripes;
+    }
+
+    static int getBucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Returns the largest value that maps to the provided bucket.
+     */
+    static long getBucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = index & (SUB_BUCKETS - 1);
+        long lowerBound = (1L << exponent) + ((long) subBucket << (exponent - SUB_BUCKET_BITS));
+
+        return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    long getCount() {
+        return count.sum();
+    }
+
+    long getMax() {
+        return max.get();
+    }
+
+    double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0.0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Returns an upper bound of the value below which the provided percentage of the recorded values fall.
+     */
+    long getValueAtPercentile(double percentile) {
+        AtomicLongArray[] currentStripes = stripes;
+        long[] buckets = new long[NUMBER_OF_BUCKETS];
+        long total = 0;
+
+        for (AtomicLongArray stripe : currentStripes) {
+            for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+                long value = stripe.get(i);
+                buckets[i] += value;
+                total += value;
+            }
+        }
+
+        if (total == 0) {
+            return 0;
+        }
+
+        long threshold = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+
+        for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+            seen += buckets[i];
+
+            if (seen >= threshold) {
+                return Math.min(getBucketUpperBound(i), getMax());
+            }
+        }
+
+        return getMax();
+    }
+
+    void reset() {
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+                stripe.set(i, 0);
+            }
+        }
+
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+}
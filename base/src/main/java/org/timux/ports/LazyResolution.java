@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import java.util.List;
+
+/**
+ * The pending resolution of the OUT ports of a component that has been prepared for lazy
+ * wiring. All OUT ports of the component share one instance, which runs the {@link PortResolver}
+ * on the first use of any of the ports and then detaches itself from the ports.
+ */
+final class LazyResolution {
+
+    private final Object component;
+    private final List<Object> ports;
+
+    private PortResolver resolver;
+    private boolean isResolving = false;
+
+    LazyResolution(Object component, PortResolver resolver, List<Object> ports) {
+        this.component = component;
+        this.resolver = resolver;
+        this.ports = ports;
+    }
+
+    void attach() {
+        for (Object port : ports) {
+            if (port instanceof Event) {
+                ((Event<?>) port).lazyResolution = this;
+            } else if (port instanceof Request) {
+                ((Request<?, ?>) port).lazyResolution = this;
+            }
+        }
+    }
+
+    synchronized void resolve() {
+        // The resolver itself uses the ports while connecting them.
+        if (resolver == null || isResolving) {
+            return;
+        }
+
+        isResolving = true;
+
+        try {
+            resolver.resolve(component);
+        } finally {
+            isResolving = false;
+            resolver = null;
+
+            for (Object port : ports) {
+                if (port instanceof Event) {
+                    ((Event<?>) port).lazyResolution = null;
+                } else if (port instanceof Request) {
+                    ((Request<?, ?>) port).lazyResolution = null;
+                }
+            }
+        }
+    }
+}
@@ -59,16 +59,25 @@ class LockManager {
             Map<Thread, Object> m = w.getSeenThreads();
             Task result = isDeadlocked0(task, m, targetGroup, wantedLock);
             m.clear();
-            return result;
+            return onDeadlockChecked(task, result, targetGroup);
         }
 
         synchronized (seenThreads) {
             Task result = isDeadlocked0(task, seenThreads, targetGroup, wantedLock);
             seenThreads.clear();
-            return result;
+            return onDeadlockChecked(task, result, targetGroup);
         }
     }
 
+    private static Task onDeadlockChecked(Task task, Task deadlockStart, ThreadGroup targetGroup) {
+        if (deadlockStart != null) {
+            // With a target group, the executor resolves the deadlock by spawning a new worker thread.
+            JfrSupport.deadlockDetected(task.getPayload(), deadlockStart.getPayload(), targetGroup != null);
+        }
+
+        return deadlockStart;
+    }
+
     private static Task isDeadlocked0(Task task, Map<Thread, Object> seenThreads, ThreadGroup targetGroup, Lock wantedLock) {
         /*
          * The map 'seenThreads' is used as a set here. It is necessary because otherwise, we can enter infinite
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018-2022 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import java.util.concurrent.atomic.LongAdder;
+
+class MessageMetrics implements MessageMetricsMXBean {
+
+    private final String messageType;
+    private final String domain;
+
+    private final LongAdder failureCount = new LongAdder();
+    private final LatencyHistogram waitTime = new LatencyHistogram();
+    private final LatencyHistogram serviceTime = new LatencyHistogram();
+
+    MessageMetrics(String messageType, String domain) {
+        this.messageType = messageType;
+        this.domain = domain;
+    }
+
+    void record(long waitNanos, long serviceNanos, boolean hasFailed) {
+        waitTime.record(waitNanos);
+        serviceTime.record(serviceNanos);
+
+        if (hasFailed) {
+            failureCount.increment();
+        }
+    }
+
+    @Override
+    public String getMessageType() {
+        return messageType;
+    }
+
+    @Override
+    public String getDomain() {
+        return domain;
+    }
+
+    @Override
+    public long getCount() {
+        return serviceTime.getCount();
+    }
+
+    @Override
+    public long getFailureCount() {
+        return failureCount.sum();
+    }
+
+    @Override
+    public double getWaitTimeMean() {
+        return waitTime.getMean();
+    }
+
+    @Override
+    public long getWaitTime50thPercentile() {
+        return waitTime.getValueAtPercentile(50.0);
+    }
+
+    @Override
+    public long getWaitTime99thPercentile() {
+        return waitTime.getValueAtPercentile(99.0);
+    }
+
+    @Override
+    public long getWaitTime999thPercentile() {
+        return waitTime.getValueAtPercentile(99.9);
+    }
+
+    @Override
+    public long getWaitTimeMax() {
+        return waitTime.getMax();
+    }
+
+    @Override
+    public double getServiceTimeMean() {
+        return serviceTime.getMean();
+    }
+
+    @Override
+    public long getServiceTime50thPercentile() {
+        return serviceTime.getValueAtPercentile(50.0);
+    }
+
+    @Override
+    public long getServiceTime99thPercentile() {
+        return serviceTime.getValueAtPercentile(99.0);
+    }
+
+    @Override
+    public long getServiceTime999thPercentile() {
+        return serviceTime.getValueAtPercentile(99.9);
+    }
+
+    @Override
+    public long getServiceTimeMax() {
+        return serviceTime.getMax();
+    }
+
+    @Override
+    public void reset() {
+        failureCount.reset();
+        waitTime.reset();
+        serviceTime.reset();
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2018-2022 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+/**
+ * The management interface of the metrics of a message type within a {@link Domain}.
+ * All durations are given in nanoseconds. The wait time is the time a message spends
+ * between being dispatched and its handler being invoked (including the time waiting for
+ * the lock of the receiver); the service time is the time spent within the handler.
+ *
+ * @see Ports#enableMetrics
+ * @since 0.7.0
+ */
+public interface MessageMetricsMXBean {
+
+    String getMessageType();
+
+    String getDomain();
+
+    long getCount();
+
+    long getFailureCount();
+
+    double getWaitTimeMean();
+
+    long getWaitTime50thPercentile();
+
+    long getWaitTime99thPercentile();
+
+    long getWaitTime999thPercentile();
+
+    long getWaitTimeMax();
+
+    double getServiceTimeMean();
+
+    long getServiceTime50thPercentile();
+
+    long getServiceTime99thPercentile();
+
+    long getServiceTime999thPercentile();
+
+    long getServiceTimeMax();
+
+    void reset();
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2018-2022 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Controls the recording of metrics and their exposure via JMX. When metrics are disabled,
+ * the dispatching only pays for a single volatile read per message.
+ */
+final class Metrics {
+
+    private static final String DOMAIN = "org.timux.ports";
+
+    static volatile boolean isEnabled = false;
+
+    private Metrics() {
+        //
+    }
+
+    static String getDomainObjectName(String domainName) {
+        return DOMAIN + ":type=Domain,name=" + ObjectName.quote(domainName);
+    }
+
+    static String getMessageObjectName(String domainName, String messageType) {
+        return DOMAIN + ":type=Message,domain=" + ObjectName.quote(domainName) + ",name=" + ObjectName.quote(messageType);
+    }
+
+    static void register(String objectName, Object mbean) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            ObjectName name = new ObjectName(objectName);
+
+            try {
+                server.registerMBean(mbean, name);
+            } catch (InstanceAlreadyExistsException e) {
+                // A domain with the same name has been released and recreated.
+                server.unregisterMBean(name);
+                server.registerMBean(mbean, name);
+            }
+        } catch (JMException e) {
+            Ports.printWarning(String.format("cannot register MBean %s (%s)", objectName, e));
+        }
+    }
+
+    static void unregister(String objectName) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(objectName));
+        } catch (InstanceNotFoundException e) {
+            // Already gone, nothing to do.
+        } catch (JMException e) {
+            Ports.printWarning(String.format("cannot unregister MBean %s (%s)", objectName, e));
+        }
+    }
+}
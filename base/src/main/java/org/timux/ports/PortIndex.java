@@ -0,0 +1,198 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import org.timux.ports.index.PortIndexAnnoProcessor;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The runtime view of the indexes that have been written by the
+ * {@link PortIndexAnnoProcessor}. There is one index per class path root (JAR or directory),
+ * and it only covers the classes that have been loaded from that root.
+ *
+ * <p> The indexes can be disabled by setting the system property {@value #ENABLED_PROPERTY}
+ * to false, in which case Ports falls back to scanning the classes via reflection.
+ */
+final class PortIndex {
+
+    static final String RESOURCE_NAME = PortIndexAnnoProcessor.RESOURCE_NAME;
+    static final String ENABLED_PROPERTY = "org.timux.ports.index";
+
+    private static final PortIndex EMPTY = new PortIndex();
+    private static final Map<String, PortIndex> indexesByRoot = new ConcurrentHashMap<>();
+
+    static final class ClassEntry {
+
+        final List<String> outPortFields = new ArrayList<>();
+        final List<String> inPortFields = new ArrayList<>();
+        final List<String> inPortMethods = new ArrayList<>();
+        final List<String> inPortMessageTypes = new ArrayList<>();
+    }
+
+    /* The classes that the annotation processor has seen and found to declare no ports. Classes that
+     * it has not seen (anonymous and local classes, classes from other compilers) are not covered. */
+    private final Set<String> portFreeClasses = new HashSet<>();
+    private final Map<String, ClassEntry> classes = new HashMap<>();
+
+    private PortIndex() {
+        //
+    }
+
+    static PortIndex forClass(Class<?> clazz) {
+        if (!Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true"))) {
+            return EMPTY;
+        }
+
+        String root = getRoot(clazz);
+
+        if (root == null) {
+            return EMPTY;
+        }
+
+        PortIndex index = indexesByRoot.get(root);
+
+        return index != null ? index : indexesByRoot.computeIfAbsent(root, PortIndex::load);
+    }
+
+    private static PortIndex load(String root) {
+        PortIndex index = new PortIndex();
+
+        try {
+            URLConnection connection = new URL(root + RESOURCE_NAME).openConnection();
+            connection.setUseCaches(false);
+
+            try (Reader reader = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)) {
+                index.parseInto(reader);
+            }
+        } catch (FileNotFoundException e) {
+            // This root has not been compiled with the annotation processor.
+            return EMPTY;
+        } catch (IOException | RuntimeException e) {
+            Ports.printWarning("cannot read Ports index, falling back to reflection: " + e.getMessage());
+            return EMPTY;
+        }
+
+        return index;
+    }
+
+    static PortIndex parse(Reader reader) throws IOException {
+        PortIndex index = new PortIndex();
+        index.parseInto(reader);
+        return index;
+    }
+
+    private void parseInto(Reader reader) throws IOException {
+        BufferedReader bufferedReader = new BufferedReader(reader);
+        ClassEntry currentEntry = null;
+
+        for (String line = bufferedReader.readLine(); line != null; line = bufferedReader.readLine()) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] parts = line.split(" ");
+
+            switch (parts[0]) {
+            case "N":
+                portFreeClasses.add(parts[1]);
+                break;
+
+            case "C":
+                currentEntry = classes.computeIfAbsent(parts[1], k -> new ClassEntry());
+                break;
+
+            case "O":
+                currentEntry.outPortFields.add(parts[1]);
+                break;
+
+            case "F":
+                currentEntry.inPortFields.add(parts[1]);
+                break;
+
+            case "M":
+                currentEntry.inPortMethods.add(parts[1]);
+                currentEntry.inPortMessageTypes.add(parts[2]);
+                break;
+
+            default:
+                // Ignore unknown entries so that older runtimes can read newer indexes.
+                break;
+            }
+        }
+    }
+
+    /**
+     * Returns true or false if the index covers the provided class, or null if it does not.
+     */
+    Boolean isPortsComponent(Class<?> clazz) {
+        String className = clazz.getName();
+
+        if (classes.containsKey(className)) {
+            return true;
+        }
+
+        return portFreeClasses.contains(className) ? false : null;
+    }
+
+    /*
+     * Returns the class path root (JAR or directory) from which the provided class has been loaded,
+     * in the form that the index resource URL can be appended to.
+     */
+    private static String getRoot(Class<?> clazz) {
+        CodeSource codeSource;
+
+        try {
+            ProtectionDomain protectionDomain = clazz.getProtectionDomain();
+            codeSource = protectionDomain != null ? protectionDomain.getCodeSource() : null;
+        } catch (SecurityException e) {
+            return null;
+        }
+
+        if (codeSource == null || codeSource.getLocation() == null) {
+            return null;
+        }
+
+        String location = codeSource.getLocation().toString();
+
+        return location.endsWith("/") ? location : "jar:" + location + "!/";
+    }
+
+    /**
+     * Returns the ports of the provided class, or null if the class is not a Ports component
+     * or if the index does not cover it.
+     */
+    ClassEntry getEntry(Class<?> clazz) {
+        return classes.get(clazz.getName());
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+/**
+ * Connects the OUT ports of a component that has been prepared for lazy wiring. This is useful
+ * for integrations that manage many short-lived components of which most never use most of their
+ * OUT ports, so that connecting them eagerly would be wasted effort.
+ *
+ * @see Ports#connectLazily
+ * @since 0.7.0
+ */
+@FunctionalInterface
+public interface PortResolver {
+
+    /**
+     * Connects the OUT ports of the provided component, e.g. via {@link Ports#connectDirected}.
+     * This is called at most once per component, in the thread that uses any of the OUT ports
+     * of the component for the first time. Other threads that use the OUT ports of the component
+     * in the meantime wait until this method has returned.
+     */
+    void resolve(Object component);
+}
@@ -20,17 +20,19 @@ import org.timux.ports.types.Either;
 import org.timux.ports.types.Nothing;
 
 import java.io.IOException;
-import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
-import java.lang.reflect.Type;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Properties;
-import java.util.WeakHashMap;
+import java.util.Set;
 import java.util.function.Consumer;
 
 /**
@@ -43,9 +45,6 @@ import java.util.function.Consumer;
 @SuppressWarnings({"unchecked", "rawtypes"})
 public final class Ports {
 
-    private static final Map<Class<?>, WeakReference<Field[]>> fieldCache = new WeakHashMap<>();
-    private static final Map<Class<?>, WeakReference<Method[]>> methodCache = new WeakHashMap<>();
-
     private static final PortsEventExceptionSender eventExceptionSender = new PortsEventExceptionSender();
 
     /* This map exists so that the user can register arbitrary data with Ports.
@@ -54,6 +53,32 @@ public final class Ports {
      * packages will not be reloaded so that their state is preserved. */
     private static final Map<String, Object> customDataRegistry = new HashMap<>();
 
+    private static final ClassValue<Boolean> isPortsComponentCache = new ClassValue<Boolean>() {
+
+        @Override
+        protected Boolean computeValue(Class<?> clazz) {
+            Boolean isIndexedPortsComponent = PortIndex.forClass(clazz).isPortsComponent(clazz);
+
+            if (isIndexedPortsComponent != null) {
+                return isIndexedPortsComponent;
+            }
+
+            for (Field field : clazz.getDeclaredFields()) {
+                if (field.getAnnotation(Out.class) != null || field.getAnnotation(In.class) != null) {
+                    return true;
+                }
+            }
+
+            for (Method method : clazz.getDeclaredMethods()) {
+                if (method.getAnnotation(In.class) != null) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    };
+
     private Ports() {
         // Don't you instantiate this class!!
     }
@@ -90,13 +115,116 @@ public final class Ports {
 
     /**
      * Disconnects all of the specified components from each other.
+     *
+     * @see #disconnectAll(Collection)
      */
     public static void disconnect(Object... components) {
-        for (int i = 0; i < components.length; i++) {
-            for (int j = i  + 1; j < components.length; j++) {
-                disconnect(components[i]).and(components[j]);
+        disconnectAll(Arrays.asList(components));
+    }
+
+    /**
+     * Connects all of the provided components with each other, using default options.
+     * See {@link #connectAll(Collection, int)} for details.
+     *
+     * @since 0.7.0
+     */
+    public static void connectAll(Collection<?> components) {
+        connectAll(components, PortsOptions.DEFAULT);
+    }
+
+    /**
+     * Connects all of the provided components with each other. The result is the same as if
+     * {@code connect(a).and(b, portsOptions)} had been called for each pair of components, in the
+     * order of the collection. However, the components are indexed by their port signatures, so
+     * that only pairs with matching ports are processed. This makes wiring large component graphs
+     * linear in the number of connections instead of quadratic in the number of components.
+     *
+     * <p> Note that with {@link PortsOptions#DO_NOT_ALLOW_MISSING_PORTS}, or if a component has
+     * ambiguous ports, every pair has to be checked in order to fail in the same way.
+     *
+     * @param components The components to connect.
+     * @param portsOptions A bit field specifying a set of {@link PortsOptions}.
+     *
+     * @since 0.7.0
+     */
+    public static void connectAll(Collection<?> components, int portsOptions) {
+        BulkWiring.connectAll(components, portsOptions);
+    }
+
+    /**
+     * Connects all of the provided components with each other like {@link #connectAll(Collection, int)},
+     * but uses up to {@code parallelism} threads (including the calling thread). The connections are
+     * partitioned by port signature, and the connections of each signature are made by a single thread
+     * in the same order as in the sequential case, so the result is the same as with sequential wiring.
+     * This method returns after all connections have been made. If any connection fails, the first
+     * failure is rethrown.
+     *
+     * <p> Note that the provided components must not be connected or disconnected concurrently
+     * by other threads while this method runs.
+     *
+     * @param components The components to connect.
+     * @param portsOptions A bit field specifying a set of {@link PortsOptions}.
+     * @param parallelism The maximum number of threads to use. Values smaller than 2 result in
+     *                    sequential wiring.
+     *
+     * @since 0.7.0
+     */
+    public static void connectAll(Collection<?> components, int portsOptions, int parallelism) {
+        BulkWiring.connectAll(components, portsOptions, parallelism);
+    }
+
+    /**
+     * Disconnects all of the provided components from each other. The result is the same as if
+     * {@code disconnect(a).and(b)} had been called for each pair of components, but only the pairs
+     * with matching ports are processed.
+     *
+     * @since 0.7.0
+     */
+    public static void disconnectAll(Collection<?> components) {
+        BulkWiring.disconnectAll(components);
+    }
+
+    /**
+     * Prepares the provided component for lazy wiring. All OUT ports of the component are instantiated,
+     * but not connected. Instead, the provided resolver is called when any of the OUT ports is used for
+     * the first time, i.e. when an event is triggered, a request is called, or {@code isConnected} is
+     * queried. The resolver is expected to connect the OUT ports of the component, and it is called at
+     * most once.
+     *
+     * <p> The IN ports of the component are not affected, i.e. other components can be connected to the
+     * component as usual.
+     *
+     * @param component The component whose OUT ports shall be connected lazily.
+     * @param resolver The resolver that connects the OUT ports of the component.
+     *
+     * @since 0.7.0
+     */
+    public static void connectLazily(Object component, PortResolver resolver) {
+        if (component == null) {
+            throw new IllegalArgumentException("component must not be null");
+        }
+
+        if (resolver == null) {
+            throw new IllegalArgumentException("resolver must not be null");
+        }
+
+        List<Object> ports = new ArrayList<>();
+
+        try {
+            for (ComponentMetadata.OutPort outPort : ComponentMetadata.of(component).getOutPorts(false).values()) {
+                ensurePortInstantiation(outPort, component);
+
+                Object port = outPort.field.get(component);
+
+                if (port != null) {
+                    ports.add(port);
+                }
             }
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
         }
+
+        new LazyResolution(component, resolver, ports).attach();
     }
 
     static boolean connectBoth(Object a, Object b, int portsOptions) {
@@ -128,39 +256,23 @@ public final class Ports {
 
     static boolean connectDirectedInternal(Object from, Object to, EventWrapper eventWrapper, int portsOptions) throws IllegalAccessException {
         if (from != eventExceptionSender) {
-            connectDirectedInternal(eventExceptionSender, to, PortsOptions.DEFAULT);
+            connectEventExceptionSender(to);
         }
 
-        Map<String, Method> inPortHandlerMethodsByType = getInPortHandlerMethodsByType(from, to);
-
-        Map<String, Field> outPortFieldsByType;
-        Map<String, Field> inPortFieldsByType;
-
-        try {
-            outPortFieldsByType = getPortFieldsByType(from, Out.class, false);
-            inPortFieldsByType = getPortFieldsByType(to, In.class, false);
-        } catch (DuplicateTypesException e) {
-            throw new AmbiguousPortsException(from.getClass().getName(), to.getClass().getName(), e.getMessage());
-        }
+        WiringPlan wiringPlan = ComponentMetadata.of(from).getWiringPlan(from, to);
 
         boolean portsWereConnected = false;
 
-        for (Map.Entry<String, Field> e : outPortFieldsByType.entrySet()) {
-            String outPortFieldType = e.getKey();
-            Field outPortField = e.getValue();
-
-            ensurePortInstantiation(outPortField, from);
-
-            Method inPortHandlerMethod = inPortHandlerMethodsByType.get(outPortFieldType);
-            Field inPortField = inPortFieldsByType.get(outPortFieldType);
+        for (WiringPlan.Step step : wiringPlan.steps) {
+            ensurePortInstantiation(step.outPort, from);
 
             portsWereConnected |= connectSinglePort(
-                    outPortField,
-                    outPortFieldType,
+                    step.outPort.field,
+                    step.outPort.signature,
                     from,
                     to,
-                    inPortHandlerMethod,
-                    inPortField,
+                    step.inPortHandlerMethod,
+                    step.inPortField,
                     eventWrapper,
                     portsOptions);
         }
@@ -168,6 +280,10 @@ public final class Ports {
         return portsWereConnected;
     }
 
+    static void connectEventExceptionSender(Object to) throws IllegalAccessException {
+        connectDirectedInternal(eventExceptionSender, to, PortsOptions.DEFAULT);
+    }
+
     static boolean connectSinglePort(
             Field outPortField,
             String outPortFieldType,
@@ -235,13 +351,20 @@ public final class Ports {
         if (outPortField.getType() == Request.class) {
             Request request = (Request) outPortField.get(from);
 
-            if (request.isConnected() && (portsOptions & PortsOptions.FAIL_ON_AMBIGUOUS_REQUEST_CONNECTIONS) != 0) {
-                throw new AmbiguousRequestConnectionException(request.getRequestTypeName(), from.getClass().getName(), to.getClass().getName());
-            }
+            // Performs a pending lazy resolution before the monitor of the port is taken.
+            request.isConnected();
+
+            // Checking and connecting must be atomic, otherwise concurrent connects of the same
+            // OUT port could silently overwrite each other instead of being detected as ambiguous.
+            synchronized (request) {
+                if (request.hasReceiver() && (portsOptions & PortsOptions.FAIL_ON_AMBIGUOUS_REQUEST_CONNECTIONS) != 0) {
+                    throw new AmbiguousRequestConnectionException(request.getRequestTypeName(), from.getClass().getName(), to.getClass().getName());
+                }
 
-            if (!request.isConnected() || ((portsOptions & PortsOptions.FORCE_CONNECT_ALL) != 0)) {
-                request.connect(inPortHandlerMethod, to);
-                portsWereConnected = true;
+                if (!request.hasReceiver() || ((portsOptions & PortsOptions.FORCE_CONNECT_ALL) != 0)) {
+                    request.connect(inPortHandlerMethod, to);
+                    portsWereConnected = true;
+                }
             }
         }
 
@@ -255,12 +378,14 @@ public final class Ports {
             Object to,
             int portsOptions) throws IllegalAccessException
     {
-        Map<String, Method> inPortHandlerMethodsByType = getInPortHandlerMethodsByType(from, to);
+        ComponentMetadata toMetadata = ComponentMetadata.of(to);
+
+        Map<String, Method> inPortHandlerMethodsByType = toMetadata.getInPortHandlerMethods(from);
 
         Map<String, Field> inPortFieldsByType;
 
         try {
-            inPortFieldsByType = getPortFieldsByType(to, In.class, false);
+            inPortFieldsByType = toMetadata.getInPortFields();
         } catch (DuplicateTypesException e) {
             throw new AmbiguousPortsException(from.getClass().getName(), to.getClass().getName(), e.getMessage());
         }
@@ -279,20 +404,12 @@ public final class Ports {
                 portsOptions);
     }
 
-    static void ensurePortInstantiation(Field outPortField, Object owner) throws IllegalAccessException {
-        if (outPortField.get(owner) == null) {
-            String genericTypeName = outPortField.getGenericType().getTypeName();
-            String extractedMessageTypeName = TypeUtils.extractTypeParameter(genericTypeName, genericTypeName);
-            String requestTypeName = TypeUtils.extractRequestTypeName(extractedMessageTypeName);
-
-            if (outPortField.getType() == Event.class) {
-                Event event = new Event(requestTypeName, owner);
-                outPortField.set(owner, event);
-            }
+    static void ensurePortInstantiation(ComponentMetadata.OutPort outPort, Object owner) throws IllegalAccessException {
+        if (outPort.field.get(owner) == null) {
+            Object port = outPort.instantiate(owner);
 
-            if (outPortField.getType() == Request.class) {
-                Request request = new Request(requestTypeName, outPortField, outPortField.getName(), owner);
-                outPortField.set(owner, request);
+            if (port != null) {
+                outPort.field.set(owner, port);
             }
         }
     }
@@ -303,24 +420,12 @@ public final class Ports {
     }
 
     static void disconnectDirected(Object from, Object to, int portsOptions) {
-        Map<String, Method> inPortHandlerMethodsByType = getInPortHandlerMethodsByType(from, to);
-
-        Map<String, Field> outPortFieldsByType;
-        Map<String, Field> inPortFieldsByType;
-
-        try {
-            outPortFieldsByType = getPortFieldsByType(from, Out.class, false);
-            inPortFieldsByType = getPortFieldsByType(to, In.class, false);
-        } catch (DuplicateTypesException e) {
-            throw new AmbiguousPortsException(from.getClass().getName(), to.getClass().getName(), e.getMessage());
-        }
+        WiringPlan wiringPlan = ComponentMetadata.of(from).getWiringPlan(from, to);
 
-        for (Map.Entry<String, Field> e : outPortFieldsByType.entrySet()) {
-            String outPortFieldType = e.getKey();
-            Field outPortField = e.getValue();
-
-            Method inPortHandlerMethod = inPortHandlerMethodsByType.get(outPortFieldType);
-            Field inPortField = inPortFieldsByType.get(outPortFieldType);
+        for (WiringPlan.Step step : wiringPlan.steps) {
+            Field outPortField = step.outPort.field;
+            Method inPortHandlerMethod = step.inPortHandlerMethod;
+            Field inPortField = step.inPortField;
 
             try {
                 if (outPortField.getType() == Event.class) {
@@ -331,7 +436,7 @@ public final class Ports {
                     }
 
                     if (inPortField != null) {
-                        event.disconnect((Consumer) inPortField.get(to));
+                        event.disconnect(inPortField.get(to), to);
                     }
                 }
 
@@ -347,60 +452,6 @@ public final class Ports {
         }
     }
 
-    private static Map<String, Field> getPortFieldsByType(Object component, Class annotationType, boolean allowDuplicateTypes) {
-        Map<String, Field> fieldsByType = new HashMap<>();
-        Field[] fromFields = getFields(component);
-
-        for (Field field : fromFields) {
-            if (field.getAnnotation(annotationType) == null) {
-                continue;
-            }
-
-            String typeParameter = TypeUtils.extractTypeParameter(field.getGenericType().getTypeName(), "");
-
-            if (typeParameter.isEmpty()) {
-                typeParameter = (field.getType() == Request.class ? "java.lang.Object, java.lang.Object" : "java.lang.Object");
-            }
-
-            if (field.getType() != Request.class) {
-                typeParameter += ", void";
-            }
-
-            if (!allowDuplicateTypes && fieldsByType.containsKey(typeParameter)) {
-                throw new DuplicateTypesException(typeParameter);
-            }
-
-            fieldsByType.put(typeParameter, field);
-        }
-
-        return fieldsByType;
-    }
-
-    private static Map<String, Method> getInPortHandlerMethodsByType(Object from, Object to) {
-        Map<String, Method> methodsByType = new HashMap<>();
-        Method[] toMethods = getMethods(to);
-
-        for (Method method : toMethods) {
-            if (method.getAnnotation(In.class) == null) {
-                continue;
-            }
-
-            String typeString = Arrays.stream(method.getGenericParameterTypes())
-                    .map(Type::getTypeName)
-                    .reduce((r, x) -> r + "," + x)
-                    .orElse("-")
-                    + ", " + method.getGenericReturnType().getTypeName();
-
-            if (methodsByType.containsKey(typeString)) {
-                throw new AmbiguousPortsException(from.getClass().getName(), to.getClass().getName(), typeString);
-            }
-
-            methodsByType.put(typeString, method);
-        }
-
-        return methodsByType;
-    }
-
     /**
      * Checks whether all OUT ports of the provided components are connected.
      *
@@ -440,7 +491,7 @@ public final class Ports {
 
         try {
             for (Object component : components) {
-                Field[] fields = getFields(component);
+                Field[] fields = ComponentMetadata.of(component).getFields();
 
                 for (Field field : fields) {
                     if (field.getAnnotation(Out.class) == null) {
@@ -471,40 +522,52 @@ public final class Ports {
         return missingPorts;
     }
 
-    private synchronized static Field[] getFields(Object o) {
-        Class<?> clazz = o.getClass();
-        WeakReference<Field[]> fieldsRef = fieldCache.get(clazz);
-        Field[] fields = fieldsRef != null ? fieldsRef.get() : null;
-
-        if (fields == null) {
-            fields = clazz.getDeclaredFields();
-
-            for (Field field : fields) {
-                field.setAccessible(true);
-            }
-
-            fieldCache.put(clazz, new WeakReference<>(fields));
-        }
-
-        return fields;
+    /**
+     * Checks whether the provided object is a Ports component, i.e. whether its class declares
+     * at least one IN or OUT port. See {@link #isPortsComponent(Class)} for details.
+     *
+     * @since 0.7.0
+     */
+    public static boolean isPortsComponent(Object component) {
+        return isPortsComponent(component.getClass());
     }
 
-    private synchronized static Method[] getMethods(Object o) {
-        Class<?> clazz = o.getClass();
-        WeakReference<Method[]> methodsRef = methodCache.get(clazz);
-        Method[] methods = methodsRef != null ?  methodsRef.get() : null;
-
-        if (methods == null) {
-            methods = clazz.getDeclaredMethods();
-
-            for (Method method : methods) {
-                method.setAccessible(true);
-            }
+    /**
+     * Checks whether the provided class declares at least one IN or OUT port.
+     *
+     * <p> If the class has been compiled with the Ports annotation processors on the annotation
+     * processing path, the answer is taken from the port index that the processors write, without
+     * any reflection. Otherwise, the declared fields and methods of the class are scanned. The port
+     * index can be disabled by setting the system property {@code org.timux.ports.index} to false.
+     * The result is computed only once per class.
+     *
+     * @since 0.7.0
+     */
+    public static boolean isPortsComponent(Class<?> clazz) {
+        return isPortsComponentCache.get(clazz);
+    }
 
-            methodCache.put(clazz, new WeakReference<>(methods));
-        }
+    /**
+     * Returns the signatures of the OUT ports that are declared by the provided class. An instance
+     * of the class can only be connected to components that have an IN port with one of these
+     * signatures (see {@link #getInPortSignatures(Class)}). This can be used by integrations that
+     * manage many components in order to avoid trying to connect components that cannot have
+     * any ports in common.
+     *
+     * @since 0.7.0
+     */
+    public static Set<String> getOutPortSignatures(Class<?> clazz) {
+        return ComponentMetadata.of(clazz).getOutPorts(true).keySet();
+    }
 
-        return methods;
+    /**
+     * Returns the signatures of the IN ports (handler methods as well as queue and stack ports)
+     * that are declared by the provided class. See {@link #getOutPortSignatures(Class)}.
+     *
+     * @since 0.7.0
+     */
+    public static Set<String> getInPortSignatures(Class<?> clazz) {
+        return ComponentMetadata.of(clazz).getInPortSignatures();
     }
 
     /**
@@ -518,12 +581,11 @@ public final class Ports {
      */
     public static void register(Object... components) {
         for (Object component : components) {
-            Map<String, Field> outPortFieldsByType = getPortFieldsByType(component, Out.class, true);
+            Map<String, ComponentMetadata.OutPort> outPorts = ComponentMetadata.of(component).getOutPorts(true);
 
             try {
-                for (Map.Entry<String, Field> e : outPortFieldsByType.entrySet()) {
-                    Field outPortField = e.getValue();
-                    ensurePortInstantiation(outPortField, component);
+                for (ComponentMetadata.OutPort outPort : outPorts.values()) {
+                    ensurePortInstantiation(outPort, component);
                 }
             } catch (IllegalAccessException e) {
                 throw new RuntimeException(e);
@@ -544,6 +606,79 @@ public final class Ports {
         }
     }
 
+    /**
+     * Begins declaration of interceptors for the provided message type with the empty string as
+     * identifier. See {@link #intercept(String, Class)} for details.
+     *
+     * @since 0.7.0
+     */
+    public static <T> InterceptorClause<T> intercept(Class<T> messageType) {
+        return intercept("", messageType);
+    }
+
+    /**
+     * Begins declaration of interceptors for the provided message type. In contrast to protocols,
+     * interceptors are meant for production use (e.g. monitoring or logging): they are compiled
+     * into the dispatch chains of the affected ports, so ports of other message types don't pay
+     * anything. Interceptors see every message that is delivered to a receiver, but not the
+     * requests that are answered from a cache.
+     *
+     * <p> The identifier can be used later to release the interceptors via {@link #releaseInterceptors(String)}.
+     *
+     * @since 0.7.0
+     */
+    public static <T> InterceptorClause<T> intercept(String identifier, Class<T> messageType) {
+        Objects.requireNonNull(identifier);
+        Objects.requireNonNull(messageType);
+        return new InterceptorClause<>(identifier, messageType.getName());
+    }
+
+    /**
+     * Releases the interceptors with the provided identifier.
+     *
+     * @since 0.7.0
+     */
+    public static void releaseInterceptors(String identifier) {
+        Interceptors.release(identifier);
+    }
+
+    /**
+     * Releases all interceptors.
+     *
+     * @since 0.7.0
+     */
+    public static void releaseInterceptors() {
+        Interceptors.clear();
+    }
+
+    /**
+     * Registers the provided consumer as an observer of all events of the provided type. Observers
+     * see every triggered event exactly once, regardless of the number of its receivers, and they
+     * are called synchronously by the sending thread, so they should return quickly.
+     *
+     * <p> Observers are meant for integrations that forward events elsewhere (e.g. to web clients).
+     * They are not affected by {@link #releaseProtocols()} or {@link #reset()}, so they must be
+     * released via {@link #releaseObservers(String)} by whoever registered them.
+     *
+     * @since 0.7.0
+     */
+    public static <T> void observe(String identifier, Class<T> eventType, Consumer<? super T> observer) {
+        Objects.requireNonNull(identifier);
+        Objects.requireNonNull(eventType);
+        Objects.requireNonNull(observer);
+        EventObservers.register(identifier, eventType.getName(), observer);
+    }
+
+    /**
+     * Releases the event observers with the provided identifier.
+     *
+     * @see #observe
+     * @since 0.7.0
+     */
+    public static void releaseObservers(String identifier) {
+        EventObservers.release(identifier);
+    }
+
     /**
      * Begins declaration of a new protocol with the empty string as protocol identifier.
      * See {@link #protocol(String)} for details.
@@ -568,7 +703,7 @@ public final class Ports {
    * @since 0.7.0
    */
   public static ConditionOrAction<?> protocol(String protocolIdentifier) {
-        Protocol.areProtocolsActive = true;
+        Protocol.activate();
         DomainManager.invalidate();
         return new ConditionOrAction<>(new ProtocolParserState(protocolIdentifier));
     }
@@ -648,6 +783,78 @@ public final class Ports {
         DomainManager.release();
     }
 
+    /**
+     * Enables the recording of metrics. For each domain and message type, Ports records the number
+     * of dispatched messages and failures as well as histograms of the queue wait times and the handler
+     * service times. Additionally, the queue depths and thread pool sizes of the domains are exposed.
+     * All metrics are exposed as MXBeans under the JMX domain 'org.timux.ports' (see
+     * {@link DomainMetricsMXBean} and {@link MessageMetricsMXBean}).
+     *
+     * <p> The recording is lock-free and cheap enough to be left on in production.
+     *
+     * @see #disableMetrics
+     * @since 0.7.0
+     */
+    public static void enableMetrics() {
+        Metrics.isEnabled = true;
+    }
+
+    /**
+     * Disables the recording of metrics. Metrics that have already been recorded remain available.
+     *
+     * @see #enableMetrics
+     * @since 0.7.0
+     */
+    public static void disableMetrics() {
+        Metrics.isEnabled = false;
+    }
+
+    /**
+     * Registers a propagator for thread-bound context. Whenever a message is handled in another thread
+     * than the one it has been sent from, the context captured at sending time is restored around
+     * the handler invocation.
+     *
+     * @see #removeContextPropagator
+     * @since 0.7.0
+     */
+    public static void addContextPropagator(ContextPropagator<?> propagator) {
+        Objects.requireNonNull(propagator);
+        ContextPropagation.add(propagator);
+    }
+
+    /**
+     * Removes a propagator that has been registered via {@link #addContextPropagator}.
+     *
+     * @since 0.7.0
+     */
+    public static void removeContextPropagator(ContextPropagator<?> propagator) {
+        ContextPropagation.remove(propagator);
+    }
+
+    /**
+     * Starts recording the handling of messages as spans into the provided file, which is replaced if
+     * it exists. The file is written in the Trace Event Format, which can be viewed with chrome://tracing
+     * or Perfetto, for example. Each span covers the handling of a message by its receiver, including
+     * the time spent waiting for the receiver's lock, and refers to the span of the handler that sent
+     * the message (also across asynchronous domains), so the spans of a trace form a call tree.
+     *
+     * @see #disableSpanRecording
+     * @since 0.7.0
+     */
+    public static void enableSpanRecording(Path file) throws IOException {
+        SpanRecorder.enable(file);
+    }
+
+    /**
+     * Stops recording spans and closes the span file.
+     *
+     * @see #enableSpanRecording
+     * @since 0.7.0
+     */
+    public static void disableSpanRecording() {
+        SpanRecorder.disable();
+    }
+
     /**
      * Clears the caches of all ports.
      *
@@ -655,17 +862,103 @@ public final class Ports {
      */
     public static void clearCaches() {
         CacheManager.clear();
+        CacheSnapshots.clearLoadedEntries();
+    }
+
+    /**
+     * Sets the resolver that maps components to the keys of their {@link CacheScope}s. This is
+     * usually done by integration modules like ports-vaadinspring, so you don't have to call
+     * this method yourself in that case.
+     *
+     * @see Pure#cacheScope()
+     * @see #releaseCacheScope
+     * @since 0.7.0
+     */
+    public static void setCacheScopeResolver(CacheScopeResolver resolver) {
+        CacheManager.setCacheScopeResolver(resolver);
+    }
+
+    /**
+     * Drops all caches that belong to the scope with the provided key. Call this method when the
+     * respective scope (e.g. a session or UI) is destroyed.
+     *
+     * @see CacheScopeResolver
+     * @since 0.7.0
+     */
+    public static void releaseCacheScope(Object scopeKey) {
+        CacheManager.releaseScope(scopeKey);
+    }
+
+    /**
+     * Writes the caches of all {@link Pure} requests with {@link Pure#snapshot()} enabled to the
+     * provided file, replacing it if it exists.
+     *
+     * @return The number of cache entries written.
+     *
+     * @see #loadCacheSnapshot
+     * @see #enableCacheSnapshots
+     * @since 0.7.0
+     */
+    public static int saveCacheSnapshot(Path file) throws IOException {
+        return CacheSnapshots.save(file);
+    }
+
+    /**
+     * Loads the provided cache snapshot file. The entries are put into the caches of the existing
+     * request ports as well as into the caches of all request ports that are created afterwards.
+     * Entries whose request types cannot be found, are not snapshot-enabled anymore, or have
+     * changed their serialVersionUID, are skipped.
+     *
+     * <p> Call this method at startup before the application starts serving requests.
+     *
+     * @return The number of cache entries loaded.
+     *
+     * @see #saveCacheSnapshot
+     * @since 0.7.0
+     */
+    public static int loadCacheSnapshot(Path file) throws IOException {
+        return CacheSnapshots.load(file);
+    }
+
+    /**
+     * Loads the provided cache snapshot file, if it exists, and arranges for the snapshot to be
+     * saved on JVM shutdown. If the provided period is positive, the snapshot is additionally
+     * saved periodically by a background thread.
+     *
+     * @param period The period of the background saves, or null if only shutdown saves are desired.
+     *
+     * @see #disableCacheSnapshots
+     * @since 0.7.0
+     */
+    public static void enableCacheSnapshots(Path file, Duration period) {
+        CacheSnapshots.enable(file, period);
+    }
+
+    /**
+     * Stops both the periodic and the shutdown saves of cache snapshots.
+     *
+     * @see #enableCacheSnapshots
+     * @since 0.7.0
+     */
+    public static void disableCacheSnapshots() {
+        CacheSnapshots.disable();
     }
 
     /**
-     * Resets all internal state information, i.e. protocols and domains, and clears all caches.
+     * Resets all internal state information, i.e. protocols, interceptors, context propagators, and domains,
+     * and clears all caches.
+     * Event observers are retained, see {@link #observe}.
      *
      * @since 0.6.0
      */
     public static void reset() {
         releaseProtocols();
+        releaseInterceptors();
+        disableSpanRecording();
+        ContextPropagation.clear();
         releaseDomains();
         CacheManager.reset();
+        CacheSnapshots.reset();
         eventExceptionSender.disconnect();
         clearCustomData();
     }
@@ -17,11 +17,13 @@
 package org.timux.ports;
 
 import java.lang.reflect.Field;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
@@ -43,12 +45,8 @@ final class Protocol {
         }
     }
 
-    static class ConditionalActions {
-        final List<ConditionalActionsTriple> actions = new ArrayList<>();
-    }
-
     static class ResponseRegistry {
-        final Map<String, Function<?, ?>> responseData = new HashMap<>(4);
+        final Map<String, Function<?, ?>> responseData = new ConcurrentHashMap<>(4);
     }
 
     private static class ProtocolComponent {
@@ -56,29 +54,46 @@ final class Protocol {
         Request requestPort = null;
     }
 
-    // keys = message type names
-    private static final Map<String, ConditionalActions> conditionsOnSent = new ConcurrentHashMap<>();
-    private static final Map<String, ConditionalActions> conditionsOnReceived = new ConcurrentHashMap<>();
+    private static final ConditionalActionsTriple[] NO_CONDITIONS = new ConditionalActionsTriple[0];
+
+    /*
+     * Immutable indexes from message type names to conditions. The indexes are replaced as a whole
+     * whenever a condition is added or removed (under the monitor), so that the message dispatching
+     * can read them without any locking.
+     */
+    private static volatile Map<String, ConditionalActionsTriple[]> conditionsOnSent = Collections.emptyMap();
+    private static volatile Map<String, ConditionalActionsTriple[]> conditionsOnReceived = Collections.emptyMap();
 
     private static final ConcurrentWeakHashMap<Object, ResponseRegistry> responseRegistries = new ConcurrentWeakHashMap<>();
 
-    private static final ConcurrentWeakHashMap<Object, Void> componentRegistry = new ConcurrentWeakHashMap<>();
+    /* The registered components by the signatures of their IN ports, so that a 'with' action only
+     * needs to visit the components that can actually receive its message. Guarded by monitor. */
+    private static final Map<String, Map<Object, Boolean>> componentRegistry = new HashMap<>();
 
     private static final AtomicInteger nextProtocolId = new AtomicInteger();
 
     private static final Object monitor = new Object();
 
-    static boolean areProtocolsActive = false;
+    static volatile boolean areProtocolsActive = false;
 
     private Protocol() {
         //
     }
 
+    /*
+     * Under the monitor, so that a concurrent release of the last protocol cannot deactivate a new one.
+     */
+    static void activate() {
+        synchronized (monitor) {
+            areProtocolsActive = true;
+        }
+    }
+
     synchronized static void clear() {
         synchronized (monitor) {
             areProtocolsActive = false;
-            conditionsOnSent.clear();
-            conditionsOnReceived.clear();
+            conditionsOnSent = Collections.emptyMap();
+            conditionsOnReceived = Collections.emptyMap();
             responseRegistries.clear();
             componentRegistry.clear();
         }
@@ -86,56 +101,100 @@ final class Protocol {
         DomainManager.invalidate();
     }
 
-    private static void removeActions(Map<String, ConditionalActions> m, String protocolIdentifier) {
-        for (Iterator<ConditionalActions> i = m.values().iterator(); i.hasNext(); ) {
-            ConditionalActions actions = i.next();
+    private static Map<String, ConditionalActionsTriple[]> withCondition(
+            Map<String, ConditionalActionsTriple[]> index, String messageType, ConditionalActionsTriple condition)
+    {
+        ConditionalActionsTriple[] conditions = index.getOrDefault(messageType, NO_CONDITIONS);
+        ConditionalActionsTriple[] newConditions = Arrays.copyOf(conditions, conditions.length + 1);
+        newConditions[conditions.length] = condition;
 
-            for (Iterator<ConditionalActionsTriple> it = actions.actions.iterator(); it.hasNext(); ) {
-                ConditionalActionsTriple triple = it.next();
+        Map<String, ConditionalActionsTriple[]> newIndex = new HashMap<>(index);
+        newIndex.put(messageType, newConditions);
 
-                if (triple.protocolIdentifier.equals(protocolIdentifier)) {
-                    it.remove();
-                }
-            }
+        return Collections.unmodifiableMap(newIndex);
+    }
 
-            if (actions.actions.isEmpty()) {
-                i.remove();
+    private static Map<String, ConditionalActionsTriple[]> withoutProtocol(
+            Map<String, ConditionalActionsTriple[]> index, String protocolIdentifier)
+    {
+        Map<String, ConditionalActionsTriple[]> newIndex = new HashMap<>(index.size() * 2);
+
+        index.forEach((messageType, conditions) -> {
+            ConditionalActionsTriple[] newConditions = Arrays.stream(conditions)
+                    .filter(condition -> !condition.protocolIdentifier.equals(protocolIdentifier))
+                    .toArray(ConditionalActionsTriple[]::new);
+
+            if (newConditions.length > 0) {
+                newIndex.put(messageType, newConditions);
             }
-        }
+        });
+
+        return Collections.unmodifiableMap(newIndex);
     }
 
     synchronized static void release(String protocolIdentifier) {
         synchronized (monitor) {
-            removeActions(conditionsOnSent, protocolIdentifier);
-            removeActions(conditionsOnReceived, protocolIdentifier);
+            conditionsOnSent = withoutProtocol(conditionsOnSent, protocolIdentifier);
+            conditionsOnReceived = withoutProtocol(conditionsOnReceived, protocolIdentifier);
+
+            if (conditionsOnSent.isEmpty() && conditionsOnReceived.isEmpty()) {
+                areProtocolsActive = false;
+                responseRegistries.clear();
+            }
         }
 
         DomainManager.invalidate();
     }
 
     static void registerComponent(Object component) {
+        Set<String> inPortSignatures = ComponentMetadata.of(component).getInPortSignatures();
+
+        if (inPortSignatures.isEmpty()) {
+            return;
+        }
+
         synchronized (monitor) {
-            componentRegistry.put(component, null);
+            for (String signature : inPortSignatures) {
+                componentRegistry.computeIfAbsent(signature, k -> new WeakHashMap<>()).put(component, Boolean.TRUE);
+            }
         }
     }
 
     static void unregisterComponent(Object component) {
+        Set<String> inPortSignatures = ComponentMetadata.of(component).getInPortSignatures();
+
+        if (inPortSignatures.isEmpty()) {
+            return;
+        }
+
         synchronized (monitor) {
-            componentRegistry.remove(component);
+            for (String signature : inPortSignatures) {
+                Map<Object, Boolean> components = componentRegistry.get(signature);
+
+                if (components != null) {
+                    components.remove(component);
+
+                    if (components.isEmpty()) {
+                        componentRegistry.remove(signature);
+                    }
+                }
+            }
         }
     }
 
     static <T> void registerConditionOnSent(Predicate<T> predicate, ProtocolParserState state) {
         synchronized (monitor) {
-            state.registerConditionMessageType(conditionsOnSent);
-            state.registerCondition(predicate);
+            conditionsOnSent = withCondition(
+                    conditionsOnSent, state.currentConditionMessageType, state.registerCondition(predicate));
+            areProtocolsActive = true;
         }
     }
 
     static <T> void registerConditionOnReceived(Predicate<T> predicate, ProtocolParserState state) {
         synchronized (monitor) {
-            state.registerConditionMessageType(conditionsOnReceived);
-            state.registerCondition(predicate);
+            conditionsOnReceived = withCondition(
+                    conditionsOnReceived, state.currentConditionMessageType, state.registerCondition(predicate));
+            areProtocolsActive = true;
         }
     }
 
@@ -143,10 +202,8 @@ final class Protocol {
         final String conditionMessageType = state.currentConditionMessageType;
 
         state.registerAction((x, owner) -> {
-            synchronized (monitor) {
-                ResponseRegistry registry = responseRegistries.computeIfAbsent(owner, k -> new ResponseRegistry());
-                registry.responseData.put(conditionMessageType, response);
-            }
+            ResponseRegistry registry = responseRegistries.computeIfAbsent(owner, k -> new ResponseRegistry());
+            registry.responseData.put(conditionMessageType, response);
         });
     }
 
@@ -244,7 +301,13 @@ final class Protocol {
         outPortField.setAccessible(true);
 
         synchronized (monitor) {
-            for (Object component : componentRegistry) {
+            Map<Object, Boolean> components = componentRegistry.get(portSignature);
+
+            if (components == null) {
+                return action;
+            }
+
+            for (Object component : components.keySet()) {
                 try {
                     Ports.connectSinglePort(outPortField, portSignature, protocolComponent, component, PortsOptions.FORCE_CONNECT_ALL);
                 } catch (IllegalAccessException e) {
@@ -257,30 +320,24 @@ final class Protocol {
     }
 
     static Function<?, ?> getResponseProviderIfAvailable(String messageType, Object owner) {
-        synchronized (monitor) {
-            ResponseRegistry registry = responseRegistries.computeIfAbsent(owner, k -> new ResponseRegistry());
-            return registry.responseData.remove(messageType);
-        }
+        ResponseRegistry registry = responseRegistries.get(owner);
+        return registry != null ? registry.responseData.remove(messageType) : null;
     }
 
     static void onDataSent(String messageType, Object owner, Object data) {
-        synchronized (monitor) {
-            onDataEvent(conditionsOnSent, messageType, owner, data);
-        }
+        onDataEvent(conditionsOnSent, messageType, owner, data);
     }
 
     static <O> void onDataReceived(String messageType, Object owner, O data) {
-        synchronized (monitor) {
-            onDataEvent(conditionsOnReceived, messageType, owner, data);
-        }
+        onDataEvent(conditionsOnReceived, messageType, owner, data);
     }
 
     private static void onDataEvent(
-            Map<String, ConditionalActions> conditionalActionsMap, String messageType, Object owner, Object data)
+            Map<String, ConditionalActionsTriple[]> index, String messageType, Object owner, Object data)
     {
-        ConditionalActions conditionalActions = conditionalActionsMap.get(messageType);
+        ConditionalActionsTriple[] conditions = index.get(messageType);
 
-        if (conditionalActions == null || conditionalActions.actions.isEmpty()) {
+        if (conditions == null) {
             if (data instanceof PortsEventException) {
                 printEventExceptionWarning((PortsEventException) data);
             }
@@ -290,7 +347,7 @@ final class Protocol {
 
         boolean actionWasExecuted = false;
 
-        for (ConditionalActionsTriple triple : conditionalActions.actions) {
+        for (ConditionalActionsTriple triple : conditions) {
             if (triple.predicate.test(data)) {
                 for (Action action : triple.actions) {
                     action.execute(data, owner);
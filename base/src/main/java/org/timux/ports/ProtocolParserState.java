@@ -20,9 +20,8 @@ import org.timux.ports.types.Either;
 import org.timux.ports.types.Either3;
 
 import java.lang.reflect.Field;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Predicate;
 
 class ProtocolParserState {
@@ -33,7 +32,6 @@ class ProtocolParserState {
     String currentWithResponseType = null;
     Object currentWithOwner = null;
 
-    private Protocol.ConditionalActions currentConditionalActions = null;
     private List<Action> currentActions = null;
 
     ProtocolParserState(String protocolIdentifier) {
@@ -69,18 +67,13 @@ class ProtocolParserState {
         currentWithOwner = owner;
     }
 
-    synchronized void registerConditionMessageType(Map<String, Protocol.ConditionalActions> conditions) {
-        currentConditionalActions = conditions.get(currentConditionMessageType);
-
-        if (currentConditionalActions == null) {
-            currentConditionalActions = new Protocol.ConditionalActions();
-            conditions.put(currentConditionMessageType, currentConditionalActions);
-        }
-    }
-
-    <T> void registerCondition(Predicate<T> predicate) {
-        currentActions = new ArrayList<>();
-        currentConditionalActions.actions.add(new Protocol.ConditionalActionsTriple(protocolIdentifier, predicate, currentActions));
+    /**
+     * Starts a new condition and returns it. Subsequently registered actions are added to it.
+     */
+    <T> Protocol.ConditionalActionsTriple registerCondition(Predicate<T> predicate) {
+        // The actions may be appended while the condition is already being evaluated by other threads.
+        currentActions = new CopyOnWriteArrayList<>();
+        return new Protocol.ConditionalActionsTriple(protocolIdentifier, predicate, currentActions);
     }
 
     void registerAction(Action action) {
@@ -31,7 +31,10 @@ import java.lang.annotation.Target;
  * setting this annotation's {@link #cache()} property to false.
  *
  * <p> Use the {@link #clearCacheOn()} property to specify event types that when triggered
- * cause the cache to be cleared.
+ * cause the cache to be cleared. If both the request type and the event type declare a
+ * {@link CacheKey}, only the matching cache entries are evicted instead.
+ *
+ * <p> Use the {@link #snapshot()} property to make the cache survive restarts of the application.
  *
  * <p> Be aware that you must not use this annotation on request types whose handlers
  * perform output or transform the system state in another significant way.
@@ -56,6 +59,28 @@ public @interface Pure {
     /**
      * Use this property to specify a set of event types that when triggered
      * cause the request cache to be cleared.
+     *
+     * @see CacheKey
      */
     Class<?>[] clearCacheOn() default {};
+
+    /**
+     * Set this property to true in order to include the request cache in cache snapshots.
+     * Both the request type and its response type(s) must be {@link java.io.Serializable}.
+     * By default, caches are not included.
+     *
+     * @see Ports#saveCacheSnapshot
+     * @see Ports#loadCacheSnapshot
+     * @since 0.7.0
+     */
+    boolean snapshot() default false;
+
+    /**
+     * Use this property to share the request cache among the components of a session or UI.
+     * Scoped caches are not included in cache snapshots. By default, each OUT port has its own cache.
+     *
+     * @see CacheScope
+     * @since 0.7.0
+     */
+    CacheScope cacheScope() default CacheScope.PORT;
 }
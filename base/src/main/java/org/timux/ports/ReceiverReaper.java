@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.timux.ports;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * Prunes the connections of garbage-collected receivers in the background. The connections
+ * reference their receivers weakly via references that are registered with this class's
+ * queue; a daemon thread removes each connection from its OUT port as soon as the garbage
+ * collector has cleared the reference. This way, dead receivers do not accumulate in ports
+ * that are never checked for connectivity.
+ */
+final class ReceiverReaper {
+
+    /**
+     * A weak reference to a receiver that knows how to remove itself from its OUT port.
+     */
+    abstract static class ReceiverRef extends WeakReference<Object> {
+
+        ReceiverRef(Object receiver) {
+            super(receiver, queue);
+            ensureStarted();
+        }
+
+        abstract void reap();
+    }
+
+    private static final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+    private static volatile boolean isStarted = false;
+
+    private ReceiverReaper() {
+        //
+    }
+
+    private static void ensureStarted() {
+        if (isStarted) {
+            return;
+        }
+
+        synchronized (ReceiverReaper.class) {
+            if (isStarted) {
+                return;
+            }
+
+            Thread thread = new Thread(ReceiverReaper::run, "ports-receiver-reaper");
+            thread.setDaemon(true);
+            thread.start();
+
+            isStarted = true;
+        }
+    }
+
+    private static void run() {
+        for (;;) {
+            try {
+                Reference<?> reference = queue.remove();
+
+                if (reference instanceof ReceiverRef) {
+                    ((ReceiverRef) reference).reap();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                Ports.printWarning(String.format("cannot prune a dead receiver (%s)", e));
+            }
+        }
+    }
+}
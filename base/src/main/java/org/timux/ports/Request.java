@@ -20,11 +20,11 @@ import org.timux.ports.types.Either;
 import org.timux.ports.types.Either3;
 import org.timux.ports.types.Failure;
 
-import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.IntFunction;
 import java.util.stream.Collectors;
@@ -57,46 +57,62 @@ public class Request<I, O> {
     private Function<I, O> wrappedFunction;
     private int domainVersion = -1;
 
-    private final RequestCache<I, PortsFuture<O>> cache;
+    private final RequestCache<I, PortsFuture<O>> portCache;
+    private CacheScope cacheScope = CacheScope.PORT;
+    private Class<?> requestType;
+    private volatile CacheManager.ScopedCache<I, PortsFuture<O>> scopedCache;
+
+    /* Set while the receiver of this port is to be resolved lazily, see Ports.connectLazily. */
+    volatile LazyResolution lazyResolution = null;
 
     public Request() {
-        cache = null;
+        portCache = null;
     }
 
     Request(String requestTypeName, String responseTypeName, String memberName, Object owner) {
+        this(requestTypeName, responseTypeName, loadRequestType(requestTypeName), memberName, owner);
+    }
+
+    private Request(String requestTypeName, String responseTypeName, Class<?> requestType, String memberName, Object owner) {
+        this(requestTypeName, responseTypeName, requestType, requestType.getDeclaredAnnotation(Pure.class), memberName, owner);
+    }
+
+    /**
+     * Creates a request port from precomputed type information, see {@link ComponentMetadata}.
+     */
+    Request(String requestTypeName, String responseTypeName, Class<?> requestType, Pure pureAnno, String memberName, Object owner) {
         this.requestTypeName = requestTypeName;
         this.memberName = memberName;
         this.owner = owner;
         this.responseTypeInfo = getResponseTypeInfo(responseTypeName);
 
-        try {
-            Class<?> requestType = getClass().getClassLoader().loadClass(requestTypeName);
-            Pure pureAnno = requestType.getDeclaredAnnotation(Pure.class);
-            boolean isCacheEnabled = pureAnno != null && pureAnno.cache();
-            this.cache = isCacheEnabled ? new RequestCache<>(4, requestType) : null;
+        boolean isCacheEnabled = pureAnno != null && pureAnno.cache();
+        this.portCache = isCacheEnabled ? new RequestCache<>(4, requestType) : null;
+
+        if (isCacheEnabled) {
+            this.cacheScope = pureAnno.cacheScope();
+            this.requestType = requestType;
+
+            CacheManager.registerRequestPort(this, requestType, pureAnno);
 
-            if (isCacheEnabled) {
-                CacheManager.registerRequestPort(this, pureAnno);
+            if (pureAnno.snapshot()) {
+                CacheSnapshots.registerRequestPort(this);
             }
-        } catch (ClassNotFoundException e) {
-            throw new RuntimeException(e);
         }
     }
 
-    Request(String requestTypeName, Field outPortField, String memberName, Object owner) {
-        this(requestTypeName, getResponseTypeName(outPortField), memberName, owner);
+    private static Class<?> loadRequestType(String requestTypeName) {
+        try {
+            return Request.class.getClassLoader().loadClass(requestTypeName);
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     public String getRequestTypeName() {
         return requestTypeName;
     }
 
-    private static String getResponseTypeName(Field outPortField) {
-        String t = TypeUtils.extractTypeParameter(outPortField.getGenericType().getTypeName(), null);
-        int firstSpacePos = t.indexOf(' ');
-        return t.substring(firstSpacePos + 1);
-    }
-
     /**
      * Connects this OUT port to the given IN port.
      *
@@ -135,6 +151,13 @@ public class Request<I, O> {
         connect(portFunction, methodOwner);
     }
 
+    /*
+     * Like isConnected, but without resolving a pending lazy resolution. Must be called while holding this.
+     */
+    boolean hasReceiver() {
+        return port != null;
+    }
+
     private PortsFutureResponseTypeInfo getResponseTypeInfo(String responseTypeName) {
         if (responseTypeName.startsWith(Either.class.getName() + "<")) {
             if (responseTypeName.endsWith(" " + Failure.class.getName() + ">")) {
@@ -179,8 +202,11 @@ public class Request<I, O> {
      */
     @SuppressWarnings("unchecked")
     public O call(I payload) {
-        CacheManager.onMessageSent(payload.getClass());
+        resolveLazily();
+
+        CacheManager.onMessageSent(payload);
 
+        RequestCache<I, PortsFuture<O>> cache = getCache();
         PortsFuture<O> cachedFuture = cache != null ? cache.get(payload) : null;
 
         if (cachedFuture != null) {
@@ -261,8 +287,11 @@ public class Request<I, O> {
      * @see Domain
      */
     public Either<O, Failure> callE(I payload) {
-        CacheManager.onMessageSent(payload.getClass());
+        resolveLazily();
 
+        CacheManager.onMessageSent(payload);
+
+        RequestCache<I, PortsFuture<O>> cache = getCache();
         PortsFuture<O> cachedFuture = cache != null ? cache.get(payload) : null;
 
         if (cachedFuture != null) {
@@ -325,8 +354,11 @@ public class Request<I, O> {
      */
     @SuppressWarnings("unchecked")
     public PortsFuture<O> callF(I payload) {
-        CacheManager.onMessageSent(payload.getClass());
+        resolveLazily();
+
+        CacheManager.onMessageSent(payload);
 
+        RequestCache<I, PortsFuture<O>> cache = getCache();
         PortsFuture<O> cachedFuture = cache != null ? cache.get(payload) : null;
 
         if (cachedFuture != null) {
@@ -417,7 +449,7 @@ public class Request<I, O> {
             if (domainVersion != DomainManager.getCurrentVersion()) {
                 domainVersion = DomainManager.getCurrentVersion();
                 receiverDomain = DomainManager.getDomain(receiver);
-                wrappedFunction = getWrappedFunctionForProtocols();
+                wrappedFunction = Interceptors.wrapRequest(requestTypeName, receiverDomain, getWrappedFunctionForProtocols());
             }
         }
 
@@ -493,10 +525,64 @@ public class Request<I, O> {
      * Returns true if this OUT port is connected to an IN port, false otherwise.
      */
     public boolean isConnected() {
+        resolveLazily();
         return port != null;
     }
 
+    private void resolveLazily() {
+        LazyResolution resolution = lazyResolution;
+
+        if (resolution != null) {
+            resolution.resolve();
+        }
+    }
+
+    /**
+     * Returns the cache that is currently responsible for this port, or null if caching is disabled.
+     */
+    private RequestCache<I, PortsFuture<O>> getCache() {
+        if (cacheScope == CacheScope.PORT) {
+            return portCache;
+        }
+
+        CacheManager.ScopedCache<I, PortsFuture<O>> cache = scopedCache;
+
+        if (cache == null || !cache.isValid()) {
+            cache = CacheManager.getScopedCache(requestType, cacheScope, owner);
+            scopedCache = cache;
+        }
+
+        // If the scope cannot be resolved, we stick to the port cache.
+        return cache.getCache() != null ? cache.getCache() : portCache;
+    }
+
     void clearCache() {
-        cache.clear();
+        portCache.clear();
+    }
+
+    /**
+     * Evicts all cache entries whose {@link CacheKey} equals the provided key. If the
+     * request type doesn't declare a cache key, the whole cache is cleared.
+     */
+    void evictFromCache(Object key) {
+        CacheManager.evict(portCache, key);
+    }
+
+    /**
+     * Applies the provided consumer to all cached request/response pairs whose response is available.
+     */
+    void forEachCacheEntry(BiConsumer<Object, Object> consumer) {
+        portCache.forEach((payload, future) -> {
+            Object response = future.getNow(null);
+
+            if (response != null) {
+                consumer.accept(payload, response);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    void putIntoCache(Object payload, Object response) {
+        portCache.put((I) payload, new PortsFuture<>((O) response));
     }
-}
\ No newline at end of file
+}
@@ -20,6 +20,8 @@ import org.timux.ports.types.Pair;
 import org.timux.ports.types.Tuple;
 
 import java.lang.ref.SoftReference;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
 
 class RequestCache<I, O> {
 
@@ -29,6 +31,7 @@ class RequestCache<I, O> {
     private int size = 0;
 
     private final boolean isStateless;
+    private final String requestTypeName;
 
     /**
      * @param capacity Must be a power of two.
@@ -36,9 +39,16 @@ class RequestCache<I, O> {
     public RequestCache(int capacity, Class<?> requestType) {
         this.data = new Pair[capacity];
         this.isStateless = requestType.getDeclaredFields().length == 0;
+        this.requestTypeName = requestType.getName();
     }
 
-    public synchronized O get(I payload) {
+    public O get(I payload) {
+        O output = getInternal(payload);
+        JfrSupport.cacheAccessed(requestTypeName, output != null);
+        return output;
+    }
+
+    private synchronized O getInternal(I payload) {
         for (int k = 0; k < size; k++) {
             int i = (startIdx + k) & (data.length - 1);
 
@@ -92,6 +102,47 @@ class RequestCache<I, O> {
         data[startIdx] = Tuple.of(new SoftReference<>(input), new SoftReference<>(output));
     }
 
+    /**
+     * Removes all entries whose input matches the provided predicate. Entries whose
+     * input or output has already been garbage-collected are removed as well.
+     */
+    public synchronized void evict(Predicate<I> predicate) {
+        for (int i = 0; i < data.length; i++) {
+            Pair<SoftReference<I>, SoftReference<O>> p = data[i];
+
+            if (p == null) {
+                continue;
+            }
+
+            I input = p.getA().get();
+
+            if (input == null || p.getB().get() == null || predicate.test(input)) {
+                data[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Applies the provided consumer to all entries whose input and output are still available,
+     * from the least recently to the most recently added one.
+     */
+    public synchronized void forEach(BiConsumer<I, O> consumer) {
+        for (int k = size - 1; k >= 0; k--) {
+            Pair<SoftReference<I>, SoftReference<O>> p = data[(startIdx + k) & (data.length - 1)];
+
+            if (p == null) {
+                continue;
+            }
+
+            I input = p.getA().get();
+            O output = p.getB().get();
+
+            if (input != null && output != null) {
+                consumer.accept(input, output);
+            }
+        }
+    }
+
     public synchronized void clear() {
         for (int i = 0; i < data.length; i++) {
             data[i] = null;
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2018-2022 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the handling of messages as spans and writes them to a file in the Trace Event Format
+ * (JSON array format), which can be viewed with chrome://tracing, Perfetto, or Speedscope, for example.
+ * Each span refers to its trace and its parent span, i.e. the span during which the message has
+ * been sent, also across asynchronous domains.
+ */
+final class SpanRecorder implements ContextPropagator<SpanRecorder.Span> {
+
+    static final class Span {
+
+        final Span parent;
+        final long traceId;
+        final long spanId;
+        final long startNanos;
+
+        Span(Span parent, long traceId, long spanId, long startNanos) {
+            this.parent = parent;
+            this.traceId = traceId;
+            this.spanId = spanId;
+            this.startNanos = startNanos;
+        }
+    }
+
+    private static volatile SpanRecorder instance = null;
+
+    private static final ThreadLocal<Span> currentSpan = new ThreadLocal<>();
+
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final long originNanos = System.nanoTime();
+    private final Writer writer;
+    private boolean isFirstEvent = true;
+    private boolean isClosed = false;
+
+    private SpanRecorder(Path file) throws IOException {
+        writer = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), 1 << 16);
+        writer.write("[\n");
+    }
+
+    static synchronized void enable(Path file) throws IOException {
+        disable();
+        instance = new SpanRecorder(file);
+        ContextPropagation.add(instance);
+    }
+
+    static synchronized void disable() {
+        SpanRecorder recorder = instance;
+
+        if (recorder == null) {
+            return;
+        }
+
+        instance = null;
+        ContextPropagation.remove(recorder);
+        recorder.close();
+    }
+
+    static SpanRecorder getInstance() {
+        return instance;
+    }
+
+    @Override
+    public Span capture() {
+        return currentSpan.get();
+    }
+
+    @Override
+    public Span restore(Span span) {
+        Span previousSpan = currentSpan.get();
+        currentSpan.set(span);
+        return previousSpan;
+    }
+
+    /**
+     * Starts a new span as a child of the current span of the current thread and makes it the
+     * current span.
+     */
+    Span begin() {
+        Span parent = currentSpan.get();
+        long spanId = nextId.getAndIncrement();
+
+        Span span = new Span(parent, parent != null ? parent.traceId : spanId, spanId, System.nanoTime());
+
+        currentSpan.set(span);
+
+        return span;
+    }
+
+    /**
+     * Ends the provided span, makes its parent the current span again, and writes the span.
+     */
+    void end(Span span, Object payload, Object sender, Object receiver, boolean hasFailed) {
+        long endNanos = System.nanoTime();
+
+        currentSpan.set(span.parent);
+
+        StringBuilder sb = new StringBuilder(256);
+
+        sb.append("{\"name\":\"").append(escape(payload != null ? payload.getClass().getName() : "null"))
+                .append("\",\"cat\":\"ports\",\"ph\":\"X\",\"ts\":").append((span.startNanos - originNanos) / 1000.0)
+                .append(",\"dur\":").append((endNanos - span.startNanos) / 1000.0)
+                .append(",\"pid\":1,\"tid\":").append(Thread.currentThread().getId())
+                .append(",\"args\":{\"trace\":").append(span.traceId)
+                .append(",\"span\":").append(span.spanId)
+                .append(",\"parent\":").append(span.parent != null ? span.parent.spanId : 0)
+                .append(",\"sender\":\"").append(escape(sender != null ? sender.getClass().getName() : "null"))
+                .append("\",\"receiver\":\"").append(escape(receiver != null ? receiver.getClass().getName() : "null"))
+                .append("\",\"failed\":").append(hasFailed)
+                .append("}}");
+
+        write(sb);
+    }
+
+    private synchronized void write(CharSequence event) {
+        if (isClosed) {
+            return;
+        }
+
+        try {
+            if (!isFirstEvent) {
+                writer.write(",\n");
+            }
+
+            writer.append(event);
+            isFirstEvent = false;
+        } catch (IOException e) {
+            Ports.printWarning("cannot write span: " + e);
+        }
+    }
+
+    private synchronized void close() {
+        if (isClosed) {
+            return;
+        }
+
+        isClosed = true;
+
+        try {
+            writer.write("\n]\n");
+            writer.close();
+        } catch (IOException e) {
+            Ports.printWarning("cannot close span file: " + e);
+        }
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
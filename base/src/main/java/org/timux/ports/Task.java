@@ -49,6 +49,12 @@ class Task implements Runnable {
 
     private Thread processedByThread;
 
+    private final ContextPropagation.Captured contexts;
+
+    private DomainMetrics metrics;
+    private long dispatchedAtNanos;
+    private long startedAtNanos;
+
     Task(Consumer eventPort, Object payload, Object mutexSubject, Object sender, Object receiver) {
         this.eventPort = eventPort;
         this.requestPort = null;
@@ -58,6 +64,7 @@ class Task implements Runnable {
         this.receiver = receiver;
 
         createdByThread = Thread.currentThread();
+        contexts = ContextPropagation.capture();
 
         lock = mutexSubject != null
                 ? LockManager.getLock(mutexSubject)
@@ -73,6 +80,7 @@ class Task implements Runnable {
         this.receiver = receiver;
 
         createdByThread = Thread.currentThread();
+        contexts = ContextPropagation.capture();
 
         lock = mutexSubject != null
                 ? LockManager.getLock(mutexSubject)
@@ -91,6 +99,7 @@ class Task implements Runnable {
         receiver = null;
 
         createdByThread = Thread.currentThread();
+        contexts = null;
 
         lock = null;
     }
@@ -107,6 +116,33 @@ class Task implements Runnable {
         return lock;
     }
 
+    Object getPayload() {
+        return payload;
+    }
+
+    void enableMetrics(DomainMetrics metrics) {
+        this.metrics = metrics;
+        this.dispatchedAtNanos = System.nanoTime();
+    }
+
+    private void invokePort() {
+        if (metrics != null) {
+            startedAtNanos = System.nanoTime();
+        }
+
+        Object jfrEvent = JfrSupport.beginTaskRun();
+
+        try {
+            if (eventPort != null) {
+                eventPort.accept(payload);
+            } else {
+                response = requestPort.apply(payload);
+            }
+        } finally {
+            JfrSupport.endTaskRun(jfrEvent, payload, receiver);
+        }
+    }
+
     @Override
     public void run() {
         /*
@@ -115,161 +151,179 @@ class Task implements Runnable {
          * of whether the task handles a request or an event.
          */
 
-        if (!hasReturned) {
-            Executor.WorkerThread processedByWorkerThread = (processedByThread instanceof Executor.WorkerThread)
-                    ? (Executor.WorkerThread) processedByThread
-                    : null;
+        ContextPropagation.Captured previousContexts = null;
+        SpanRecorder spanRecorder = null;
+        SpanRecorder.Span span = null;
 
-            if (lock == null) {
-                try {
-                    if (eventPort != null) {
-                        eventPort.accept(payload);
-                    } else {
-                        response = requestPort.apply(payload);
-                    }
-                } catch (Exception e) {
-                    throwable = e;
+        boolean hasCompletedNormally = false;
+
+        try {
+            if (!hasReturned) {
+                if (contexts != null && Thread.currentThread() != createdByThread) {
+                    previousContexts = contexts.restore();
                 }
-            } else {
-                if (lock.tryLock()) {
-                    if (processedByWorkerThread != null) {
-                        processedByWorkerThread.addCurrentLock(lock);
-                    } else {
-                        LockManager.addLockForPlainThread(processedByThread, lock);
-                    }
 
+                spanRecorder = SpanRecorder.getInstance();
+                span = spanRecorder != null ? spanRecorder.begin() : null;
+
+                Executor.WorkerThread processedByWorkerThread = (processedByThread instanceof Executor.WorkerThread)
+                        ? (Executor.WorkerThread) processedByThread
+                        : null;
+
+                if (lock == null) {
                     try {
-                        if (eventPort != null) {
-                            eventPort.accept(payload);
-                        } else {
-                            response = requestPort.apply(payload);
-                        }
+                        invokePort();
                     } catch (Exception e) {
                         throwable = e;
-                    } finally {
+                    }
+                } else {
+                    if (lock.tryLock()) {
                         if (processedByWorkerThread != null) {
-                            processedByWorkerThread.removeCurrentLock(lock);
+                            processedByWorkerThread.addCurrentLock(lock);
                         } else {
-                            LockManager.removeLockForPlainThread(processedByThread, lock);
+                            LockManager.addLockForPlainThread(processedByThread, lock);
                         }
 
-                        lock.unlock();
-                    }
-                } else {
-                    Task deadlockStart = LockManager.isDeadlocked(this, null, lock);
-
-                    if (deadlockStart != null) {
-                        printDeadlockWarning(deadlockStart);
-
                         try {
-                            if (eventPort != null) {
-                                eventPort.accept(payload);
-                            } else {
-                                response = requestPort.apply(payload);
-                            }
+                            invokePort();
                         } catch (Exception e) {
                             throwable = e;
+                        } finally {
+                            if (processedByWorkerThread != null) {
+                                processedByWorkerThread.removeCurrentLock(lock);
+                            } else {
+                                LockManager.removeLockForPlainThread(processedByThread, lock);
+                            }
+
+                            lock.unlock();
                         }
                     } else {
-                        int timeoutIdx = 0;
+                        Object lockWaitEvent = JfrSupport.beginLockWait();
+                        Task deadlockStart = LockManager.isDeadlocked(this, null, lock);
 
-                        for (; ; ) {
-                            boolean isAcquired = false;
+                        if (deadlockStart != null) {
+                            JfrSupport.endLockWait(lockWaitEvent, payload, receiver, true);
+                            printDeadlockWarning(deadlockStart);
 
                             try {
-                                isAcquired = lock.tryLock(TIMEOUTS_MS[timeoutIdx], TimeUnit.MILLISECONDS);
-                            } catch (InterruptedException e) {
-                                //
+                                invokePort();
+                            } catch (Exception e) {
+                                throwable = e;
                             }
+                        } else {
+                            int timeoutIdx = 0;
 
-                            timeoutIdx++;
+                            for (; ; ) {
+                                boolean isAcquired = false;
 
-                            if (!isAcquired) {
-                                deadlockStart = LockManager.isDeadlocked(this, null, lock);
+                                try {
+                                    isAcquired = lock.tryLock(TIMEOUTS_MS[timeoutIdx], TimeUnit.MILLISECONDS);
+                                } catch (InterruptedException e) {
+                                    //
+                                }
 
-                                if (deadlockStart != null) {
-                                    printDeadlockWarning(deadlockStart);
+                                timeoutIdx++;
 
-                                    try {
-                                        if (eventPort != null) {
-                                            eventPort.accept(payload);
-                                        } else {
-                                            response = requestPort.apply(payload);
+                                if (!isAcquired) {
+                                    deadlockStart = LockManager.isDeadlocked(this, null, lock);
+
+                                    if (deadlockStart != null) {
+                                        JfrSupport.endLockWait(lockWaitEvent, payload, receiver, true);
+                                        printDeadlockWarning(deadlockStart);
+
+                                        try {
+                                            invokePort();
+                                        } catch (Exception e) {
+                                            throwable = e;
                                         }
-                                    } catch (Exception e) {
-                                        throwable = e;
-                                    }
 
-                                    break;
-                                }
-                            } else {
-                                if (processedByWorkerThread != null) {
-                                    processedByWorkerThread.addCurrentLock(lock);
+                                        break;
+                                    }
                                 } else {
-                                    LockManager.addLockForPlainThread(processedByThread, lock);
-                                }
+                                    JfrSupport.endLockWait(lockWaitEvent, payload, receiver, false);
 
-                                try {
-                                    if (eventPort != null) {
-                                        eventPort.accept(payload);
-                                    } else {
-                                        response = requestPort.apply(payload);
-                                    }
-                                } catch (Exception e) {
-                                    throwable = e;
-                                } finally {
                                     if (processedByWorkerThread != null) {
-                                        processedByWorkerThread.removeCurrentLock(lock);
+                                        processedByWorkerThread.addCurrentLock(lock);
                                     } else {
-                                        LockManager.removeLockForPlainThread(processedByThread, lock);
+                                        LockManager.addLockForPlainThread(processedByThread, lock);
                                     }
 
-                                    lock.unlock();
-                                }
-
-                                break;
-                            }
+                                    try {
+                                        invokePort();
+                                    } catch (Exception e) {
+                                        throwable = e;
+                                    } finally {
+                                        if (processedByWorkerThread != null) {
+                                            processedByWorkerThread.removeCurrentLock(lock);
+                                        } else {
+                                            LockManager.removeLockForPlainThread(processedByThread, lock);
+                                        }
 
-                            if (timeoutIdx >= TIMEOUTS_MS.length) {
-                                lock.lock();
+                                        lock.unlock();
+                                    }
 
-                                if (processedByWorkerThread != null) {
-                                    processedByWorkerThread.addCurrentLock(lock);
-                                } else {
-                                    LockManager.addLockForPlainThread(processedByThread, lock);
+                                    break;
                                 }
 
-                                try {
-                                    if (eventPort != null) {
-                                        eventPort.accept(payload);
-                                    } else {
-                                        response = requestPort.apply(payload);
-                                    }
-                                } catch (Exception e) {
-                                    throwable = e;
-                                } finally {
+                                if (timeoutIdx >= TIMEOUTS_MS.length) {
+                                    lock.lock();
+                                    JfrSupport.endLockWait(lockWaitEvent, payload, receiver, false);
+
                                     if (processedByWorkerThread != null) {
-                                        processedByWorkerThread.removeCurrentLock(lock);
+                                        processedByWorkerThread.addCurrentLock(lock);
                                     } else {
-                                        LockManager.removeLockForPlainThread(processedByThread, lock);
+                                        LockManager.addLockForPlainThread(processedByThread, lock);
                                     }
 
-                                    lock.unlock();
-                                }
+                                    try {
+                                        invokePort();
+                                    } catch (Exception e) {
+                                        throwable = e;
+                                    } finally {
+                                        if (processedByWorkerThread != null) {
+                                            processedByWorkerThread.removeCurrentLock(lock);
+                                        } else {
+                                            LockManager.removeLockForPlainThread(processedByThread, lock);
+                                        }
+
+                                        lock.unlock();
+                                    }
 
-                                break;
+                                    break;
+                                }
                             }
                         }
                     }
                 }
             }
-        }
 
-        processedByThread = null;
+            hasCompletedNormally = true;
+        } finally {
+            // An Error thrown by the handler must not leave the contexts or the span of the sender on this thread.
+            boolean isFailed = throwable != null || !hasCompletedNormally;
 
-        synchronized (this) {
-            hasReturned = true;
-            notify();
+            if (span != null) {
+                spanRecorder.end(span, payload, sender, receiver, isFailed);
+            }
+
+            if (previousContexts != null) {
+                previousContexts.restore();
+            }
+
+            if (metrics != null) {
+                metrics.record(
+                        payload != null ? payload.getClass() : Void.class,
+                        startedAtNanos - dispatchedAtNanos,
+                        System.nanoTime() - startedAtNanos,
+                        isFailed);
+            }
+
+            processedByThread = null;
+
+            synchronized (this) {
+                hasReturned = true;
+                notify();
+            }
         }
     }
 
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * The precomputed result of matching the OUT ports of a sender class against the IN ports
+ * of a receiver class. Connecting two instances only has to execute the steps of the plan.
+ */
+final class WiringPlan {
+
+    static final class Step {
+
+        final ComponentMetadata.OutPort outPort;
+        final Method inPortHandlerMethod;
+        final Field inPortField;
+
+        Step(ComponentMetadata.OutPort outPort, Method inPortHandlerMethod, Field inPortField) {
+            this.outPort = outPort;
+            this.inPortHandlerMethod = inPortHandlerMethod;
+            this.inPortField = inPortField;
+        }
+    }
+
+    final Step[] steps;
+
+    WiringPlan(Step[] steps) {
+        this.steps = steps;
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports.index;
+
+import org.timux.ports.In;
+import org.timux.ports.Out;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Writes an index of all Ports components of a compilation unit to {@value #RESOURCE_NAME}.
+ * At runtime, Ports uses this index to look up the ports of a component without scanning
+ * all of its fields and methods for annotations, and to skip classes that are not Ports
+ * components at all.
+ *
+ * <p> The index is line-based:
+ *
+ * <pre>
+ * N &lt;binary name of a compiled class without ports&gt;
+ * C &lt;binary class name&gt;
+ * O &lt;OUT port field name&gt; &lt;port type&gt;
+ * F &lt;IN port field name&gt; &lt;port type&gt;
+ * M &lt;IN port method name&gt; &lt;erased binary name of the message type&gt; &lt;return type&gt;
+ * </pre>
+ *
+ * <p> The O, F, and M lines refer to the preceding C line. Classes that are listed neither in
+ * an N line nor in a C line (e.g. anonymous and local classes, which annotation processing
+ * does not see) are not covered by the index and are scanned via reflection at runtime. On
+ * incremental compilation, the existing index is merged with the newly compiled classes.
+ *
+ * @since 0.7.0
+ */
+public class PortIndexAnnoProcessor extends AbstractProcessor {
+
+    public static final String RESOURCE_NAME = "META-INF/ports/index";
+
+    private static final String HEADER = "# Generated by " + PortIndexAnnoProcessor.class.getName() + ". Do not edit.";
+
+    private final Set<String> unmodifiableSupportedAnnotationTypes;
+
+    private final Set<String> compiledClasses = new TreeSet<>();
+    private final Set<String> portFreeClasses = new TreeSet<>();
+    private final Map<String, List<String>> classEntries = new TreeMap<>();
+
+    {
+        Set<String> supportedAnnotationTypes = new HashSet<>();
+
+        supportedAnnotationTypes.add(In.class.getName());
+        supportedAnnotationTypes.add(Out.class.getName());
+
+        unmodifiableSupportedAnnotationTypes = Collections.unmodifiableSet(supportedAnnotationTypes);
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return unmodifiableSupportedAnnotationTypes;
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        this.processingEnv = processingEnv;
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment) {
+        if (roundEnvironment.processingOver()) {
+            writeIndex();
+            return false;
+        }
+
+        for (Element element : roundEnvironment.getRootElements()) {
+            collectCompiledClasses(element);
+        }
+
+        for (Element element : roundEnvironment.getElementsAnnotatedWith(Out.class)) {
+            if (element.getKind() == ElementKind.FIELD) {
+                addEntry(element, "O " + element.getSimpleName() + " " + toSignature(element.asType()));
+            }
+        }
+
+        for (Element element : roundEnvironment.getElementsAnnotatedWith(In.class)) {
+            if (element.getKind() == ElementKind.FIELD) {
+                addEntry(element, "F " + element.getSimpleName() + " " + toSignature(element.asType()));
+            } else if (element.getKind() == ElementKind.METHOD) {
+                ExecutableElement method = (ExecutableElement) element;
+
+                String messageType = method.getParameters().size() == 1
+                        ? getErasedBinaryName(method.getParameters().get(0).asType())
+                        : "-";
+
+                addEntry(element, "M " + method.getSimpleName() + " " + messageType + " "
+                        + toSignature(method.getReturnType()));
+            }
+        }
+
+        return false;
+    }
+
+    private void collectCompiledClasses(Element element) {
+        if (!(element instanceof TypeElement)) {
+            return;
+        }
+
+        compiledClasses.add(getBinaryName((TypeElement) element));
+
+        for (Element enclosedElement : element.getEnclosedElements()) {
+            collectCompiledClasses(enclosedElement);
+        }
+    }
+
+    private void addEntry(Element element, String line) {
+        Element enclosingElement = element.getEnclosingElement();
+
+        if (!(enclosingElement instanceof TypeElement)) {
+            return;
+        }
+
+        String className = getBinaryName((TypeElement) enclosingElement);
+        classEntries.computeIfAbsent(className, k -> new ArrayList<>()).add(line);
+    }
+
+    private String getBinaryName(TypeElement element) {
+        return processingEnv.getElementUtils().getBinaryName(element).toString();
+    }
+
+    private String getErasedBinaryName(TypeMirror type) {
+        TypeMirror erasure = processingEnv.getTypeUtils().erasure(type);
+
+        if (erasure.getKind() != TypeKind.DECLARED) {
+            return "-";
+        }
+
+        return getBinaryName((TypeElement) ((DeclaredType) erasure).asElement());
+    }
+
+    private static String toSignature(TypeMirror type) {
+        return type.toString().replace(" ", "");
+    }
+
+    private void writeIndex() {
+        if (compiledClasses.isEmpty()) {
+            return;
+        }
+
+        readExistingIndex();
+
+        try {
+            FileObject resource = processingEnv.getFiler()
+                    .createResource(StandardLocation.CLASS_OUTPUT, "", RESOURCE_NAME);
+
+            try (Writer writer = resource.openWriter()) {
+                writer.write(HEADER);
+                writer.write('\n');
+
+                for (String className : compiledClasses) {
+                    if (!classEntries.containsKey(className)) {
+                        portFreeClasses.add(className);
+                    }
+                }
+
+                for (String className : portFreeClasses) {
+                    writer.write("N " + className + "\n");
+                }
+
+                for (Map.Entry<String, List<String>> e : classEntries.entrySet()) {
+                    writer.write("C " + e.getKey() + "\n");
+
+                    for (String line : e.getValue()) {
+                        writer.write(line);
+                        writer.write('\n');
+                    }
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(
+                    Diagnostic.Kind.WARNING, "cannot write Ports index: " + e.getMessage());
+        }
+    }
+
+    /*
+     * Keeps the entries of the classes that have not been recompiled, so that an incremental
+     * compilation does not drop them from the index.
+     */
+    private void readExistingIndex() {
+        FileObject resource;
+
+        try {
+            resource = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", RESOURCE_NAME);
+        } catch (IOException | IllegalArgumentException e) {
+            return;
+        }
+
+        try (Reader reader = resource.openReader(true); BufferedReader bufferedReader = new BufferedReader(reader)) {
+            List<String> currentEntries = null;
+
+            for (String line = bufferedReader.readLine(); line != null; line = bufferedReader.readLine()) {
+                if (line.startsWith("N ")) {
+                    String className = line.substring(2);
+
+                    if (!compiledClasses.contains(className)) {
+                        portFreeClasses.add(className);
+                    }
+
+                    currentEntries = null;
+                } else if (line.startsWith("C ")) {
+                    String className = line.substring(2);
+
+                    currentEntries = compiledClasses.contains(className) || classEntries.containsKey(className)
+                            ? null
+                            : classEntries.computeIfAbsent(className, k -> new ArrayList<>());
+                } else if (currentEntries != null && !line.startsWith("#") && !line.isEmpty()) {
+                    currentEntries.add(line);
+                }
+            }
+        } catch (IOException e) {
+            // There is no index yet.
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2018-2022 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Emits Java Flight Recorder events. This is the Java 11 variant of the class; it is packaged into
+ * META-INF/versions/11 of the multi-release JAR. The events are disabled unless a recording enables
+ * them (e.g. via a JFR settings file that contains the 'org.timux.ports.*' event names).
+ */
+final class JfrSupport {
+
+    private static final String CATEGORY = "Ports";
+
+    @Name("org.timux.ports.TaskEnqueued")
+    @Label("Task Enqueued")
+    @Description("A message has been put into the queue of an asynchronous domain")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class TaskEnqueuedEvent extends Event {
+
+        @Label("Domain")
+        String domain;
+
+        @Label("Message Type")
+        Class<?> messageType;
+
+        @Label("Queue Depth")
+        int queueDepth;
+    }
+
+    @Name("org.timux.ports.TaskDequeued")
+    @Label("Task Dequeued")
+    @Description("A message has been taken from the queue of an asynchronous domain by a worker thread")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class TaskDequeuedEvent extends Event {
+
+        @Label("Domain")
+        String domain;
+
+        @Label("Message Type")
+        Class<?> messageType;
+
+        @Label("Queue Depth")
+        int queueDepth;
+    }
+
+    @Name("org.timux.ports.TaskRun")
+    @Label("Task Run")
+    @Description("A message handler has been executed")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class TaskRunEvent extends Event {
+
+        @Label("Message Type")
+        Class<?> messageType;
+
+        @Label("Receiver")
+        Class<?> receiver;
+    }
+
+    @Name("org.timux.ports.LockWait")
+    @Label("Component Lock Wait")
+    @Description("A message had to wait for the lock of its receiver")
+    @Category(CATEGORY)
+    static class LockWaitEvent extends Event {
+
+        @Label("Message Type")
+        Class<?> messageType;
+
+        @Label("Receiver")
+        Class<?> receiver;
+
+        @Label("Deadlocked")
+        boolean deadlocked;
+    }
+
+    @Name("org.timux.ports.Deadlock")
+    @Label("Deadlock Detected")
+    @Description("A deadlock between domains has been detected and resolved")
+    @Category(CATEGORY)
+    static class DeadlockEvent extends Event {
+
+        @Label("Message Type")
+        Class<?> messageType;
+
+        @Label("Deadlock Start Message Type")
+        Class<?> deadlockStartMessageType;
+
+        @Label("Resolved By New Thread")
+        boolean resolvedByNewThread;
+    }
+
+    @Name("org.timux.ports.CacheAccess")
+    @Label("Request Cache Access")
+    @Description("The cache of a pure request has been accessed")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class CacheAccessEvent extends Event {
+
+        @Label("Request Type")
+        String requestType;
+
+        @Label("Hit")
+        boolean hit;
+    }
+
+    private JfrSupport() {
+        //
+    }
+
+    private static Class<?> classOf(Object object) {
+        return object != null ? object.getClass() : null;
+    }
+
+    static void taskEnqueued(String domain, Object payload, int queueDepth) {
+        TaskEnqueuedEvent event = new TaskEnqueuedEvent();
+
+        if (event.isEnabled()) {
+            event.domain = domain;
+            event.messageType = classOf(payload);
+            event.queueDepth = queueDepth;
+            event.commit();
+        }
+    }
+
+    static void taskDequeued(String domain, Object payload, int queueDepth) {
+        TaskDequeuedEvent event = new TaskDequeuedEvent();
+
+        if (event.isEnabled()) {
+            event.domain = domain;
+            event.messageType = classOf(payload);
+            event.queueDepth = queueDepth;
+            event.commit();
+        }
+    }
+
+    static Object beginTaskRun() {
+        TaskRunEvent event = new TaskRunEvent();
+
+        if (!event.isEnabled()) {
+            return null;
+        }
+
+        event.begin();
+        return event;
+    }
+
+    static void endTaskRun(Object event, Object payload, Object receiver) {
+        if (event == null) {
+            return;
+        }
+
+        TaskRunEvent taskRunEvent = (TaskRunEvent) event;
+        taskRunEvent.end();
+
+        if (taskRunEvent.shouldCommit()) {
+            taskRunEvent.messageType = classOf(payload);
+            taskRunEvent.receiver = classOf(receiver);
+            taskRunEvent.commit();
+        }
+    }
+
+    static Object beginLockWait() {
+        LockWaitEvent event = new LockWaitEvent();
+
+        if (!event.isEnabled()) {
+            return null;
+        }
+
+        event.begin();
+        return event;
+    }
+
+    static void endLockWait(Object event, Object payload, Object receiver, boolean isDeadlocked) {
+        if (event == null) {
+            return;
+        }
+
+        LockWaitEvent lockWaitEvent = (LockWaitEvent) event;
+        lockWaitEvent.end();
+
+        if (lockWaitEvent.shouldCommit()) {
+            lockWaitEvent.messageType = classOf(payload);
+            lockWaitEvent.receiver = classOf(receiver);
+            lockWaitEvent.deadlocked = isDeadlocked;
+            lockWaitEvent.commit();
+        }
+    }
+
+    static void deadlockDetected(Object payload, Object deadlockStartPayload, boolean isResolvedByNewThread) {
+        DeadlockEvent event = new DeadlockEvent();
+
+        if (event.isEnabled()) {
+            event.messageType = classOf(payload);
+            event.deadlockStartMessageType = classOf(deadlockStartPayload);
+            event.resolvedByNewThread = isResolvedByNewThread;
+            event.commit();
+        }
+    }
+
+    static void cacheAccessed(String requestType, boolean isHit) {
+        CacheAccessEvent event = new CacheAccessEvent();
+
+        if (event.isEnabled()) {
+            event.requestType = requestType;
+            event.hit = isHit;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.timux.ports.Ports;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link org.timux.ports.RequestCache} hit and miss paths of a pure request,
+ * compared to a plain request that is not cached at all.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheBenchmark {
+
+    private Sender sender;
+    private int key;
+
+    @Setup
+    public void setup() {
+        sender = new Sender();
+        Ports.connect(sender).and(new EchoReceiver());
+    }
+
+    @TearDown
+    public void tearDown() {
+        Ports.reset();
+    }
+
+    @Benchmark
+    public Integer uncached() {
+        return sender.echoRequest.call(new EchoRequest(42));
+    }
+
+    @Benchmark
+    public Integer hit() {
+        return sender.cachedRequest.call(new CachedRequest(42));
+    }
+
+    @Benchmark
+    public Integer miss() {
+        // Keys are never repeated, so each call has to scan and then update the cache.
+        return sender.cachedRequest.call(new CachedRequest(key++));
+    }
+}
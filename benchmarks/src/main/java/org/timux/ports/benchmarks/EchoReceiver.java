@@ -0,0 +1,40 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports.benchmarks;
+
+import org.timux.ports.In;
+import org.timux.ports.types.Either;
+
+public class EchoReceiver {
+
+    @In
+    private Integer onEcho(EchoRequest request) {
+        return request.getValue() + 1;
+    }
+
+    @In
+    private Either<Integer, String> onEitherEcho(EitherEchoRequest request) {
+        return request.getValue() >= 0
+                ? Either.a(request.getValue() + 1)
+                : Either.b("negative value");
+    }
+
+    @In
+    private Integer onCached(CachedRequest request) {
+        return request.getKey() * 2;
+    }
+}
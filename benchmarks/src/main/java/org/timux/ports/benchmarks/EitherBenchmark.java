@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.timux.ports.Ports;
+import org.timux.ports.types.Either;
+import org.timux.ports.types.Either3;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the allocation and dispatch cost of the union types {@link Either} and {@link Either3},
+ * both standalone and as the response of a request. Run with {@code -prof gc} to see the allocation
+ * rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EitherBenchmark {
+
+    private Sender sender;
+    private int value;
+
+    @Setup
+    public void setup() {
+        sender = new Sender();
+        Ports.connect(sender).and(new EchoReceiver());
+    }
+
+    @TearDown
+    public void tearDown() {
+        Ports.reset();
+    }
+
+    @Benchmark
+    public Integer eitherMap() {
+        Either<Integer, String> either = (value++ & 1) == 0
+                ? Either.a(value)
+                : Either.b("odd");
+
+        return either.map(x -> x, String::length);
+    }
+
+    @Benchmark
+    public Integer either3Map() {
+        int selector = value++ % 3;
+
+        Either3<Integer, Double, String> either = selector == 0
+                ? Either3.a(value)
+                : (selector == 1 ? Either3.b(0.5) : Either3.c("two"));
+
+        return either.map(x -> x, Double::intValue, String::length);
+    }
+
+    @Benchmark
+    public Either<Integer, String> eitherRequest() {
+        return sender.eitherEchoRequest.call(new EitherEchoRequest((value++ & 1) == 0 ? 1 : -1));
+    }
+}
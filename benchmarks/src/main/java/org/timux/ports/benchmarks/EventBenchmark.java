@@ -0,0 +1,72 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.timux.ports.Ports;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of {@link org.timux.ports.Event#trigger} with a growing number of receivers.
+ * All receivers live in the default (synchronous) domain so that the numbers are not blurred
+ * by queueing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventBenchmark {
+
+    @Param({"1", "8", "64"})
+    public int numberOfReceivers;
+
+    private Sender sender;
+    private int value;
+
+    @Setup
+    public void setup() {
+        sender = new Sender();
+
+        for (int i = 0; i < numberOfReceivers; i++) {
+            Ports.connect(sender).and(new PingReceiver());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        Ports.reset();
+    }
+
+    @Benchmark
+    public void trigger() {
+        sender.pingEvent.trigger(new PingEvent(value++));
+    }
+}
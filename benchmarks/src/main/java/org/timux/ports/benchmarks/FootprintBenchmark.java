@@ -0,0 +1,98 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.timux.ports.benchmarks;
+
+import org.openjdk.jol.info.GraphLayout;
+import org.timux.ports.Ports;
+import org.timux.ports.PortsOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the memory footprint of connections with JOL. This is not a JMH benchmark; run it with
+ * 'java -cp benchmarks/target/benchmarks.jar org.timux.ports.benchmarks.FootprintBenchmark'.
+ * For accurate numbers, add '-Djdk.attach.allowAttachSelf=true' so that JOL can attach its agent.
+ */
+public class FootprintBenchmark {
+
+    private static final int NUMBER_OF_RECEIVERS = 10_000;
+    private static final int NUMBER_OF_COMPONENTS = 10_000;
+
+    public static void main(String[] args) {
+        System.out.printf("bytes per event connection: %.1f%n", measureEventConnection());
+        System.out.printf("bytes per connected component: %.1f%n", measureComponent());
+    }
+
+    /**
+     * Returns the average number of bytes that one additional receiver of an event costs.
+     */
+    private static double measureEventConnection() {
+        Sender sender = new Sender();
+        List<PingReceiver> receivers = new ArrayList<>(NUMBER_OF_RECEIVERS);
+
+        Ports.connect(sender).and(new PingReceiver());
+
+        for (int i = 0; i < NUMBER_OF_RECEIVERS; i++) {
+            receivers.add(new PingReceiver());
+        }
+
+        long before = GraphLayout.parseInstance(sender, receivers).totalSize();
+
+        for (PingReceiver receiver : receivers) {
+            Ports.connect(sender).and(receiver, PortsOptions.FORCE_CONNECT_EVENT_PORTS);
+        }
+
+        long after = GraphLayout.parseInstance(sender, receivers).totalSize();
+
+        Ports.reset();
+
+        return (double) (after - before) / NUMBER_OF_RECEIVERS;
+    }
+
+    /**
+     * Returns the average number of bytes of a sender that is connected to its own receivers,
+     * including its ports, but excluding the receivers themselves.
+     */
+    private static double measureComponent() {
+        List<Sender> senders = new ArrayList<>(NUMBER_OF_COMPONENTS);
+        List<Object> receivers = new ArrayList<>(2 * NUMBER_OF_COMPONENTS);
+
+        for (int i = 0; i < NUMBER_OF_COMPONENTS; i++) {
+            Sender sender = new Sender();
+            PingReceiver pingReceiver = new PingReceiver();
+            EchoReceiver echoReceiver = new EchoReceiver();
+
+            Ports.connect(sender).and(pingReceiver);
+            Ports.connect(sender).and(echoReceiver);
+
+            senders.add(sender);
+            receivers.add(pingReceiver);
+            receivers.add(echoReceiver);
+        }
+
+        GraphLayout all = GraphLayout.parseInstance(senders, receivers);
+        GraphLayout receiversOnly = GraphLayout.parseInstance(receivers);
+
+        long size = all.subtract(receiversOnly).totalSize();
+
+        Ports.reset();
+
+        return (double) size / NUMBER_OF_COMPONENTS;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.timux.ports.Ports;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead that protocols add to the request path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtocolBenchmark {
+
+    public enum ProtocolMode {
+
+        /**
+         * No protocol is defined.
+         */
+        NONE,
+
+        /**
+         * A protocol is defined for the request type, but its condition never holds.
+         */
+        INACTIVE,
+
+        /**
+         * A protocol is defined for the request type and its condition always holds.
+         */
+        ACTIVE
+    }
+
+    @Param({"NONE", "INACTIVE", "ACTIVE"})
+    public ProtocolMode protocolMode;
+
+    private Sender sender;
+    private int value;
+    private int numberOfActions;
+
+    @Setup
+    public void setup() {
+        sender = new Sender();
+        EchoReceiver receiver = new EchoReceiver();
+
+        Ports.connect(sender).and(receiver);
+        Ports.register(sender, receiver);
+
+        switch (protocolMode) {
+        case NONE:
+            break;
+
+        case INACTIVE:
+            Ports.protocol()
+                .when(EchoRequest.class, Integer.class)
+                    .requests(x -> x.getValue() < 0)
+                    .do_(x -> numberOfActions++);
+            break;
+
+        case ACTIVE:
+            Ports.protocol()
+                .when(EchoRequest.class, Integer.class)
+                    .requests(x -> x.getValue() >= 0)
+                    .do_(x -> numberOfActions++);
+            break;
+
+        default:
+            throw new IllegalStateException("unhandled protocol mode: " + protocolMode);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        Ports.reset();
+    }
+
+    @Benchmark
+    public Integer call() {
+        return sender.echoRequest.call(new EchoRequest(value++ & 0x7fffffff));
+    }
+}
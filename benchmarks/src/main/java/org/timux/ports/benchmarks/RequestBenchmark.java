@@ -0,0 +1,100 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.timux.ports.DispatchPolicy;
+import org.timux.ports.Ports;
+import org.timux.ports.SyncPolicy;
+import org.timux.ports.types.Either;
+import org.timux.ports.types.Failure;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the request paths ({@code call}, {@code callE}, {@code callF}, and {@code fork})
+ * for each combination of {@link DispatchPolicy} and {@link SyncPolicy} of the receiver's domain.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestBenchmark {
+
+    private static final int FORK_SIZE = 8;
+
+    @Param({"SYNCHRONOUS", "ASYNCHRONOUS", "PARALLEL"})
+    public DispatchPolicy dispatchPolicy;
+
+    @Param({"NONE", "COMPONENT", "DOMAIN"})
+    public SyncPolicy syncPolicy;
+
+    private Sender sender;
+    private int value;
+
+    @Setup
+    public void setup() {
+        sender = new Sender();
+        EchoReceiver receiver = new EchoReceiver();
+
+        Ports.domain("benchmark-receiver", dispatchPolicy, syncPolicy).addInstances(receiver);
+        Ports.connect(sender).and(receiver);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Ports.reset();
+    }
+
+    @Benchmark
+    public Integer call() {
+        return sender.echoRequest.call(new EchoRequest(value++));
+    }
+
+    @Benchmark
+    public Either<Integer, Failure> callE() {
+        return sender.echoRequest.callE(new EchoRequest(value++));
+    }
+
+    @Benchmark
+    public Integer callF() {
+        return sender.echoRequest.callF(new EchoRequest(value++)).get();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FORK_SIZE)
+    public List<Integer> fork() {
+        int base = value;
+        value += FORK_SIZE;
+        return sender.echoRequest.fork(FORK_SIZE, i -> new EchoRequest(base + i)).get();
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports.benchmarks;
+
+import org.timux.ports.Event;
+import org.timux.ports.Out;
+import org.timux.ports.Request;
+import org.timux.ports.types.Either;
+
+public class Sender {
+
+    @Out
+    public Event<PingEvent> pingEvent;
+
+    @Out
+    public Request<EchoRequest, Integer> echoRequest;
+
+    @Out
+    public Request<EitherEchoRequest, Either<Integer, String>> eitherEchoRequest;
+
+    @Out
+    public Request<CachedRequest, Integer> cachedRequest;
+}
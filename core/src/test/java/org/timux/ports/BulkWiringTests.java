@@ -0,0 +1,170 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BulkWiringTests {
+
+    @AfterEach
+    public void afterEach() {
+        Ports.reset();
+    }
+
+    @Test
+    public void connectAllConnectsMatchingPorts() {
+        A a = new A();
+        B b = new B();
+        C c = new C();
+        D d = new D();
+
+        Ports.connectAll(Arrays.asList(a, d, b, c), PortsOptions.FORCE_CONNECT_EVENT_PORTS);
+
+        a.intEvent.trigger(new IntEvent(4));
+
+        assertEquals(6.0, b.receivedData);
+        assertEquals(4, c.data);
+        assertEquals(4.0, a.receivedData);
+        assertNotNull(b.slowRequest);
+        assertTrue(b.slowRequest.isConnected());
+    }
+
+    @Test
+    public void connectAllKeepsPairwiseOrder() {
+        A a1 = new A();
+        A a2 = new A();
+        B b = new B();
+
+        C c = new C();
+
+        Ports.connectAll(Arrays.asList(a1, a2, b, c));
+
+        b.doubleRequest.call(new DoubleRequest(1.0));
+
+        assertEquals(1.0, a1.receivedData);
+        assertEquals(0.0, a2.receivedData);
+
+        // Like with pairwise wiring, connected event ports are not connected again by default.
+        a1.intEvent.trigger(new IntEvent(4));
+
+        assertEquals(6.0, b.receivedData);
+        assertEquals(0, c.data);
+    }
+
+    @Test
+    public void connectAllHonorsOptions() {
+        A a1 = new A();
+        A a2 = new A();
+        B b = new B();
+
+        Ports.connectAll(Arrays.asList(a1, a2, b), PortsOptions.FORCE_CONNECT_ALL);
+
+        b.doubleRequest.call(new DoubleRequest(1.0));
+
+        assertEquals(0.0, a1.receivedData);
+        assertEquals(1.0, a2.receivedData);
+
+        assertThrows(AmbiguousRequestConnectionException.class, () ->
+                Ports.connectAll(Arrays.asList(new A(), new A(), new B()), PortsOptions.FAIL_ON_AMBIGUOUS_REQUEST_CONNECTIONS));
+
+        assertThrows(PortNotFoundException.class, () ->
+                Ports.connectAll(Arrays.asList(new B(), new C()), PortsOptions.DO_NOT_ALLOW_MISSING_PORTS));
+    }
+
+    @Test
+    public void disconnectAllDisconnectsMatchingPorts() {
+        A a = new A();
+        B b = new B();
+        C c = new C();
+
+        Ports.connectAll(Arrays.asList(a, b, c));
+        Ports.disconnectAll(Arrays.asList(c, b, a));
+
+        assertFalse(b.doubleRequest.isConnected());
+        assertFalse(a.intEvent.isConnected());
+
+        a.intEvent.trigger(new IntEvent(4));
+
+        assertEquals(0, c.data);
+        assertEquals(0.0, b.receivedData);
+    }
+
+    @Test
+    public void parallelConnectAllMatchesSequentialConnectAll() {
+        List<Object> components = new ArrayList<>();
+        List<A> as = new ArrayList<>();
+        List<B> bs = new ArrayList<>();
+        List<C> cs = new ArrayList<>();
+
+        for (int i = 0; i < 20; i++) {
+            A a = new A();
+            B b = new B();
+            C c = new C();
+
+            components.add(b);
+            components.add(c);
+            components.add(a);
+
+            as.add(a);
+            bs.add(b);
+            cs.add(c);
+        }
+
+        Ports.connectAll(components, PortsOptions.FORCE_CONNECT_EVENT_PORTS, 4);
+
+        for (B b : bs) {
+            b.doubleRequest.call(new DoubleRequest(2.0));
+        }
+
+        // Like with pairwise wiring, each request is connected to the first matching component.
+        assertEquals(2.0, as.get(0).receivedData);
+        assertEquals(0.0, as.get(1).receivedData);
+
+        as.get(7).intEvent.trigger(new IntEvent(7));
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(10.5, bs.get(i).receivedData);
+            assertEquals(7, cs.get(i).data);
+        }
+
+        assertThrows(AmbiguousRequestConnectionException.class, () ->
+                Ports.connectAll(Arrays.asList(new A(), new A(), new B()), PortsOptions.FAIL_ON_AMBIGUOUS_REQUEST_CONNECTIONS, 4));
+    }
+
+    @Test
+    public void trivialCollections() {
+        A a = new A();
+
+        Ports.connectAll(Collections.emptyList());
+        Ports.connectAll(Collections.singletonList(a));
+
+        assertTrue(a.intEvent == null);
+        assertThrows(IllegalArgumentException.class, () -> Ports.connectAll(Arrays.asList(a, null)));
+    }
+}
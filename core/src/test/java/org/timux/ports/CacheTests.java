@@ -22,6 +22,16 @@ import org.timux.ports.types.Container;
 import org.timux.ports.types.Either;
 import org.timux.ports.types.Failure;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class CacheTests {
@@ -254,6 +264,265 @@ public class CacheTests {
         assertSame(responseE, responseF);
     }
 
+    @Test
+    public void keySelectiveInvalidation() {
+        PureSender pureSender = new PureSender();
+        PureReceiver pureReceiver = new PureReceiver();
+
+        Ports.connect(pureSender).and(pureReceiver);
+
+        String responseA = pureSender.runKeyedRequest(1);
+        String responseB = pureSender.runKeyedRequest(2);
+
+        assertSame(responseA, pureSender.runKeyedRequest(1));
+        assertSame(responseB, pureSender.runKeyedRequest(2));
+
+        Ports.protocol()
+            .with(KeyedUpdateEvent.class)
+                .trigger(new KeyedUpdateEvent(1));
+
+        String responseC = pureSender.runKeyedRequest(1);
+        String responseD = pureSender.runKeyedRequest(2);
+
+        assertEquals("entity 1", responseC);
+        assertNotSame(responseA, responseC);
+        assertSame(responseB, responseD);
+
+        Ports.protocol()
+            .with(ClearEvent.class)
+                .trigger(new ClearEvent());
+
+        assertNotSame(responseC, pureSender.runKeyedRequest(1));
+        assertNotSame(responseD, pureSender.runKeyedRequest(2));
+    }
+
+    @Test
+    public void cacheSnapshot() throws IOException {
+        Path snapshotFile = Files.createTempFile("ports-cache", ".snapshot");
+
+        try {
+            PureSender pureSender = new PureSender();
+            PureReceiver pureReceiver = new PureReceiver();
+
+            Ports.connect(pureSender).and(pureReceiver);
+
+            pureSender.runKeyedRequest(1);
+            pureSender.runKeyedRequest(2);
+            pureSender.runCall(3);
+
+            assertEquals(2, Ports.saveCacheSnapshot(snapshotFile));
+
+            Ports.reset();
+
+            PureSender pureSender2 = new PureSender();
+            PureReceiver pureReceiver2 = new PureReceiver();
+
+            assertEquals(2, Ports.loadCacheSnapshot(snapshotFile));
+
+            Ports.connect(pureSender2).and(pureReceiver2);
+
+            assertEquals("entity 1", pureSender2.runKeyedRequest(1));
+            assertEquals("entity 2", pureSender2.runKeyedRequest(2));
+            assertEquals(0, pureReceiver2.keyedRequestCount);
+
+            assertEquals("entity 3", pureSender2.runKeyedRequest(3));
+            assertEquals(1, pureReceiver2.keyedRequestCount);
+        } finally {
+            Files.deleteIfExists(snapshotFile);
+        }
+    }
+
+    @Test
+    public void cacheSnapshotRejectsForeignFiles() throws IOException {
+        Path snapshotFile = Files.createTempFile("ports-cache", ".snapshot");
+
+        try {
+            Files.write(snapshotFile, "not a snapshot".getBytes());
+            assertThrows(IOException.class, () -> Ports.loadCacheSnapshot(snapshotFile));
+        } finally {
+            Files.deleteIfExists(snapshotFile);
+        }
+    }
+
+    @Test
+    public void loadedSnapshotEntriesAreInvalidated() throws IOException {
+        Path snapshotFile = Files.createTempFile("ports-cache", ".snapshot");
+
+        try {
+            PureSender pureSender = new PureSender();
+            PureReceiver pureReceiver = new PureReceiver();
+
+            Ports.connect(pureSender).and(pureReceiver);
+
+            pureSender.runKeyedRequest(1);
+            pureSender.runKeyedRequest(2);
+
+            assertEquals(2, Ports.saveCacheSnapshot(snapshotFile));
+
+            Ports.reset();
+
+            assertEquals(2, Ports.loadCacheSnapshot(snapshotFile));
+
+            // No port of the request type exists yet when the invalidating event is sent.
+            Ports.protocol()
+                .with(KeyedUpdateEvent.class)
+                    .trigger(new KeyedUpdateEvent(1));
+
+            PureSender pureSender2 = new PureSender();
+            PureReceiver pureReceiver2 = new PureReceiver();
+
+            Ports.connect(pureSender2).and(pureReceiver2);
+
+            pureSender2.runKeyedRequest(1);
+            assertEquals(1, pureReceiver2.keyedRequestCount);
+
+            pureSender2.runKeyedRequest(2);
+            assertEquals(1, pureReceiver2.keyedRequestCount);
+        } finally {
+            Files.deleteIfExists(snapshotFile);
+        }
+    }
+
+    @Test
+    public void truncatedSnapshotIsIgnored() throws IOException {
+        Path snapshotFile = Files.createTempFile("ports-cache", ".snapshot");
+
+        try {
+            PureSender pureSender = new PureSender();
+            PureReceiver pureReceiver = new PureReceiver();
+
+            Ports.connect(pureSender).and(pureReceiver);
+
+            pureSender.runKeyedRequest(1);
+
+            assertEquals(1, Ports.saveCacheSnapshot(snapshotFile));
+
+            byte[] bytes = Files.readAllBytes(snapshotFile);
+            Files.write(snapshotFile, Arrays.copyOf(bytes, bytes.length - 8));
+
+            assertThrows(IOException.class, () -> Ports.loadCacheSnapshot(snapshotFile));
+
+            Ports.enableCacheSnapshots(snapshotFile, null);
+            Ports.disableCacheSnapshots();
+        } finally {
+            Files.deleteIfExists(snapshotFile);
+        }
+    }
+
+    @Test
+    public void snapshotOnlyDeserializesAllowedClasses() throws IOException {
+        Path snapshotFile = Files.createTempFile("ports-cache", ".snapshot");
+
+        try {
+            ByteArrayOutputStream pairBytes = new ByteArrayOutputStream();
+
+            try (ObjectOutputStream objectOut = new ObjectOutputStream(pairBytes)) {
+                objectOut.writeObject(new PureKeyedRequest(1));
+                objectOut.writeObject(new File("not allowed"));
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeInt(0x504f5254);
+                out.writeShort(2);
+                out.writeInt(1);
+                out.writeUTF(PureKeyedRequest.class.getName());
+                out.writeLong(1L);
+                out.writeInt(1);
+                out.writeInt(pairBytes.size());
+                pairBytes.writeTo(out);
+            }
+
+            Files.write(snapshotFile, bytes.toByteArray());
+
+            assertEquals(0, Ports.loadCacheSnapshot(snapshotFile));
+        } finally {
+            Files.deleteIfExists(snapshotFile);
+        }
+    }
+
+    @Test
+    public void scopedCache() {
+        PureSender pureSenderA = new PureSender();
+        PureSender pureSenderB = new PureSender();
+        PureSender pureSenderC = new PureSender();
+        PureReceiver pureReceiver = new PureReceiver();
+
+        Ports.setCacheScopeResolver((scope, owner) -> {
+            assertEquals(CacheScope.UI, scope);
+            return owner == pureSenderC ? "ui2" : "ui1";
+        });
+
+        try {
+            Ports.connect(pureSenderA).and(pureReceiver);
+            Ports.connect(pureSenderB).and(pureReceiver);
+            Ports.connect(pureSenderC).and(pureReceiver);
+
+            assertEquals("scoped 1", pureSenderA.runScopedRequest(1));
+            assertEquals("scoped 1", pureSenderB.runScopedRequest(1));
+            assertEquals(1, pureReceiver.scopedRequestCount);
+
+            assertEquals("scoped 1", pureSenderC.runScopedRequest(1));
+            assertEquals(2, pureReceiver.scopedRequestCount);
+
+            Ports.releaseCacheScope("ui1");
+
+            pureSenderB.runScopedRequest(1);
+            pureSenderC.runScopedRequest(1);
+            assertEquals(3, pureReceiver.scopedRequestCount);
+
+            Ports.protocol()
+                .with(ClearEvent.class)
+                    .trigger(new ClearEvent());
+
+            pureSenderC.runScopedRequest(1);
+            assertEquals(4, pureReceiver.scopedRequestCount);
+        } finally {
+            Ports.setCacheScopeResolver(null);
+        }
+    }
+
+    @Test
+    public void scopesAreResolvedOncePerPort() {
+        PureSender pureSenderA = new PureSender();
+        PureSender pureSenderB = new PureSender();
+        PureSender pureSenderC = new PureSender();
+        PureReceiver pureReceiver = new PureReceiver();
+        AtomicInteger resolutionCount = new AtomicInteger();
+
+        Ports.setCacheScopeResolver((scope, owner) -> {
+            resolutionCount.incrementAndGet();
+            return owner == pureSenderA ? "ui1" : owner == pureSenderB ? "ui2" : null;
+        });
+
+        try {
+            Ports.connect(pureSenderA).and(pureReceiver);
+            Ports.connect(pureSenderB).and(pureReceiver);
+            Ports.connect(pureSenderC).and(pureReceiver);
+
+            pureSenderA.runScopedRequest(1);
+            pureSenderB.runScopedRequest(1);
+            pureSenderC.runScopedRequest(1);
+            assertEquals(3, resolutionCount.get());
+
+            pureSenderC.runScopedRequest(2);
+            assertEquals(3, resolutionCount.get());
+
+            Ports.releaseCacheScope("ui2");
+
+            pureSenderA.runScopedRequest(1);
+            pureSenderC.runScopedRequest(1);
+            assertEquals(3, resolutionCount.get());
+
+            pureSenderB.runScopedRequest(1);
+            assertEquals(4, resolutionCount.get());
+            assertEquals(5, pureReceiver.scopedRequestCount);
+        } finally {
+            Ports.setCacheScopeResolver(null);
+        }
+    }
+
 //    @Test
 //    public void requestCachePerformance() {
 //        RequestCache<Integer, Integer> requestCache = new RequestCache<>(101);
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ComponentMetadataTests {
+
+    @AfterEach
+    public void afterEach() {
+        Ports.reset();
+    }
+
+    @Test
+    public void metadataIsComputedOncePerClass() {
+        assertSame(ComponentMetadata.of(A.class), ComponentMetadata.of(new A()));
+
+        ComponentMetadata metadata = ComponentMetadata.of(B.class);
+
+        assertTrue(metadata.getOutPorts(false).containsKey(DoubleRequest.class.getName() + ", " + Double.class.getName()));
+        assertTrue(metadata.getInPortHandlerMethods(new A()).containsKey(IntEvent.class.getName() + ", void"));
+    }
+
+    @Test
+    public void wiringPlansAreReused() {
+        A a1 = new A();
+        B b1 = new B();
+
+        WiringPlan plan = ComponentMetadata.of(A.class).getWiringPlan(a1, b1);
+
+        assertSame(plan, ComponentMetadata.of(A.class).getWiringPlan(new A(), new B()));
+        assertNotSame(plan, ComponentMetadata.of(B.class).getWiringPlan(b1, a1));
+    }
+
+    @Test
+    public void repeatedConnectsWork() {
+        List<A> as = new ArrayList<>();
+        List<B> bs = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            A a = new A();
+            B b = new B();
+
+            Ports.connect(a).and(b);
+
+            as.add(a);
+            bs.add(b);
+        }
+
+        for (int i = 0; i < 100; i++) {
+            assertNotNull(as.get(i).intEvent);
+            assertNotSame(as.get(i).intEvent, as.get((i + 1) % 100).intEvent);
+
+            as.get(i).intEvent.trigger(new IntEvent(i));
+
+            assertEquals(i * 1.5, bs.get(i).receivedData);
+        }
+    }
+
+    @Test
+    public void portSignaturesMatchAcrossComponents() {
+        String intEventSignature = IntEvent.class.getName() + ", void";
+        String doubleRequestSignature = DoubleRequest.class.getName() + ", " + Double.class.getName();
+
+        assertEquals(Collections.singleton(intEventSignature), Ports.getOutPortSignatures(A.class));
+        assertTrue(Ports.getInPortSignatures(A.class).contains(doubleRequestSignature));
+        assertTrue(Ports.getOutPortSignatures(B.class).contains(doubleRequestSignature));
+        assertTrue(Ports.getInPortSignatures(B.class).contains(intEventSignature));
+        assertTrue(Ports.getInPortSignatures(C.class).contains(intEventSignature));
+        assertTrue(Ports.getOutPortSignatures(C.class).isEmpty());
+
+        assertTrue(Ports.isPortsComponent(A.class));
+        assertFalse(Ports.isPortsComponent(String.class));
+    }
+
+    @Test
+    public void ambiguousPortsAreReportedOnEveryConnect() {
+        for (int i = 0; i < 2; i++) {
+            assertThrows(AmbiguousPortsException.class, () -> Ports.connect(new DuplicateOutPorts()).and(new C()));
+        }
+    }
+
+    private static class DuplicateOutPorts {
+
+        @Out
+        Event<IntEvent> intEvent;
+
+        @Out
+        Event<IntEvent> otherIntEvent;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.timux.ports;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrentWeakHashMapTests {
+
+    @Test
+    public void keysAreComparedByEquality() {
+        ConcurrentWeakHashMap<String, Integer> map = new ConcurrentWeakHashMap<>();
+        String key = new String("key");
+
+        map.put(key, 1);
+
+        assertEquals(1, map.get(new String("key")));
+        assertEquals(2, map.compute(key, (k, v) -> v + 1));
+        assertEquals(2, map.computeIfAbsent(new String("key"), k -> 17));
+        assertEquals(1, map.size());
+
+        assertEquals(2, map.remove(new String("key")));
+        assertNull(map.get(key));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    public void garbageCollectedKeysAreExpunged() throws InterruptedException {
+        ConcurrentWeakHashMap<Object, Integer> map = new ConcurrentWeakHashMap<>();
+        Object survivor = new Object();
+
+        map.put(survivor, 1);
+        map.put(new Object(), 2);
+
+        while (map.size() > 1) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertEquals(1, map.get(survivor));
+
+        Iterator<Object> it = map.iterator();
+
+        assertTrue(it.hasNext());
+        assertSame(survivor, it.next());
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void iterationToleratesConcurrentModification() {
+        ConcurrentWeakHashMap<Integer, Integer> map = new ConcurrentWeakHashMap<>();
+        List<Integer> keys = new ArrayList<>();
+
+        for (int i = 0; i < 1000; i++) {
+            keys.add(i);
+            map.put(i, i);
+        }
+
+        int count = 0;
+
+        for (Integer key : map) {
+            if (key % 2 == 0) {
+                map.remove(key + 1);
+            }
+
+            count++;
+        }
+
+        assertTrue(count >= 500);
+        assertEquals(500, map.size());
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2018-2022 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ContextPropagationTests {
+
+    private static final ThreadLocal<String> context = new ThreadLocal<>();
+
+    private static final ContextPropagator<String> propagator = new ContextPropagator<String>() {
+
+        @Override
+        public String capture() {
+            return context.get();
+        }
+
+        @Override
+        public String restore(String value) {
+            String previousValue = context.get();
+            context.set(value);
+            return previousValue;
+        }
+    };
+
+    private final Semaphore handledEvents = new Semaphore(0);
+
+    @AfterEach
+    public void afterEach() {
+        context.remove();
+        Ports.reset();
+    }
+
+    @Test
+    public void failingPropagatorDoesNotPreventRestoringTheOthers() {
+        ContextPropagator<String> failingPropagator = new ContextPropagator<String>() {
+
+            @Override
+            public String capture() {
+                return "ignored";
+            }
+
+            @Override
+            public String restore(String value) {
+                throw new IllegalStateException("cannot restore");
+            }
+        };
+
+        Ports.addContextPropagator(failingPropagator);
+        Ports.addContextPropagator(propagator);
+
+        context.set("sender");
+        ContextPropagation.Captured captured = ContextPropagation.capture();
+
+        context.set("worker");
+        ContextPropagation.Captured previousContexts = captured.restore();
+
+        assertEquals("sender", context.get());
+
+        previousContexts.restore();
+
+        assertEquals("worker", context.get());
+    }
+
+    @Test
+    public void contextsAreRestoredWhenTheHandlerThrowsAnError() throws InterruptedException {
+        Ports.addContextPropagator(propagator);
+
+        context.set("sender");
+        Consumer<Object> failingHandler = x -> {
+            throw new AssertionError("handler error");
+        };
+
+        Task task = new Task(failingHandler, new Object(), null, null, null);
+
+        List<String> workerContexts = new ArrayList<>();
+
+        Thread worker = new Thread(() -> {
+            context.set("worker");
+
+            try {
+                task.run();
+            } catch (AssertionError e) {
+                // expected
+            }
+
+            workerContexts.add(context.get());
+        });
+
+        worker.start();
+        worker.join(5000);
+
+        assertEquals(1, workerContexts.size());
+        assertEquals("worker", workerContexts.get(0));
+        assertTrue(task.hasReturned());
+    }
+
+    @Test
+    public void contextIsPropagatedToOtherThreads() throws InterruptedException {
+        A a = new A();
+        B b = new B();
+
+        Ports.domain("context-test", DispatchPolicy.PARALLEL, SyncPolicy.COMPONENT).addInstances(b);
+        Ports.connect(a).and(b);
+
+        Map<Integer, String> observedContexts = new ConcurrentHashMap<>();
+        Map<Integer, Thread> observedThreads = new ConcurrentHashMap<>();
+
+        Ports.intercept(IntEvent.class).before(x -> {
+            observedContexts.put(x.getData(), String.valueOf(context.get()));
+            observedThreads.put(x.getData(), Thread.currentThread());
+        }).after((x, response) -> handledEvents.release());
+
+        context.set("outside");
+        triggerAndAwait(a, 1);
+
+        Ports.addContextPropagator(propagator);
+
+        context.set("trace-2");
+        triggerAndAwait(a, 2);
+
+        assertEquals("null", observedContexts.get(1));
+        assertEquals("trace-2", observedContexts.get(2));
+        assertNotEquals(Thread.currentThread(), observedThreads.get(2));
+
+        Ports.removeContextPropagator(propagator);
+
+        context.set("trace-3");
+        triggerAndAwait(a, 3);
+
+        assertEquals("null", observedContexts.get(3));
+    }
+
+    @Test
+    public void workerThreadContextIsRestored() throws InterruptedException {
+        A a = new A();
+        B b = new B();
+
+        Ports.domain("context-test", DispatchPolicy.ASYNCHRONOUS, SyncPolicy.COMPONENT).addInstances(b);
+        Ports.connect(a).and(b);
+        Ports.addContextPropagator(propagator);
+
+        Map<Integer, String> observedContexts = new ConcurrentHashMap<>();
+
+        Ports.intercept(IntEvent.class)
+                .before(x -> observedContexts.put(x.getData(), String.valueOf(context.get())))
+                .after((x, response) -> handledEvents.release());
+
+        context.set("first");
+        triggerAndAwait(a, 1);
+
+        context.remove();
+        triggerAndAwait(a, 2);
+
+        assertEquals("first", observedContexts.get(1));
+        assertEquals("null", observedContexts.get(2));
+    }
+
+    @Test
+    public void spansAreRecordedAcrossDomains() throws Exception {
+        Path spanFile = Files.createTempFile("ports-spans", ".json");
+
+        try {
+            A a = new A();
+            B b = new B();
+
+            Ports.domain("span-test", DispatchPolicy.PARALLEL, SyncPolicy.COMPONENT).addInstances(b);
+            Ports.connect(a).and(b);
+
+            Ports.intercept(IntEvent.class).after((x, response) -> handledEvents.release());
+            Ports.enableSpanRecording(spanFile);
+
+            triggerAndAwait(a, 4);
+
+            Ports.disableSpanRecording();
+
+            String json = new String(Files.readAllBytes(spanFile), "UTF-8").trim();
+
+            assertTrue(json.startsWith("["));
+            assertTrue(json.endsWith("]"));
+
+            Pattern pattern = Pattern.compile(
+                    "\\{\"name\":\"([^\"]+)\".*?\"trace\":(\\d+),\"span\":(\\d+),\"parent\":(\\d+)");
+
+            Matcher matcher = pattern.matcher(json);
+            List<String[]> spans = new ArrayList<>();
+
+            while (matcher.find()) {
+                spans.add(new String[] {matcher.group(1), matcher.group(2), matcher.group(3), matcher.group(4)});
+            }
+
+            assertEquals(2, spans.size());
+
+            Map<String, String[]> spansByName = spans.stream().collect(Collectors.toMap(s -> s[0], s -> s));
+
+            String[] eventSpan = spansByName.get(IntEvent.class.getName());
+            String[] requestSpan = spansByName.get(DoubleRequest.class.getName());
+
+            assertEquals("0", eventSpan[3]);
+            assertEquals(eventSpan[2], requestSpan[3]);
+            assertEquals(eventSpan[1], requestSpan[1]);
+        } finally {
+            Ports.disableSpanRecording();
+            Files.deleteIfExists(spanFile);
+        }
+    }
+
+    private void triggerAndAwait(A a, int data) throws InterruptedException {
+        a.intEvent.trigger(new IntEvent(data));
+        assertTrue(handledEvents.tryAcquire(5, TimeUnit.SECONDS));
+        Ports.awaitQuiescence();
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.timux.ports;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class EventObserverTests {
+
+    @AfterEach
+    public void afterEach() {
+        Ports.releaseObservers("test");
+        Ports.reset();
+    }
+
+    @Test
+    public void observersSeeEachEventOnce() {
+        A a = new A();
+        B b = new B();
+        List<Integer> observed = new ArrayList<>();
+
+        Ports.register(a);
+        Ports.observe("test", IntEvent.class, x -> observed.add(x.getData()));
+
+        a.intEvent.trigger(new IntEvent(1));
+
+        Ports.connect(a).and(b);
+
+        a.intEvent.trigger(new IntEvent(2));
+
+        assertEquals(2, observed.size());
+        assertEquals(1, observed.get(0));
+        assertEquals(2, observed.get(1));
+        assertEquals(3.0, b.receivedData);
+    }
+
+    @Test
+    public void observersSurviveProtocolReleaseAndReset() {
+        A a = new A();
+        List<Integer> observed = new ArrayList<>();
+
+        Ports.register(a);
+        Ports.observe("test", IntEvent.class, x -> observed.add(x.getData()));
+
+        Ports.releaseProtocols();
+        Ports.reset();
+
+        a.intEvent.trigger(new IntEvent(1));
+        assertEquals(1, observed.size());
+
+        Ports.releaseObservers("test");
+
+        a.intEvent.trigger(new IntEvent(2));
+        assertEquals(1, observed.size());
+    }
+}
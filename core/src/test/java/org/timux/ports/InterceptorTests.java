@@ -0,0 +1,131 @@
+/*
+ * Copyright 2018-2022 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class InterceptorTests {
+
+    @AfterEach
+    public void afterEach() {
+        Ports.reset();
+    }
+
+    @Test
+    public void interceptorsSmokeTest() {
+        A a = new A();
+        B b = new B();
+
+        Ports.connect(a).and(b);
+
+        List<String> calls = new ArrayList<>();
+
+        Ports.intercept(IntEvent.class)
+                .before(x -> calls.add("before event " + x.getData()))
+                .after((x, response) -> calls.add("after event " + response));
+
+        Ports.intercept(DoubleRequest.class)
+                .around((x, proceed) -> {
+                    calls.add("around request " + x.getData());
+                    return 2.0 * (Double) proceed.apply(new DoubleRequest(x.getData() + 1.0));
+                })
+                .after((x, response) -> calls.add("after request " + response));
+
+        a.intEvent.trigger(new IntEvent(3));
+
+        assertEquals(4.0, a.receivedData);
+        assertEquals(12.0, b.receivedData);
+
+        assertEquals(4, calls.size());
+        assertEquals("before event 3", calls.get(0));
+        assertEquals("around request 3.0", calls.get(1));
+        assertEquals("after request 6.0", calls.get(2));
+        assertEquals("after event null", calls.get(3));
+    }
+
+    @Test
+    public void interceptorsCanBeReleased() {
+        A a = new A();
+        B b = new B();
+
+        Ports.connect(a).and(b);
+
+        AtomicInteger counterA = new AtomicInteger();
+        AtomicInteger counterB = new AtomicInteger();
+
+        Ports.intercept("a", IntEvent.class).before(x -> counterA.incrementAndGet());
+        Ports.intercept("b", IntEvent.class).before(x -> counterB.incrementAndGet());
+
+        a.intEvent.trigger(new IntEvent(1));
+
+        Ports.releaseInterceptors("a");
+
+        a.intEvent.trigger(new IntEvent(1));
+
+        assertEquals(1, counterA.get());
+        assertEquals(2, counterB.get());
+
+        Ports.releaseInterceptors();
+
+        a.intEvent.trigger(new IntEvent(1));
+
+        assertEquals(2, counterB.get());
+    }
+
+    @Test
+    public void interceptorsAreSampledAndRestrictedToDomains() {
+        A a = new A();
+        B b = new B();
+
+        Domain domain = Ports.domain("interceptor-test", DispatchPolicy.SYNCHRONOUS, SyncPolicy.COMPONENT);
+
+        Ports.connect(a).and(b);
+
+        AtomicInteger neverCounter = new AtomicInteger();
+        AtomicInteger alwaysCounter = new AtomicInteger();
+        AtomicInteger sampledCounter = new AtomicInteger();
+        AtomicInteger domainCounter = new AtomicInteger();
+
+        Ports.intercept(IntEvent.class)
+                .sampled(0.0).before(x -> neverCounter.incrementAndGet())
+                .sampled(1.0).before(x -> alwaysCounter.incrementAndGet())
+                .sampled(0.5).before(x -> sampledCounter.incrementAndGet())
+                .sampled(1.0).inDomain(domain).before(x -> domainCounter.incrementAndGet());
+
+        for (int i = 0; i < 1000; i++) {
+            a.intEvent.trigger(new IntEvent(i));
+        }
+
+        assertEquals(0, neverCounter.get());
+        assertEquals(1000, alwaysCounter.get());
+        assertEquals(500, sampledCounter.get(), 150);
+        assertEquals(0, domainCounter.get());
+
+        domain.addInstances(b);
+
+        a.intEvent.trigger(new IntEvent(0));
+
+        assertEquals(1, domainCounter.get());
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LazyWiringTests {
+
+    @AfterEach
+    public void afterEach() {
+        Ports.reset();
+    }
+
+    @Test
+    public void portsAreResolvedOnFirstUse() {
+        A a = new A();
+        B b = new B();
+        C c = new C();
+
+        AtomicInteger numberOfResolutions = new AtomicInteger();
+
+        Ports.connectLazily(b, component -> {
+            numberOfResolutions.incrementAndGet();
+            Ports.connectDirected(component, a, PortsOptions.DEFAULT);
+        });
+
+        Ports.connect(a).and(c);
+
+        assertNotNull(b.doubleRequest);
+        assertNotNull(b.slowRequest);
+        assertEquals(0, numberOfResolutions.get());
+
+        assertEquals(3.0, b.doubleRequest.call(new DoubleRequest(2.0)));
+        assertEquals(3.0, b.doubleRequest.call(new DoubleRequest(2.0)));
+        assertTrue(b.slowRequest.isConnected());
+        assertEquals(1, numberOfResolutions.get());
+    }
+
+    @Test
+    public void inPortsOfLazyComponentsAreConnectedEagerly() {
+        A a = new A();
+        B b = new B();
+
+        AtomicInteger numberOfResolutions = new AtomicInteger();
+
+        Ports.connectLazily(b, component -> {
+            numberOfResolutions.incrementAndGet();
+            Ports.connectDirected(component, a, PortsOptions.DEFAULT);
+        });
+
+        Ports.connectDirected(a, b, PortsOptions.DEFAULT);
+
+        assertEquals(0, numberOfResolutions.get());
+
+        // B's handler calls its lazily wired request port.
+        a.intEvent.trigger(new IntEvent(4));
+
+        assertEquals(6.0, b.receivedData);
+        assertEquals(1, numberOfResolutions.get());
+    }
+
+    @Test
+    public void nullArgumentsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Ports.connectLazily(null, component -> {}));
+        assertThrows(IllegalArgumentException.class, () -> Ports.connectLazily(new B(), null));
+    }
+}
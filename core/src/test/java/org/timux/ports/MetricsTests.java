@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018-2022 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MetricsTests {
+
+    @AfterEach
+    public void afterEach() {
+        Ports.disableMetrics();
+        Ports.reset();
+    }
+
+    @Test
+    public void latencyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(500_500.0, histogram.getMean(), 0.001);
+
+        long p50 = histogram.getValueAtPercentile(50.0);
+        long p99 = histogram.getValueAtPercentile(99.0);
+
+        assertTrue(p50 >= 500_000 && p50 <= 500_000 * 1.01, "p50 = " + p50);
+        assertTrue(p99 >= 990_000 && p99 <= 990_000 * 1.01, "p99 = " + p99);
+
+        for (long v = 0; v < 10_000_000; v += 7) {
+            int index = LatencyHistogram.getBucketIndex(v);
+            assertTrue(v <= LatencyHistogram.getBucketUpperBound(index));
+            assertTrue(index == 0 || v > LatencyHistogram.getBucketUpperBound(index - 1));
+        }
+    }
+
+    @Test
+    public void metricsAreRecordedAndExposed() throws Exception {
+        A a = new A();
+        B b = new B();
+
+        Domain domain = Ports.domain("metrics-test", DispatchPolicy.PARALLEL, SyncPolicy.COMPONENT)
+                .addInstances(b);
+
+        Ports.connect(a).and(b);
+
+        a.intEvent.trigger(new IntEvent(1));
+        Ports.awaitQuiescence();
+
+        assertNull(domain.getMetrics().getMessageMetrics(IntEvent.class));
+
+        Ports.enableMetrics();
+
+        for (int i = 0; i < 10; i++) {
+            a.intEvent.trigger(new IntEvent(i));
+        }
+
+        Thread.sleep(100);
+        Ports.awaitQuiescence();
+
+        MessageMetrics messageMetrics = domain.getMetrics().getMessageMetrics(IntEvent.class);
+
+        assertEquals(10, messageMetrics.getCount());
+        assertEquals(0, messageMetrics.getFailureCount());
+        assertTrue(messageMetrics.getServiceTimeMax() > 0);
+        assertEquals(10, domain.getMetrics().getMessageCount());
+        assertTrue(domain.getMetrics().getThreadsCreatedCount() > 0);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        ObjectName domainName = new ObjectName(Metrics.getDomainObjectName("metrics-test"));
+        ObjectName messageName = new ObjectName(Metrics.getMessageObjectName("metrics-test", IntEvent.class.getName()));
+
+        assertTrue(server.isRegistered(domainName));
+        assertEquals(10L, server.getAttribute(messageName, "Count"));
+
+        Ports.releaseDomains();
+
+        assertFalse(server.isRegistered(domainName));
+        assertFalse(server.isRegistered(messageName));
+    }
+
+    @Test
+    public void releasedDomainsDoNotRecordMetrics() throws Exception {
+        Domain domain = Ports.domain("metrics-release-test", DispatchPolicy.PARALLEL, SyncPolicy.COMPONENT)
+                .addInstances(new B());
+        DomainMetrics metrics = domain.getMetrics();
+
+        Ports.enableMetrics();
+        Ports.releaseDomains();
+
+        metrics.record(IntEvent.class, 1000, 1000, false);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        assertNull(metrics.getMessageMetrics(IntEvent.class));
+        assertFalse(server.isRegistered(new ObjectName(Metrics.getDomainObjectName("metrics-release-test"))));
+    }
+}
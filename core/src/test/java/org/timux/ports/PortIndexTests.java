@@ -0,0 +1,183 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports;
+
+import org.junit.jupiter.api.Test;
+import org.timux.ports.index.PortIndexAnnoProcessor;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PortIndexTests {
+
+    @Test
+    public void portsComponentsAreRecognized() {
+        assertTrue(Ports.isPortsComponent(A.class));
+        assertTrue(Ports.isPortsComponent(new B()));
+        assertFalse(Ports.isPortsComponent(IntEvent.class));
+        assertFalse(Ports.isPortsComponent("not a component"));
+    }
+
+    @Test
+    public void anonymousComponentsAreScanned() {
+        A a = new A();
+        int[] received = {0};
+
+        Object receiver = new Object() {
+
+            @In
+            private void onInt(IntEvent event) {
+                received[0]++;
+            }
+        };
+
+        Ports.connect(a).and(receiver);
+        a.intEvent.trigger(new IntEvent(1));
+
+        assertEquals(1, received[0]);
+    }
+
+    @Test
+    public void indexCoversOnlyRecordedClasses() throws Exception {
+        String indexText = "# comment\n"
+                + "N org.timux.ports.IntEvent\n"
+                + "C org.timux.ports.A\n"
+                + "O intEvent org.timux.ports.Event<org.timux.ports.IntEvent>\n"
+                + "M onDoubleRequest org.timux.ports.DoubleRequest java.lang.Double\n"
+                + "X some future entry\n";
+
+        PortIndex index = PortIndex.parse(new StringReader(indexText));
+
+        assertEquals(Boolean.TRUE, index.isPortsComponent(A.class));
+        assertEquals(Boolean.FALSE, index.isPortsComponent(IntEvent.class));
+
+        // Classes that the annotation processor has not seen must be scanned via reflection.
+        assertNull(index.isPortsComponent(Ports.class));
+        assertNull(index.isPortsComponent(new Object() {}.getClass()));
+
+        PortIndex.ClassEntry entry = index.getEntry(A.class);
+
+        assertNotNull(entry);
+        assertEquals(Arrays.asList("intEvent"), entry.outPortFields);
+        assertEquals(Arrays.asList("onDoubleRequest"), entry.inPortMethods);
+        assertEquals(Arrays.asList(DoubleRequest.class.getName()), entry.inPortMessageTypes);
+        assertNull(index.getEntry(IntEvent.class));
+    }
+
+    @Test
+    public void annotationProcessorWritesAndMergesIndex() throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+
+        if (compiler == null) {
+            return;
+        }
+
+        Path sourceDir = Files.createTempDirectory("ports-index-src");
+        Path outputDir = Files.createTempDirectory("ports-index-out");
+
+        try {
+            Path component = write(sourceDir, "index/test/Component.java",
+                    "package index.test;\n"
+                            + "import org.timux.ports.*;\n"
+                            + "public class Component {\n"
+                            + "    @Out Event<String> stringEvent;\n"
+                            + "    @In private void onInteger(Integer value) {}\n"
+                            + "    public static class Nested { @Out Request<Long, Double> longRequest; }\n"
+                            + "    Object receiver = new Object() { @In void onLong(Long value) {} };\n"
+                            + "}\n");
+
+            Path other = write(sourceDir, "index/test/Other.java",
+                    "package index.test;\n"
+                            + "public class Other {}\n");
+
+            compile(compiler, outputDir, component, other);
+
+            List<String> lines = Files.readAllLines(outputDir.resolve(PortIndexAnnoProcessor.RESOURCE_NAME));
+
+            assertTrue(lines.contains("N index.test.Other"));
+            assertTrue(lines.contains("C index.test.Component"));
+            assertTrue(lines.contains("O stringEvent org.timux.ports.Event<java.lang.String>"));
+            assertTrue(lines.contains("M onInteger java.lang.Integer void"));
+            assertTrue(lines.contains("C index.test.Component$Nested"));
+            assertFalse(lines.contains("C index.test.Other"));
+            assertFalse(lines.stream().anyMatch(line -> line.contains("Component$1")));
+
+            // Incremental compilation of another class must keep the existing entries.
+            write(sourceDir, "index/test/Other.java",
+                    "package index.test;\n"
+                            + "import org.timux.ports.*;\n"
+                            + "public class Other { @In private Double onLong(Long value) { return 0.0; } }\n");
+
+            compile(compiler, outputDir, other);
+
+            lines = Files.readAllLines(outputDir.resolve(PortIndexAnnoProcessor.RESOURCE_NAME));
+
+            assertTrue(lines.contains("C index.test.Component"));
+            assertTrue(lines.contains("O stringEvent org.timux.ports.Event<java.lang.String>"));
+            assertTrue(lines.contains("C index.test.Other"));
+            assertFalse(lines.contains("N index.test.Other"));
+            assertTrue(lines.contains("M onLong java.lang.Long java.lang.Double"));
+            assertEquals(1, lines.stream().filter(line -> line.equals("C index.test.Component")).count());
+        } finally {
+            deleteRecursively(sourceDir);
+            deleteRecursively(outputDir);
+        }
+    }
+
+    private static Path write(Path directory, String fileName, String content) throws Exception {
+        Path file = directory.resolve(fileName);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static void compile(JavaCompiler compiler, Path outputDir, Path... sources) {
+        String classPath = System.getProperty("java.class.path") + File.pathSeparator + outputDir;
+
+        String[] arguments = Stream.concat(
+                Stream.of(
+                        "-classpath", classPath,
+                        "-processorpath", classPath,
+                        "-processor", PortIndexAnnoProcessor.class.getName(),
+                        "-d", outputDir.toString()),
+                Arrays.stream(sources).map(Path::toString))
+                .toArray(String[]::new);
+
+        assertEquals(0, compiler.run(null, null, null, arguments));
+    }
+
+    private static void deleteRecursively(Path directory) throws Exception {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
@@ -23,8 +23,11 @@ import org.timux.ports.types.Either;
 import org.timux.ports.types.Either3;
 import org.timux.ports.types.Failure;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -128,6 +131,63 @@ public class ProtocolTests {
         assertTrue(doubleRequestResponse.value);
     }
 
+    @Test
+    public void protocolsConcurrentDispatchAndRelease() throws InterruptedException {
+        A a = new A();
+        B b = new B();
+
+        Ports.connect(a).and(b);
+
+        AtomicInteger counterA = new AtomicInteger();
+        AtomicInteger counterB = new AtomicInteger();
+
+        Ports.protocol("a")
+            .when(IntEvent.class)
+                .triggers(x -> x.getData() >= 0)
+                .do_(x -> counterA.incrementAndGet());
+
+        Ports.protocol("b")
+            .when(IntEvent.class)
+                .triggers(x -> x.getData() % 2 == 0)
+                .do_(x -> counterB.incrementAndGet());
+
+        Thread[] threads = new Thread[4];
+
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int k = 0; k < 1000; k++) {
+                    a.intEvent.trigger(new IntEvent(k));
+                }
+            });
+
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(4000, counterA.get());
+        assertEquals(2000, counterB.get());
+
+        Ports.releaseProtocol("a");
+
+        assertTrue(Protocol.areProtocolsActive);
+
+        a.intEvent.trigger(new IntEvent(2));
+
+        assertEquals(4000, counterA.get());
+        assertEquals(2001, counterB.get());
+
+        Ports.releaseProtocol("b");
+
+        assertFalse(Protocol.areProtocolsActive);
+
+        a.intEvent.trigger(new IntEvent(2));
+
+        assertEquals(2001, counterB.get());
+    }
+
     @Test
     public void protocolsRawUnionTypeExceptionTest() {
         assertThrows(RawUnionTypeException.class, () -> {
@@ -442,4 +502,23 @@ public class ProtocolTests {
         assertEquals(PortsEventException.class, result.value.getClass());
         assertEquals("PortsEventException{org.timux.ports.MySpecialTestException: 1701}", result.value.toString());
     }
+
+    @Test
+    public void protocolsWithOnlyReachRegisteredReceivers() {
+        A a = new A();
+        C c1 = new C();
+        C c2 = new C();
+        C c3 = new C();
+
+        Ports.register(a, c1, c2, c3);
+        Ports.unregister(c2);
+
+        Ports.protocol()
+            .with(IntEvent.class)
+                .trigger(new IntEvent(1701));
+
+        assertEquals(1701, c1.data);
+        assertEquals(0, c2.data);
+        assertEquals(1701, c3.data);
+    }
 }
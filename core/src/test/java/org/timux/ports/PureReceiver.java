@@ -12,6 +12,22 @@ public class PureReceiver {
                 : Either.failure("is negative: " + request.getArg());
     }
 
+    int keyedRequestCount = 0;
+
+    @In
+    private String onPureKeyedRequest(PureKeyedRequest request) {
+        keyedRequestCount++;
+        return new String("entity " + request.getId());
+    }
+
+    int scopedRequestCount = 0;
+
+    @In
+    private String onPureScopedRequest(PureScopedRequest request) {
+        scopedRequestCount++;
+        return "scoped " + request.getId();
+    }
+
     @In
     private Integer onPureStatelessRequest(PureStatelessRequest request) {
         return 17;
@@ -27,6 +27,12 @@ public class PureSender {
     @Out
     private Request<PureStatelessRequest, Integer> pureStatelessRequest;
 
+    @Out
+    private Request<PureKeyedRequest, String> pureKeyedRequest;
+
+    @Out
+    private Request<PureScopedRequest, String> pureScopedRequest;
+
     public Either<Integer, Failure> runCall(int payload) {
         return pureEitherRequest.call(new PureEitherRequest(payload));
     }
@@ -39,6 +45,14 @@ public class PureSender {
         return pureEitherRequest.callF(new PureEitherRequest(payload)).get();
     }
 
+    public String runKeyedRequest(int id) {
+        return pureKeyedRequest.call(new PureKeyedRequest(id));
+    }
+
+    public String runScopedRequest(int id) {
+        return pureScopedRequest.call(new PureScopedRequest(id));
+    }
+
     public Integer runStatelessRequest() {
         return pureStatelessRequest.call(new PureStatelessRequest());
     }
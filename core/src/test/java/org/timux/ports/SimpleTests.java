@@ -24,6 +24,10 @@ import org.junit.jupiter.api.Timeout;
 import org.timux.ports.types.Failure;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -67,6 +71,93 @@ public class SimpleTests {
         assertEquals(0, c2.data);
     }
 
+    @Test
+    public void targetedTriggerOnlyReachesGivenReceivers() {
+        A a = new A();
+        C c1 = new C();
+        C c2 = new C();
+        C c3 = new C();
+
+        Ports.connect(a).and(c1);
+        Ports.connect(a).and(c2, PortsOptions.FORCE_CONNECT_EVENT_PORTS);
+
+        a.intEvent.trigger(new IntEvent(3), Arrays.asList(c2, c3));
+
+        assertEquals(0, c1.data);
+        assertEquals(3, c2.data);
+        assertEquals(0, c3.data);
+
+        Ports.disconnect(a).and(c2);
+
+        a.intEvent.trigger(new IntEvent(4), Collections.singletonList(c2));
+
+        assertEquals(3, c2.data);
+    }
+
+    static class EqualReceiver {
+
+        int count = 0;
+
+        @In
+        private void onInt(IntEvent event) {
+            count++;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof EqualReceiver;
+        }
+
+        @Override
+        public int hashCode() {
+            return 0;
+        }
+    }
+
+    @Test
+    public void targetedTriggerMatchesReceiversByIdentity() {
+        A a = new A();
+        EqualReceiver r1 = new EqualReceiver();
+        EqualReceiver r2 = new EqualReceiver();
+
+        Ports.connect(a).and(r1);
+        Ports.connect(a).and(r2, PortsOptions.FORCE_CONNECT_EVENT_PORTS);
+
+        a.intEvent.trigger(new IntEvent(1), Arrays.asList(r2, r2));
+
+        assertEquals(0, r1.count);
+        assertEquals(1, r2.count);
+    }
+
+    @Test
+    public void manyConnectionsCanBeAddedAndRemoved() {
+        A a = new A();
+        List<C> receivers = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            C c = new C();
+            receivers.add(c);
+            Ports.connect(a).and(c, PortsOptions.FORCE_CONNECT_EVENT_PORTS);
+        }
+
+        for (int i = 0; i < 100; i += 3) {
+            Ports.disconnect(a).and(receivers.get(i));
+        }
+
+        assertEquals(66, a.intEvent.getConnectionCount());
+
+        a.intEvent.trigger(new IntEvent(5));
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i % 3 == 0 ? 0 : 5, receivers.get(i).data);
+        }
+
+        a.intEvent.trigger(new IntEvent(6), Arrays.asList(receivers.get(1), receivers.get(3)));
+
+        assertEquals(6, receivers.get(1).data);
+        assertEquals(0, receivers.get(3).data);
+    }
+
     @Test
     public void multipleReceiversWithReconnection() {
         A a = new A();
@@ -150,6 +241,30 @@ public class SimpleTests {
         assertEquals(15.0, b.receivedData);
     }
 
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    public void deadReceiversArePrunedInBackground() throws InterruptedException {
+        A a = new A();
+        C c1 = new C();
+        C c2 = new C();
+
+        Ports.connect(a).and(c1);
+        Ports.connect(a).and(c2, PortsOptions.FORCE_CONNECT_EVENT_PORTS);
+
+        assertEquals(2, a.intEvent.getConnectionCount());
+
+        c2 = null;
+
+        while (a.intEvent.getConnectionCount() > 1) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        a.intEvent.trigger(new IntEvent(3));
+
+        assertEquals(3, c1.data);
+    }
+
     @Test
     public void getRootCauseAndFirstNonPortsException() {
         Throwable t2 = new MySpecialTestException("test2");
@@ -302,4 +417,40 @@ public class SimpleTests {
         assertEquals(PortsEventException.class, j.result.getClass());
         assertEquals("PortsEventException{org.timux.ports.MySpecialTestException: 1703}", j.result.toString());
     }
+
+    @Test
+    public void eventWrapperSeesEventAndReceiver() {
+        A a = new A();
+        C c = new C();
+
+        List<Object> deliveries = new ArrayList<>();
+        List<PortsCommand> commands = new ArrayList<>();
+
+        EventWrapper eventWrapper = new EventWrapper() {
+
+            @Override
+            public void execute(PortsCommand f) {
+                fail("the event and the receiver should be provided");
+            }
+
+            @Override
+            public void execute(PortsCommand f, Object event, Object receiver) {
+                deliveries.add(event);
+                deliveries.add(receiver);
+                commands.add(f);
+            }
+        };
+
+        Ports.connectDirected(a, c, eventWrapper, PortsOptions.DEFAULT);
+
+        IntEvent event = new IntEvent(1705);
+        a.intEvent.trigger(event);
+
+        assertEquals(Arrays.asList(event, c), deliveries);
+        assertEquals(0, c.data);
+
+        commands.get(0).execute();
+
+        assertEquals(1705, c.data);
+    }
 }
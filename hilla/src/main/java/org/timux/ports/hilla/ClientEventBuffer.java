@@ -0,0 +1,123 @@
+/*
+ * Copyright 2022 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports.hilla;
+
+import reactor.core.publisher.FluxSink;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * The per-client buffer of an event stream. Buffered events are keyed by their conflation key (or
+ * by a unique key if they are not to be conflated), so that a newer event replaces a superseded
+ * one in constant time.
+ */
+class ClientEventBuffer<T> {
+
+  private final FluxSink<List<T>> sink;
+  private final Function<? super T, ?> conflationKey;
+  private final ScheduledExecutorService flushExecutor;
+  private final long batchIntervalMillis;
+  private final int bufferSize;
+
+  // Guarded by this.
+  private final Map<Object, T> pendingEvents = new LinkedHashMap<>();
+  private boolean isFlushScheduled = false;
+
+  ClientEventBuffer(
+      FluxSink<List<T>> sink,
+      Function<? super T, ?> conflationKey,
+      ScheduledExecutorService flushExecutor,
+      long batchIntervalMillis,
+      int bufferSize) {
+    this.sink = sink;
+    this.conflationKey = conflationKey;
+    this.flushExecutor = flushExecutor;
+    this.batchIntervalMillis = batchIntervalMillis;
+    this.bufferSize = bufferSize;
+  }
+
+  void offer(T event) {
+    Object key = conflationKey != null ? conflationKey.apply(event) : null;
+
+    if (key == null) {
+      key = new Object();
+    }
+
+    synchronized (this) {
+      // Remove first so that the superseding event takes the position of the latest one.
+      pendingEvents.remove(key);
+      pendingEvents.put(key, event);
+
+      if (pendingEvents.size() > bufferSize) {
+        Iterator<T> it = pendingEvents.values().iterator();
+        it.next();
+        it.remove();
+      }
+
+      scheduleFlush();
+    }
+  }
+
+  synchronized void onRequest() {
+    if (!pendingEvents.isEmpty()) {
+      scheduleFlush();
+    }
+  }
+
+  private void scheduleFlush() {
+    if (isFlushScheduled) {
+      return;
+    }
+
+    try {
+      flushExecutor.schedule(this::flush, batchIntervalMillis, TimeUnit.MILLISECONDS);
+      isFlushScheduled = true;
+    } catch (RejectedExecutionException ignored) {
+      // The application is shutting down.
+    }
+  }
+
+  private void flush() {
+    List<T> batch;
+
+    synchronized (this) {
+      isFlushScheduled = false;
+
+      if (pendingEvents.isEmpty() || sink.isCancelled()) {
+        return;
+      }
+
+      if (sink.requestedFromDownstream() <= 0) {
+        // Keep buffering (and conflating) until the client requests more; see onRequest.
+        return;
+      }
+
+      batch = new ArrayList<>(pendingEvents.values());
+      pendingEvents.clear();
+    }
+
+    sink.next(batch);
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2022 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports.hilla;
+
+import org.timux.ports.Ports;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
+
+/** Fans out the observed events of one type to the buffers of all subscribed clients. */
+class EventStreamHub<T> {
+
+  private static final String OBSERVER_PREFIX = "ports-hilla-stream:";
+
+  private final Class<T> eventType;
+  private final ScheduledExecutorService flushExecutor;
+  private final long batchIntervalMillis;
+  private final int bufferSize;
+
+  private final List<ClientEventBuffer<T>> clients = new CopyOnWriteArrayList<>();
+
+  EventStreamHub(
+      Class<T> eventType,
+      ScheduledExecutorService flushExecutor,
+      long batchIntervalMillis,
+      int bufferSize) {
+    this.eventType = eventType;
+    this.flushExecutor = flushExecutor;
+    this.batchIntervalMillis = batchIntervalMillis;
+    this.bufferSize = bufferSize;
+
+    Ports.observe(getObserverIdentifier(), eventType, this::publish);
+  }
+
+  Flux<List<T>> subscribe(Function<? super T, ?> conflationKey) {
+    return Flux.create(
+        sink -> {
+          ClientEventBuffer<T> client =
+              new ClientEventBuffer<>(
+                  sink, conflationKey, flushExecutor, batchIntervalMillis, bufferSize);
+
+          clients.add(client);
+
+          sink.onRequest(n -> client.onRequest());
+          sink.onDispose(() -> clients.remove(client));
+        });
+  }
+
+  private void publish(T event) {
+    for (ClientEventBuffer<T> client : clients) {
+      client.offer(event);
+    }
+  }
+
+  void release() {
+    Ports.releaseObservers(getObserverIdentifier());
+    clients.clear();
+  }
+
+  private String getObserverIdentifier() {
+    return OBSERVER_PREFIX + eventType.getName();
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2022 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports.hilla;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
+
+/**
+ * Exposes Ports events as reactive streams that can be returned from Hilla endpoints, so that
+ * server-side events can be pushed to browser clients:
+ *
+ * <pre>{@code
+ * @Endpoint
+ * public class NotificationEndpoint {
+ *
+ *   private final EventStreams eventStreams;
+ *
+ *   public Flux<List<OrderUpdatedEvent>> orderUpdates() {
+ *     return eventStreams.stream(OrderUpdatedEvent.class, OrderUpdatedEvent::getOrderId);
+ *   }
+ * }
+ * }</pre>
+ *
+ * <p>Every event of a streamed type that is triggered by any component is observed (regardless of
+ * whether the event has receivers) and handed to each subscribed client. Each client has its own
+ * bounded buffer; events are not sent one by one, but in batches of all events that arrived within
+ * the batch interval. If a conflation key is provided, an event that has not been sent yet is
+ * superseded by a newer event with the same key, so slow clients only receive the latest state.
+ * While a client does not request more data, its events keep being buffered (and conflated); if
+ * the buffer overflows, the oldest events are dropped.
+ *
+ * <p>The batch interval (in milliseconds) and the buffer size can be configured via the properties
+ * {@code ports.hilla.stream-batch-interval} (default 100) and {@code
+ * ports.hilla.stream-buffer-size} (default 256).
+ *
+ * <p>The events are observed via {@link org.timux.ports.Ports#observe}, so the streams are not
+ * affected by releasing protocols or resetting Ports.
+ *
+ * @since 0.7.0
+ */
+@Component
+public class EventStreams implements DisposableBean {
+
+  private static final String BATCH_INTERVAL_PROPERTY = "ports.hilla.stream-batch-interval";
+  private static final String BUFFER_SIZE_PROPERTY = "ports.hilla.stream-buffer-size";
+
+  private final Map<Class<?>, EventStreamHub<?>> hubs = new ConcurrentHashMap<>();
+
+  private final ScheduledExecutorService flushExecutor =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "ports-hilla-streams");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private final long batchIntervalMillis;
+  private final int bufferSize;
+
+  public EventStreams(Environment environment) {
+    batchIntervalMillis = environment.getProperty(BATCH_INTERVAL_PROPERTY, Long.class, 100L);
+    bufferSize = environment.getProperty(BUFFER_SIZE_PROPERTY, Integer.class, 256);
+
+    if (batchIntervalMillis < 0) {
+      throw new IllegalArgumentException(BATCH_INTERVAL_PROPERTY + " must not be negative");
+    }
+
+    if (bufferSize < 1) {
+      throw new IllegalArgumentException(BUFFER_SIZE_PROPERTY + " must be positive");
+    }
+  }
+
+  /**
+   * Returns a stream of all events of the provided type, in batches. Events are not conflated.
+   *
+   * @see #stream(Class, Function)
+   */
+  public <T> Flux<List<T>> stream(Class<T> eventType) {
+    return stream(eventType, null);
+  }
+
+  /**
+   * Returns a stream of all events of the provided type, in batches. An event that is still
+   * buffered for a client is replaced by a newer event with the same (non-null) conflation key.
+   *
+   * @param eventType The event type to be streamed.
+   * @param conflationKey Provides the key that determines which events supersede each other. May
+   *     be null, in which case no events are conflated.
+   */
+  public <T> Flux<List<T>> stream(Class<T> eventType, Function<? super T, ?> conflationKey) {
+    return getHub(eventType).subscribe(conflationKey);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> EventStreamHub<T> getHub(Class<T> eventType) {
+    return (EventStreamHub<T>)
+        hubs.computeIfAbsent(
+            eventType,
+            k -> new EventStreamHub<>(eventType, flushExecutor, batchIntervalMillis, bufferSize));
+  }
+
+  @Override
+  public void destroy() {
+    hubs.values().forEach(EventStreamHub::release);
+    hubs.clear();
+    flushExecutor.shutdownNow();
+  }
+}
@@ -32,10 +32,12 @@ public class HillaPortConnector implements DestructionAwareBeanPostProcessor {
 
   @Override
   public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
-    try {
-      Ports.register(bean);
-      logger.debug("registered bean {}", beanName);
-    } catch (InaccessibleObjectException ignored) {
+    if (Ports.isPortsComponent(bean)) {
+      try {
+        Ports.register(bean);
+        logger.debug("registered bean {}", beanName);
+      } catch (InaccessibleObjectException ignored) {
+      }
     }
 
     return DestructionAwareBeanPostProcessor.super.postProcessAfterInitialization(bean, beanName);
@@ -43,7 +45,9 @@ public class HillaPortConnector implements DestructionAwareBeanPostProcessor {
 
   @Override
   public void postProcessBeforeDestruction(Object bean, String beanName) throws BeansException {
-    Ports.unregister(bean);
-    logger.debug("unregistered bean {}", beanName);
+    if (Ports.isPortsComponent(bean)) {
+      Ports.unregister(bean);
+      logger.debug("unregistered bean {}", beanName);
+    }
   }
 }
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2022 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports.hilla;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClientEventBufferTests {
+
+  /** Collects the scheduled flushes so that the tests can run them deterministically. */
+  private static class ManualScheduler extends ScheduledThreadPoolExecutor {
+
+    private final List<Runnable> scheduledTasks = new ArrayList<>();
+
+    ManualScheduler() {
+      super(1);
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+      scheduledTasks.add(command);
+      return null;
+    }
+
+    int getScheduledTaskCount() {
+      return scheduledTasks.size();
+    }
+
+    void runScheduledTasks() {
+      List<Runnable> tasks = new ArrayList<>(scheduledTasks);
+      scheduledTasks.clear();
+      tasks.forEach(Runnable::run);
+    }
+  }
+
+  private final ManualScheduler scheduler = new ManualScheduler();
+  private final List<List<String>> batches = new ArrayList<>();
+
+  private ClientEventBuffer<String> buffer;
+  private BaseSubscriber<List<String>> subscriber;
+
+  @AfterEach
+  public void afterEach() {
+    scheduler.shutdownNow();
+  }
+
+  private void subscribe(Function<? super String, ?> conflationKey, int bufferSize, long demand) {
+    Flux<List<String>> flux =
+        Flux.create(
+            sink -> {
+              buffer = new ClientEventBuffer<>(sink, conflationKey, scheduler, 100, bufferSize);
+              sink.onRequest(n -> buffer.onRequest());
+            });
+
+    subscriber =
+        new BaseSubscriber<>() {
+          @Override
+          protected void hookOnSubscribe(Subscription subscription) {
+            if (demand > 0) {
+              request(demand);
+            }
+          }
+
+          @Override
+          protected void hookOnNext(List<String> batch) {
+            batches.add(batch);
+          }
+        };
+
+    flux.subscribe(subscriber);
+  }
+
+  @Test
+  public void eventsAreSentInBatches() {
+    subscribe(null, 16, 10);
+
+    buffer.offer("a");
+    buffer.offer("b");
+    assertEquals(1, scheduler.getScheduledTaskCount());
+    assertTrue(batches.isEmpty());
+
+    scheduler.runScheduledTasks();
+    assertEquals(Arrays.asList(Arrays.asList("a", "b")), batches);
+  }
+
+  @Test
+  public void eventsWithTheSameKeyAreConflated() {
+    subscribe(x -> x.charAt(0), 16, 10);
+
+    buffer.offer("a1");
+    buffer.offer("b1");
+    buffer.offer("a2");
+
+    scheduler.runScheduledTasks();
+    assertEquals(Arrays.asList(Arrays.asList("b1", "a2")), batches);
+  }
+
+  @Test
+  public void eventsWithoutKeyAreNotConflated() {
+    subscribe(x -> null, 16, 10);
+
+    buffer.offer("a");
+    buffer.offer("a");
+
+    scheduler.runScheduledTasks();
+    assertEquals(Arrays.asList(Arrays.asList("a", "a")), batches);
+  }
+
+  @Test
+  public void oldestEventsAreDroppedOnOverflow() {
+    subscribe(null, 2, 10);
+
+    buffer.offer("a");
+    buffer.offer("b");
+    buffer.offer("c");
+
+    scheduler.runScheduledTasks();
+    assertEquals(Arrays.asList(Arrays.asList("b", "c")), batches);
+  }
+
+  @Test
+  public void flushingWaitsForDemand() {
+    subscribe(x -> x.charAt(0), 16, 0);
+
+    buffer.offer("a1");
+    scheduler.runScheduledTasks();
+    assertTrue(batches.isEmpty());
+    assertEquals(0, scheduler.getScheduledTaskCount());
+
+    // Events keep being conflated while there is no demand.
+    buffer.offer("a2");
+    scheduler.runScheduledTasks();
+    assertTrue(batches.isEmpty());
+
+    subscriber.request(1);
+    assertEquals(1, scheduler.getScheduledTaskCount());
+
+    scheduler.runScheduledTasks();
+    assertEquals(Arrays.asList(Arrays.asList("a2")), batches);
+
+    buffer.offer("b1");
+    scheduler.runScheduledTasks();
+    assertEquals(1, batches.size());
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports.loadtest;
+
+import org.timux.ports.DispatchPolicy;
+import org.timux.ports.Ports;
+import org.timux.ports.PortsOptions;
+import org.timux.ports.SyncPolicy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds a chain of {@link Stage}s, each of which is assigned to its own domain, and connects
+ * a number of {@link LoadClient}s to the first stage.
+ */
+class ComponentGraph {
+
+    private final List<LoadClient> clients = new ArrayList<>();
+
+    ComponentGraph(LoadTestConfig config, DispatchPolicy dispatchPolicy, SyncPolicy syncPolicy, int numberOfClients) {
+        Stage previousStage = null;
+        Stage firstStage = null;
+
+        for (int i = 0; i < config.getDepth(); i++) {
+            Stage stage = new Stage(config.getFanOut(), config.getWorkNanos());
+
+            Ports.domain("loadtest-stage-" + i, dispatchPolicy, syncPolicy).addInstances(stage);
+
+            if (previousStage != null) {
+                Ports.connectDirected(previousStage, stage, PortsOptions.DEFAULT);
+            } else {
+                firstStage = stage;
+            }
+
+            previousStage = stage;
+        }
+
+        for (int i = 0; i < numberOfClients; i++) {
+            LoadClient client = new LoadClient();
+            Ports.connectDirected(client, firstStage, PortsOptions.DEFAULT);
+            clients.add(client);
+        }
+    }
+
+    LoadClient getClient(int index) {
+        return clients.get(index);
+    }
+
+    void release() {
+        Ports.reset();
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports.loadtest;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe, log-linear latency histogram with a relative error of about 0.1 %.
+ *
+ * <p> Values below 2048 ns are recorded exactly. Above that, each power of two is split into
+ * 1024 linear sub-buckets, so that the histogram covers the full range of {@code long} with
+ * a fixed memory footprint.
+ */
+class LatencyRecorder {
+
+    private static final int SUB_BUCKET_BITS = 11;
+    private static final int HALF_SUB_BUCKET_COUNT = 1 << (SUB_BUCKET_BITS - 1);
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray((65 - SUB_BUCKET_BITS) * HALF_SUB_BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    void record(long nanos) {
+        long value = Math.max(0L, nanos);
+
+        counts.incrementAndGet(getIndex(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    static int getIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >>> shift);
+
+        return shift * HALF_SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long getHighestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+
+        int shift = index / HALF_SUB_BUCKET_COUNT - 1;
+        long subBucket = index % HALF_SUB_BUCKET_COUNT + HALF_SUB_BUCKET_COUNT;
+
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    long getCount() {
+        return count.sum();
+    }
+
+    long getMax() {
+        return max.get();
+    }
+
+    double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0.0 : (double) sum.sum() / n;
+    }
+
+    long getValueAtPercentile(double percentile) {
+        long n = count.sum();
+
+        if (n == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1L, (long) Math.ceil(percentile / 100.0 * n));
+        long cumulativeCount = 0;
+
+        for (int i = 0; i < counts.length(); i++) {
+            cumulativeCount += counts.get(i);
+
+            if (cumulativeCount >= target) {
+                return Math.min(getHighestEquivalentValue(i), getMax());
+            }
+        }
+
+        return getMax();
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports.loadtest;
+
+import org.timux.ports.DispatchPolicy;
+import org.timux.ports.SyncPolicy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a {@link ComponentGraph} at a fixed request rate (open loop). The rate is split evenly
+ * among the load generating threads, each of which follows its own fixed schedule. When a request
+ * takes longer than the scheduled interval, the following requests are sent late, but their latency
+ * is still measured from their scheduled start, so that stalls are not hidden (coordinated omission).
+ */
+class LoadGenerator {
+
+    private static final long SPIN_THRESHOLD_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final LoadTestConfig config;
+
+    LoadGenerator(LoadTestConfig config) {
+        this.config = config;
+    }
+
+    RunResult run(DispatchPolicy dispatchPolicy, SyncPolicy syncPolicy, int numberOfThreads) throws InterruptedException {
+        ComponentGraph graph = new ComponentGraph(config, dispatchPolicy, syncPolicy, numberOfThreads);
+
+        LatencyRecorder latency = new LatencyRecorder();
+        LatencyRecorder serviceTime = new LatencyRecorder();
+        LongAdder errors = new LongAdder();
+        LongAccumulator lastCompletedNanos = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+        long intervalNanos = (long) (1e9 * numberOfThreads / config.getRate());
+        long startNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long measurementStartNanos = startNanos + TimeUnit.SECONDS.toNanos(config.getWarmupSeconds());
+        long endNanos = measurementStartNanos + TimeUnit.SECONDS.toNanos(config.getDurationSeconds());
+
+        List<Thread> threads = new ArrayList<>();
+
+        try {
+            for (int t = 0; t < numberOfThreads; t++) {
+                LoadClient client = graph.getClient(t);
+                long threadStartNanos = startNanos + t * intervalNanos / numberOfThreads;
+
+                Thread thread = new Thread(() -> {
+                    for (long k = 0; ; k++) {
+                        long scheduledNanos = threadStartNanos + k * intervalNanos;
+
+                        if (scheduledNanos >= endNanos) {
+                            return;
+                        }
+
+                        waitUntil(scheduledNanos);
+
+                        long sentNanos = System.nanoTime();
+
+                        try {
+                            client.request.call(new StageRequest(k));
+                        } catch (RuntimeException e) {
+                            errors.increment();
+                        }
+
+                        long completedNanos = System.nanoTime();
+
+                        if (scheduledNanos >= measurementStartNanos) {
+                            latency.record(completedNanos - scheduledNanos);
+                            serviceTime.record(completedNanos - sentNanos);
+                            lastCompletedNanos.accumulate(completedNanos);
+                        }
+                    }
+                }, "ports-loadtest-" + t);
+
+                thread.setDaemon(true);
+                threads.add(thread);
+                thread.start();
+            }
+
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } finally {
+            graph.release();
+        }
+
+        // The achieved rate falls behind the target rate if the requests cannot be completed in time.
+        long measuredNanos = Math.max(endNanos, lastCompletedNanos.get()) - measurementStartNanos;
+        double achievedRate = latency.getCount() * 1e9 / measuredNanos;
+
+        return new RunResult(
+                dispatchPolicy, syncPolicy, numberOfThreads, config.getRate(), achievedRate,
+                errors.sum(), latency, serviceTime);
+    }
+
+    private static void waitUntil(long nanos) {
+        for (long remaining = nanos - System.nanoTime(); remaining > 0; remaining = nanos - System.nanoTime()) {
+            if (remaining > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+}
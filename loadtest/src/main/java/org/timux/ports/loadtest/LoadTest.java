@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports.loadtest;
+
+import org.timux.ports.DispatchPolicy;
+import org.timux.ports.SyncPolicy;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Command line entry point of the load test. Sweeps all configured combinations of dispatch policy,
+ * sync policy, and number of load generating threads, and writes a machine-readable report.
+ * Progress information is written to standard error.
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        LoadTestConfig config;
+
+        try {
+            config = LoadTestConfig.fromArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(LoadTestConfig.USAGE);
+            System.exit(1);
+            return;
+        }
+
+        if (config.isHelp()) {
+            System.out.print(LoadTestConfig.USAGE);
+            return;
+        }
+
+        LoadGenerator generator = new LoadGenerator(config);
+        List<RunResult> results = new ArrayList<>();
+
+        for (DispatchPolicy dispatchPolicy : config.getDispatchPolicies()) {
+            for (SyncPolicy syncPolicy : config.getSyncPolicies()) {
+                for (int threads : config.getThreadCounts()) {
+                    System.err.printf("running %s/%s with %d thread(s) ...%n", dispatchPolicy, syncPolicy, threads);
+
+                    RunResult result = generator.run(dispatchPolicy, syncPolicy, threads);
+                    results.add(result);
+
+                    System.err.printf(Locale.ROOT, "  %.1f req/s, p99 %.1f us (service time p99 %.1f us), %d errors%n",
+                            result.achievedRate,
+                            result.latency.getValueAtPercentile(99.0) / 1000.0,
+                            result.serviceTime.getValueAtPercentile(99.0) / 1000.0,
+                            result.errors);
+                }
+            }
+        }
+
+        ReportWriter reportWriter = new ReportWriter(config);
+
+        if (config.getOutput() == null) {
+            reportWriter.write(results, new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+        } else {
+            try (PrintWriter out = new PrintWriter(new OutputStreamWriter(
+                    new FileOutputStream(config.getOutput()), StandardCharsets.UTF_8)))
+            {
+                reportWriter.write(results, out);
+            }
+        }
+    }
+}
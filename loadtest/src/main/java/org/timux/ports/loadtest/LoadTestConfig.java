@@ -0,0 +1,218 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports.loadtest;
+
+import org.timux.ports.DispatchPolicy;
+import org.timux.ports.SyncPolicy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The options of a load test run, parsed from command line arguments of the form {@code --name=value}.
+ */
+class LoadTestConfig {
+
+    static final String USAGE =
+            "Usage: java -jar loadtest.jar [options]\n"
+                    + "\n"
+                    + "  --rate=N            total request rate in requests per second (default: 1000)\n"
+                    + "  --warmup=N          warmup duration per run in seconds (default: 2)\n"
+                    + "  --duration=N        measurement duration per run in seconds (default: 10)\n"
+                    + "  --threads=N,...     numbers of load generating threads to sweep (default: 1,4)\n"
+                    + "  --dispatch=P,...    dispatch policies to sweep (default: SYNCHRONOUS,ASYNCHRONOUS,PARALLEL)\n"
+                    + "  --sync=P,...        sync policies to sweep (default: NONE,COMPONENT,DOMAIN)\n"
+                    + "  --depth=N           number of stages in the component graph (default: 3)\n"
+                    + "  --fan-out=N         number of parallel requests per stage (default: 1)\n"
+                    + "  --work-micros=N     simulated work per stage in microseconds (default: 20)\n"
+                    + "  --format=F          report format, json or csv (default: json)\n"
+                    + "  --output=FILE       report file (default: standard output)\n"
+                    + "  --help              print this message\n";
+
+    private double rate = 1000.0;
+    private long warmupSeconds = 2;
+    private long durationSeconds = 10;
+    private List<Integer> threadCounts = parseList("1,4", Integer::parseInt);
+    private List<DispatchPolicy> dispatchPolicies = parseList("SYNCHRONOUS,ASYNCHRONOUS,PARALLEL", DispatchPolicy::valueOf);
+    private List<SyncPolicy> syncPolicies = parseList("NONE,COMPONENT,DOMAIN", SyncPolicy::valueOf);
+    private int depth = 3;
+    private int fanOut = 1;
+    private long workNanos = 20_000;
+    private String format = "json";
+    private String output = null;
+    private boolean help = false;
+
+    static LoadTestConfig fromArgs(String[] args) {
+        LoadTestConfig config = new LoadTestConfig();
+
+        for (String arg : args) {
+            if (arg.equals("--help")) {
+                config.help = true;
+                continue;
+            }
+
+            int separatorIndex = arg.indexOf('=');
+
+            if (!arg.startsWith("--") || separatorIndex < 0) {
+                throw new IllegalArgumentException("invalid argument: " + arg);
+            }
+
+            String name = arg.substring(2, separatorIndex);
+            String value = arg.substring(separatorIndex + 1);
+
+            switch (name) {
+            case "rate":
+                config.rate = Double.parseDouble(value);
+                break;
+
+            case "warmup":
+                config.warmupSeconds = Long.parseLong(value);
+                break;
+
+            case "duration":
+                config.durationSeconds = Long.parseLong(value);
+                break;
+
+            case "threads":
+                config.threadCounts = parseList(value, Integer::parseInt);
+                break;
+
+            case "dispatch":
+                config.dispatchPolicies = parseList(value.toUpperCase(), DispatchPolicy::valueOf);
+                break;
+
+            case "sync":
+                config.syncPolicies = parseList(value.toUpperCase(), SyncPolicy::valueOf);
+                break;
+
+            case "depth":
+                config.depth = Integer.parseInt(value);
+                break;
+
+            case "fan-out":
+                config.fanOut = Integer.parseInt(value);
+                break;
+
+            case "work-micros":
+                config.workNanos = Long.parseLong(value) * 1000L;
+                break;
+
+            case "format":
+                config.format = value.toLowerCase();
+                break;
+
+            case "output":
+                config.output = value;
+                break;
+
+            default:
+                throw new IllegalArgumentException("unknown option: " + name);
+            }
+        }
+
+        config.validate();
+
+        return config;
+    }
+
+    private void validate() {
+        if (rate <= 0.0) {
+            throw new IllegalArgumentException("rate must be positive");
+        }
+
+        if (warmupSeconds < 0 || durationSeconds <= 0) {
+            throw new IllegalArgumentException("warmup must not be negative and duration must be positive");
+        }
+
+        if (threadCounts.stream().anyMatch(n -> n <= 0)) {
+            throw new IllegalArgumentException("thread counts must be positive");
+        }
+
+        if (depth <= 0 || fanOut <= 0) {
+            throw new IllegalArgumentException("depth and fan-out must be positive");
+        }
+
+        if (!format.equals("json") && !format.equals("csv")) {
+            throw new IllegalArgumentException("unknown report format: " + format);
+        }
+    }
+
+    private static <T> List<T> parseList(String value, Function<String, T> parser) {
+        List<T> result = new ArrayList<>();
+
+        for (String element : value.split(",")) {
+            if (!element.trim().isEmpty()) {
+                result.add(parser.apply(element.trim()));
+            }
+        }
+
+        if (result.isEmpty()) {
+            throw new IllegalArgumentException("empty list: " + value);
+        }
+
+        return result;
+    }
+
+    double getRate() {
+        return rate;
+    }
+
+    long getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    long getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    List<Integer> getThreadCounts() {
+        return threadCounts;
+    }
+
+    List<DispatchPolicy> getDispatchPolicies() {
+        return dispatchPolicies;
+    }
+
+    List<SyncPolicy> getSyncPolicies() {
+        return syncPolicies;
+    }
+
+    int getDepth() {
+        return depth;
+    }
+
+    int getFanOut() {
+        return fanOut;
+    }
+
+    long getWorkNanos() {
+        return workNanos;
+    }
+
+    String getFormat() {
+        return format;
+    }
+
+    String getOutput() {
+        return output;
+    }
+
+    boolean isHelp() {
+        return help;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports.loadtest;
+
+import org.timux.ports.Ports;
+
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes the results of a sweep as JSON or CSV. All latencies are given in microseconds.
+ */
+class ReportWriter {
+
+    private final LoadTestConfig config;
+
+    ReportWriter(LoadTestConfig config) {
+        this.config = config;
+    }
+
+    void write(List<RunResult> results, PrintWriter out) {
+        if (config.getFormat().equals("csv")) {
+            writeCsv(results, out);
+        } else {
+            writeJson(results, out);
+        }
+
+        out.flush();
+    }
+
+    private void writeJson(List<RunResult> results, PrintWriter out) {
+        out.println("{");
+        out.println("  \"portsVersion\": \"" + Ports.getVersionString() + "\",");
+        out.println("  \"javaVersion\": \"" + System.getProperty("java.version") + "\",");
+        out.println("  \"availableProcessors\": " + Runtime.getRuntime().availableProcessors() + ",");
+        out.println("  \"config\": {");
+        out.println("    \"rate\": " + format(config.getRate()) + ",");
+        out.println("    \"warmupSeconds\": " + config.getWarmupSeconds() + ",");
+        out.println("    \"durationSeconds\": " + config.getDurationSeconds() + ",");
+        out.println("    \"depth\": " + config.getDepth() + ",");
+        out.println("    \"fanOut\": " + config.getFanOut() + ",");
+        out.println("    \"workMicros\": " + config.getWorkNanos() / 1000L);
+        out.println("  },");
+        out.println("  \"runs\": [");
+
+        for (int i = 0; i < results.size(); i++) {
+            RunResult result = results.get(i);
+
+            out.println("    {");
+            out.println("      \"dispatchPolicy\": \"" + result.dispatchPolicy + "\",");
+            out.println("      \"syncPolicy\": \"" + result.syncPolicy + "\",");
+            out.println("      \"threads\": " + result.threads + ",");
+            out.println("      \"targetRate\": " + format(result.targetRate) + ",");
+            out.println("      \"achievedRate\": " + format(result.achievedRate) + ",");
+            out.println("      \"requests\": " + result.latency.getCount() + ",");
+            out.println("      \"errors\": " + result.errors + ",");
+            out.println("      \"latency\": " + toJson(result.latency) + ",");
+            out.println("      \"serviceTime\": " + toJson(result.serviceTime));
+            out.println(i < results.size() - 1 ? "    }," : "    }");
+        }
+
+        out.println("  ]");
+        out.println("}");
+    }
+
+    private static String toJson(LatencyRecorder recorder) {
+        StringBuilder sb = new StringBuilder("{\"mean\": ").append(format(recorder.getMean() / 1000.0));
+
+        for (double percentile : RunResult.PERCENTILES) {
+            sb.append(", \"p").append(percentileName(percentile)).append("\": ")
+                    .append(format(recorder.getValueAtPercentile(percentile) / 1000.0));
+        }
+
+        return sb.append(", \"max\": ").append(format(recorder.getMax() / 1000.0)).append("}").toString();
+    }
+
+    private void writeCsv(List<RunResult> results, PrintWriter out) {
+        StringBuilder header = new StringBuilder("dispatchPolicy,syncPolicy,threads,targetRate,achievedRate,requests,errors");
+
+        for (String metric : new String[] {"latency", "serviceTime"}) {
+            header.append(',').append(metric).append("Mean");
+
+            for (double percentile : RunResult.PERCENTILES) {
+                header.append(',').append(metric).append("P").append(percentileName(percentile));
+            }
+
+            header.append(',').append(metric).append("Max");
+        }
+
+        out.println(header);
+
+        for (RunResult result : results) {
+            StringBuilder line = new StringBuilder()
+                    .append(result.dispatchPolicy).append(',')
+                    .append(result.syncPolicy).append(',')
+                    .append(result.threads).append(',')
+                    .append(format(result.targetRate)).append(',')
+                    .append(format(result.achievedRate)).append(',')
+                    .append(result.latency.getCount()).append(',')
+                    .append(result.errors);
+
+            for (LatencyRecorder recorder : new LatencyRecorder[] {result.latency, result.serviceTime}) {
+                line.append(',').append(format(recorder.getMean() / 1000.0));
+
+                for (double percentile : RunResult.PERCENTILES) {
+                    line.append(',').append(format(recorder.getValueAtPercentile(percentile) / 1000.0));
+                }
+
+                line.append(',').append(format(recorder.getMax() / 1000.0));
+            }
+
+            out.println(line);
+        }
+    }
+
+    private static String percentileName(double percentile) {
+        return percentile == Math.rint(percentile)
+                ? Integer.toString((int) percentile)
+                : Double.toString(percentile).replace('.', '_');
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+}
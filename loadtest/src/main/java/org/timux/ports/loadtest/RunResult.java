@@ -0,0 +1,56 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports.loadtest;
+
+import org.timux.ports.DispatchPolicy;
+import org.timux.ports.SyncPolicy;
+
+/**
+ * The outcome of a single run of the sweep.
+ *
+ * <p> The corrected latencies are measured from the point in time at which a request was
+ * <em>scheduled</em> to be sent, the service times from the point in time at which it was actually
+ * sent. The difference between both reveals coordinated omission: if the system stalls, the
+ * requests that should have been sent during the stall are not sent and would otherwise be
+ * missing from the statistics.
+ */
+class RunResult {
+
+    static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9, 99.99};
+
+    final DispatchPolicy dispatchPolicy;
+    final SyncPolicy syncPolicy;
+    final int threads;
+    final double targetRate;
+    final double achievedRate;
+    final long errors;
+    final LatencyRecorder latency;
+    final LatencyRecorder serviceTime;
+
+    RunResult(DispatchPolicy dispatchPolicy, SyncPolicy syncPolicy, int threads, double targetRate,
+              double achievedRate, long errors, LatencyRecorder latency, LatencyRecorder serviceTime)
+    {
+        this.dispatchPolicy = dispatchPolicy;
+        this.syncPolicy = syncPolicy;
+        this.threads = threads;
+        this.targetRate = targetRate;
+        this.achievedRate = achievedRate;
+        this.errors = errors;
+        this.latency = latency;
+        this.serviceTime = serviceTime;
+    }
+}
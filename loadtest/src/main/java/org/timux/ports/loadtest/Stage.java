@@ -0,0 +1,72 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports.loadtest;
+
+import org.timux.ports.In;
+import org.timux.ports.Out;
+import org.timux.ports.Request;
+
+/**
+ * A node of the component graph. Each stage simulates some CPU-bound work and then calls
+ * the next stage (if there is one), fanning out into several parallel requests if configured.
+ */
+public class Stage {
+
+    @Out
+    public Request<StageRequest, Long> next;
+
+    private final int fanOut;
+    private final long workNanos;
+
+    public Stage(int fanOut, long workNanos) {
+        this.fanOut = fanOut;
+        this.workNanos = workNanos;
+    }
+
+    @In
+    private Long onStageRequest(StageRequest request) {
+        simulateWork();
+
+        if (next == null || !next.isConnected()) {
+            return request.getValue();
+        }
+
+        if (fanOut == 1) {
+            return next.call(new StageRequest(request.getValue() + 1));
+        }
+
+        long sum = 0;
+
+        for (Long response : next.fork(fanOut, i -> new StageRequest(request.getValue() + i)).get()) {
+            sum += response;
+        }
+
+        return sum;
+    }
+
+    private void simulateWork() {
+        if (workNanos <= 0) {
+            return;
+        }
+
+        long end = System.nanoTime() + workNanos;
+
+        while (System.nanoTime() < end) {
+            // busy waiting on purpose
+        }
+    }
+}
@@ -20,30 +20,66 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.beans.factory.config.DestructionAwareBeanPostProcessor;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.WebApplicationContext;
-import org.timux.ports.In;
 import org.timux.ports.MissingPort;
-import org.timux.ports.Out;
 import org.timux.ports.PortNotConnectedException;
 import org.timux.ports.Ports;
 import org.timux.ports.PortsOptions;
 
-import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
 
+/**
+ * Connects the ports of all beans that are Ports components according to their scopes.
+ *
+ * <p>By default, each bean is connected as soon as it has been initialized. If the property {@value
+ * #PARALLEL_WIRING_PROPERTY} is set to true, the wiring of all beans that are created while the
+ * singletons are instantiated is deferred until all singletons have been instantiated and then
+ * performed in parallel, using up to {@value #WIRING_PARALLELISM_PROPERTY} threads (default: the
+ * number of available processors). This happens before the context is refreshed, so all ports are
+ * connected before any context listeners, {@link org.springframework.boot.CommandLineRunner}s or
+ * {@link org.springframework.boot.ApplicationRunner}s run. The resulting connections are the same
+ * as with immediate wiring. Note that in this mode, beans must not send messages during their
+ * initialization (e.g. in {@code @PostConstruct} methods), because their ports are not connected
+ * yet at that time.
+ *
+ * <p>If the property {@value #WIRING_REPORT_PROPERTY} is set to true, the time spent on each bean
+ * (scanning its ports and connecting it to other beans) is recorded, together with the number of
+ * bean pairs tried and actually connected. When the application is ready, a report of the most
+ * expensive beans and the size of the scope tree is logged.
+ */
 @Component
-public class PortConnector implements DestructionAwareBeanPostProcessor, BeanFactoryPostProcessor {
+public class PortConnector
+    implements DestructionAwareBeanPostProcessor,
+        BeanFactoryPostProcessor,
+        EnvironmentAware,
+        SmartInitializingSingleton {
+
+  /** @since 0.7.0 */
+  public static final String PARALLEL_WIRING_PROPERTY = "ports.spring.parallel-wiring";
+
+  /** @since 0.7.0 */
+  public static final String WIRING_PARALLELISM_PROPERTY = "ports.spring.wiring-parallelism";
+
+  /** @since 0.7.0 */
+  public static final String WIRING_REPORT_PROPERTY = "ports.spring.wiring-report";
+
+  private static final int CONNECT_OPTIONS =
+      PortsOptions.FORCE_CONNECT_EVENT_PORTS | PortsOptions.FAIL_ON_AMBIGUOUS_REQUEST_CONNECTIONS;
 
   private static final String ROOT_SCOPE = "root";
   private static final String SINGLETON_SCOPE = ConfigurableBeanFactory.SCOPE_SINGLETON;
@@ -60,12 +96,34 @@ public class PortConnector implements DestructionAwareBeanPostProcessor, BeanFac
 
   private ConfigurableListableBeanFactory beanFactory;
 
+  /* The beans whose wiring is deferred until all singletons have been instantiated,
+   * or null if wiring is not (or no longer) deferred. */
+  private Map<Object, String> deferredBeans = null;
+
+  private int wiringParallelism = Runtime.getRuntime().availableProcessors();
+
+  /* The wiring costs recorded until the application is ready, or null if not enabled. */
+  private WiringReport wiringReport = null;
+
   public PortConnector() {
     SCOPE_ORDERING.put(APPLICATION_SCOPE, 0);
     SCOPE_ORDERING.put(SESSION_SCOPE, 1);
     SCOPE_ORDERING.put(PROTOTYPE_SCOPE, 2);
   }
 
+  @Override
+  public synchronized void setEnvironment(Environment environment) {
+    if (environment.getProperty(PARALLEL_WIRING_PROPERTY, Boolean.class, false)) {
+      deferredBeans = new LinkedHashMap<>();
+      wiringParallelism =
+          environment.getProperty(WIRING_PARALLELISM_PROPERTY, Integer.class, wiringParallelism);
+    }
+
+    if (environment.getProperty(WIRING_REPORT_PROPERTY, Boolean.class, false)) {
+      wiringReport = new WiringReport();
+    }
+  }
+
   @Override
   public synchronized void postProcessBeanFactory(
       ConfigurableListableBeanFactory configurableListableBeanFactory) throws BeansException {
@@ -75,30 +133,9 @@ public class PortConnector implements DestructionAwareBeanPostProcessor, BeanFac
   @Override
   public synchronized Object postProcessAfterInitialization(Object bean, String beanName)
       throws BeansException {
-    boolean isPortsComponent = false;
-
-    for (Field field : bean.getClass().getDeclaredFields()) {
-      Out outAnno = field.getAnnotation(Out.class);
-      In inAnno = field.getAnnotation(In.class);
-
-      if (outAnno != null || inAnno != null) {
-        isPortsComponent = true;
-        break;
-      }
-    }
-
-    if (!isPortsComponent) {
-      for (Method method : bean.getClass().getDeclaredMethods()) {
-        In inAnno = method.getAnnotation(In.class);
-
-        if (inAnno != null) {
-          isPortsComponent = true;
-          break;
-        }
-      }
-    }
+    long scanStartTime = wiringReport != null ? System.nanoTime() : 0;
 
-    if (isPortsComponent) {
+    if (Ports.isPortsComponent(bean)) {
       String beanScopeName;
 
       try {
@@ -113,6 +150,19 @@ public class PortConnector implements DestructionAwareBeanPostProcessor, BeanFac
       beanScope.addBean(bean, beanName);
       beans.put(bean, beanScope);
 
+      instantiatePorts(bean);
+
+      if (wiringReport != null) {
+        WiringReport.BeanCost cost = wiringReport.getCost(bean, beanName);
+        cost.numberOfInstances++;
+        cost.scanNanos += System.nanoTime() - scanStartTime;
+      }
+
+      if (deferredBeans != null) {
+        deferredBeans.put(bean, beanName);
+        return bean;
+      }
+
       connectParentScopes(beanScope, bean, beanName);
       connectChildScopes(beanScope, bean, beanName);
     }
@@ -125,6 +175,10 @@ public class PortConnector implements DestructionAwareBeanPostProcessor, BeanFac
       throws BeansException {
     Scope beanScope = beans.get(bean);
 
+    if (deferredBeans != null) {
+      deferredBeans.remove(bean);
+    }
+
     if (beanScope != null) {
       logger.debug("removing bean {} due to destruction", beanName);
       disconnectCompletely(beanScope, bean, beanName);
@@ -172,26 +226,133 @@ public class PortConnector implements DestructionAwareBeanPostProcessor, BeanFac
     }
   }
 
+  @Override
+  public void afterSingletonsInstantiated() {
+    wireDeferredBeans();
+  }
+
+  /**
+   * Connects all beans whose wiring has been deferred. While the singletons are instantiated, there
+   * are no session scopes yet, so all deferred beans live in scopes that are connected to each
+   * other, and they can be wired as a whole. Beans that are created while this method runs are
+   * wired afterwards in the usual way.
+   */
+  synchronized void wireDeferredBeans() {
+    if (deferredBeans == null) {
+      return;
+    }
+
+    Map<Object, String> beansToWire = deferredBeans;
+    deferredBeans = null;
+
+    long startTime = System.nanoTime();
+
+    Ports.connectAll(beansToWire.keySet(), CONNECT_OPTIONS, wiringParallelism);
+
+    long wiringNanos = System.nanoTime() - startTime;
+
+    logger.debug(
+        "Wired {} deferred beans using {} threads in {} ms",
+        beansToWire.size(),
+        wiringParallelism,
+        wiringNanos / 1_000_000);
+
+    if (wiringReport != null) {
+      wiringReport.addDeferredWiring(beansToWire.size(), wiringNanos);
+    }
+
+    verifyDeferredBeans(beansToWire);
+  }
+
+  /** Logs the wiring report, if enabled, and stops recording wiring costs. */
+  synchronized void logWiringReport() {
+    if (wiringReport == null) {
+      return;
+    }
+
+    logger.info(wiringReport.format(rootScope));
+    wiringReport = null;
+  }
+
+  /*
+   * Checks the result of the deferred wiring: each Request port of a deferred bean must be
+   * connected if another deferred bean has a matching IN port.
+   */
+  private void verifyDeferredBeans(Map<Object, String> wiredBeans) {
+    Map<String, Integer> numberOfReceiversBySignature = new HashMap<>();
+
+    for (Object bean : wiredBeans.keySet()) {
+      for (String signature : Ports.getInPortSignatures(bean.getClass())) {
+        numberOfReceiversBySignature.merge(signature, 1, Integer::sum);
+      }
+    }
+
+    List<MissingPort> missingPorts = new ArrayList<>();
+    Method verifyMethod = getVerifyMethod();
+
+    for (Object bean : wiredBeans.keySet()) {
+      for (MissingPort missingPort : invokeVerify(verifyMethod, bean)) {
+        String signature = getSignature(missingPort);
+        int numberOfReceivers = numberOfReceiversBySignature.getOrDefault(signature, 0);
+
+        if (Ports.getInPortSignatures(bean.getClass()).contains(signature)) {
+          numberOfReceivers--;
+        }
+
+        if (numberOfReceivers > 0) {
+          missingPorts.add(missingPort);
+        }
+      }
+    }
+
+    if (!missingPorts.isEmpty()) {
+      throw new PortNotConnectedException(missingPorts);
+    }
+  }
+
+  private static String getSignature(MissingPort missingPort) {
+    String typeName = missingPort.field.getGenericType().getTypeName();
+    int begin = typeName.indexOf('<');
+    int end = typeName.lastIndexOf('>');
+
+    return begin >= 0 && end > begin ? typeName.substring(begin + 1, end) : "";
+  }
+
+  private synchronized void instantiatePorts(Object bean) {
+    // We call this in order to ensure that all ports of the bean are instantiated.
+    // (In the rare case that the bean is the only Ports component,
+    // its ports would remain uninstantiated.) The second call connects
+    // the exception handlers of the bean, if any. Both calls also verify that the
+    // ports of the bean are unambiguous, even if no other bean matches them.
+    Ports.connectDirected(bean, DummyComponent.INSTANCE, PortsOptions.FORCE_CONNECT_EVENT_PORTS);
+    Ports.connectDirected(DummyComponent.INSTANCE, bean, PortsOptions.FORCE_CONNECT_EVENT_PORTS);
+  }
+
   private synchronized void connectBeans(
       Scope scope, Object bean, String beanName, boolean isBeanScopeInUi) {
-    for (Map.Entry<Object, String> e : scope.getBeans()) {
+    // Only beans that share at least one port signature with the bean are considered,
+    // so that adding a bean does not require trying all beans of all scopes.
+    for (Map.Entry<Object, String> e : scope.getMatchingBeans(bean)) {
       final Object otherBean = e.getKey();
       final String otherBeanName = e.getValue();
 
-      if (bean == otherBean) {
-        // We call this in order to ensure that all ports of the bean are instantiated.
-        // (In the rare case that the bean is the only Ports component,
-        // its ports would remain uninstantiated.)
-        Ports.connectDirected(
-            bean, DummyComponent.INSTANCE, PortsOptions.FORCE_CONNECT_EVENT_PORTS);
-        continue;
-      }
-
       boolean a;
       boolean b;
 
-      a = Ports.connectDirected(bean, otherBean, PortsOptions.FORCE_CONNECT_EVENT_PORTS | PortsOptions.FAIL_ON_AMBIGUOUS_REQUEST_CONNECTIONS);
-      b = Ports.connectDirected(otherBean, bean, PortsOptions.FORCE_CONNECT_EVENT_PORTS | PortsOptions.FAIL_ON_AMBIGUOUS_REQUEST_CONNECTIONS);
+      long connectStartTime = wiringReport != null ? System.nanoTime() : 0;
+
+      a = Ports.connectDirected(bean, otherBean, CONNECT_OPTIONS);
+      b = Ports.connectDirected(otherBean, bean, CONNECT_OPTIONS);
+
+      if (wiringReport != null) {
+        WiringReport.BeanCost cost = wiringReport.getCost(bean, beanName);
+        cost.connectNanos += System.nanoTime() - connectStartTime;
+        cost.numberOfPairsTried++;
+
+        if (a || b) {
+          cost.numberOfPairsConnected++;
+        }
+      }
 
       if (a && b) {
         logConnection(bean, beanName, otherBean, otherBeanName, true);
@@ -204,10 +365,8 @@ public class PortConnector implements DestructionAwareBeanPostProcessor, BeanFac
   }
 
   private synchronized void disconnectBeans(Scope scope, Object bean, String beanName) {
-    for (Map.Entry<Object, String> e : scope.getBeans()) {
-      if (bean != e.getKey()) {
-        Ports.disconnect(bean).and(e.getKey());
-      }
+    for (Map.Entry<Object, String> e : scope.getMatchingBeans(bean)) {
+      Ports.disconnect(bean).and(e.getKey());
     }
   }
 
@@ -309,36 +468,37 @@ public class PortConnector implements DestructionAwareBeanPostProcessor, BeanFac
   synchronized void verify() {
     List<MissingPort> missingPorts = new ArrayList<>();
 
-    Method verifyMethod;
+    verifyScope(rootScope, missingPorts, getVerifyMethod());
+
+    if (!missingPorts.isEmpty()) {
+      throw new PortNotConnectedException(missingPorts);
+    }
+  }
 
+  private static Method getVerifyMethod() {
     try {
-      verifyMethod = Ports.class.getDeclaredMethod("verifyInternal", boolean.class, Object[].class);
+      Method verifyMethod =
+          Ports.class.getDeclaredMethod("verifyInternal", boolean.class, Object[].class);
       verifyMethod.setAccessible(true);
+      return verifyMethod;
     } catch (NoSuchMethodException e) {
       throw new RuntimeException(e);
     }
+  }
 
-    verifyScope(rootScope, missingPorts, verifyMethod);
-
-    if (!missingPorts.isEmpty()) {
-      throw new PortNotConnectedException(missingPorts);
+  @SuppressWarnings("unchecked")
+  private static List<MissingPort> invokeVerify(Method verifyMethod, Object bean) {
+    try {
+      return (List<MissingPort>) verifyMethod.invoke(null, false, new Object[] {bean});
+    } catch (IllegalAccessException | InvocationTargetException ex) {
+      throw new RuntimeException(ex);
     }
   }
 
-  @SuppressWarnings("unchecked")
   synchronized void verifyScope(Scope scope, List<MissingPort> missingPorts, Method verifyMethod) {
     scope
         .getBeans()
-        .forEach(
-            e -> {
-              try {
-                List<MissingPort> newMissingPorts =
-                    (List<MissingPort>) verifyMethod.invoke(null, false, new Object[] {e.getKey()});
-                missingPorts.addAll(newMissingPorts);
-              } catch (IllegalAccessException | InvocationTargetException ex) {
-                throw new RuntimeException(ex);
-              }
-            });
+        .forEach(e -> missingPorts.addAll(invokeVerify(verifyMethod, e.getKey())));
 
     scope.getChildScopes().forEach(s -> verifyScope(s, missingPorts, verifyMethod));
   }
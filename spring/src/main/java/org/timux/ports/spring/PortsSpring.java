@@ -22,6 +22,7 @@ import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationListener;
 import org.springframework.stereotype.Component;
+import org.timux.ports.Event;
 import org.timux.ports.Ports;
 import org.timux.ports.types.Either;
 import org.timux.ports.types.Unknown;
@@ -52,6 +53,9 @@ public final class PortsSpring
 
   @Override
   public void onApplicationEvent(ApplicationReadyEvent event) {
+    PortConnector portConnector = applicationContext.getBean(PortConnector.class);
+    portConnector.logWiringReport();
+
     if (!greetingHasBeenDisplayed) {
       greetingHasBeenDisplayed = true;
       LoggerFactory.getLogger(PortsSpring.class)
@@ -93,4 +97,25 @@ public final class PortsSpring
   public static boolean isComponentOwnedBy(Object component, String username) {
     return ownerOf(component).map(username::equals, unknown -> false);
   }
+
+  /**
+   * Sends the provided payload via the provided {@link Event} port, but only to those receivers
+   * that are "owned" by the user with the provided username (w.r.t. Spring Security). Other
+   * receivers that are connected to the port do not get the event.
+   *
+   * <p>The owned components are looked up in a per-user index, so the cost of this method depends
+   * on the number of components of that user, not on the number of connected receivers.
+   *
+   * <p>A user "owns" a component if it was created by a thread that runs in that user's security
+   * context.
+   *
+   * @see Event#trigger(Object, java.util.Collection)
+   */
+  public static <T> void triggerForOwner(Event<T> event, T payload, String username) {
+    event.trigger(
+        payload,
+        self.applicationContext
+            .getBean(ComponentOwnershipRegistry.class)
+            .getComponentsOwnedBy(username));
+  }
 }
@@ -16,7 +16,16 @@
 
 package org.timux.ports.spring;
 
+import org.timux.ports.Ports;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.WeakHashMap;
 
 class Scope {
@@ -26,6 +35,12 @@ class Scope {
   private Scope parentScope = null;
   private final Map<Object, String> beans = new WeakHashMap<>();
 
+  /* The beans of this scope by the signatures of their OUT and IN ports, respectively.
+   * These indexes are used to find the beans a new bean can be connected to
+   * without trying all beans in the scope. */
+  private final Map<String, Map<Object, Boolean>> beansByOutPortSignature = new HashMap<>();
+  private final Map<String, Map<Object, Boolean>> beansByInPortSignature = new HashMap<>();
+
   public Scope(String name) {
     this(name, null);
   }
@@ -72,6 +87,8 @@ class Scope {
   public void removeBeans() {
     synchronized (beans) {
       beans.clear();
+      beansByOutPortSignature.clear();
+      beansByInPortSignature.clear();
     }
   }
 
@@ -88,12 +105,38 @@ class Scope {
   public void addBean(Object bean, String beanName) {
     synchronized (beans) {
       beans.put(bean, beanName);
+
+      for (String signature : Ports.getOutPortSignatures(bean.getClass())) {
+        beansByOutPortSignature.computeIfAbsent(signature, k -> new WeakHashMap<>()).put(bean, true);
+      }
+
+      for (String signature : Ports.getInPortSignatures(bean.getClass())) {
+        beansByInPortSignature.computeIfAbsent(signature, k -> new WeakHashMap<>()).put(bean, true);
+      }
     }
   }
 
   public void removeBean(Object bean) {
     synchronized (beans) {
       beans.remove(bean);
+
+      removeFromIndex(beansByOutPortSignature, Ports.getOutPortSignatures(bean.getClass()), bean);
+      removeFromIndex(beansByInPortSignature, Ports.getInPortSignatures(bean.getClass()), bean);
+    }
+  }
+
+  private static void removeFromIndex(
+      Map<String, Map<Object, Boolean>> index, Set<String> signatures, Object bean) {
+    for (String signature : signatures) {
+      Map<Object, Boolean> signatureBeans = index.get(signature);
+
+      if (signatureBeans != null) {
+        signatureBeans.remove(bean);
+
+        if (signatureBeans.isEmpty()) {
+          index.remove(signature);
+        }
+      }
     }
   }
 
@@ -108,4 +151,53 @@ class Scope {
       return beans.entrySet();
     }
   }
+
+  /**
+   * Returns the beans of this scope (together with their names) that have at least one port that
+   * the provided bean can be connected to, in any direction. The provided bean itself is not
+   * included.
+   */
+  public List<Map.Entry<Object, String>> getMatchingBeans(Object bean) {
+    synchronized (beans) {
+      Map<Object, Boolean> matchingBeans = new IdentityHashMap<>();
+
+      collectMatchingBeans(
+          beansByInPortSignature, Ports.getOutPortSignatures(bean.getClass()), matchingBeans);
+      collectMatchingBeans(
+          beansByOutPortSignature, Ports.getInPortSignatures(bean.getClass()), matchingBeans);
+
+      matchingBeans.remove(bean);
+
+      if (matchingBeans.isEmpty()) {
+        return Collections.emptyList();
+      }
+
+      List<Map.Entry<Object, String>> result = new ArrayList<>(matchingBeans.size());
+
+      for (Object matchingBean : matchingBeans.keySet()) {
+        String beanName = beans.get(matchingBean);
+
+        if (beanName != null) {
+          result.add(new AbstractMap.SimpleImmutableEntry<>(matchingBean, beanName));
+        }
+      }
+
+      return result;
+    }
+  }
+
+  private static void collectMatchingBeans(
+      Map<String, Map<Object, Boolean>> index,
+      Set<String> signatures,
+      Map<Object, Boolean> matchingBeans) {
+    for (String signature : signatures) {
+      Map<Object, Boolean> signatureBeans = index.get(signature);
+
+      if (signatureBeans != null) {
+        for (Object signatureBean : signatureBeans.keySet()) {
+          matchingBeans.put(signatureBean, true);
+        }
+      }
+    }
+  }
 }
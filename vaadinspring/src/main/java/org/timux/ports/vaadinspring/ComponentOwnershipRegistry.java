@@ -23,6 +23,10 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
 
@@ -31,6 +35,9 @@ public class ComponentOwnershipRegistry implements DestructionAwareBeanPostProce
 
     private final Map<Object, String> componentOwners = new WeakHashMap<>();
 
+    // Guarded by componentOwners.
+    private final Map<String, Map<Object, Boolean>> componentsByOwner = new HashMap<>();
+
     @Override
     public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -38,6 +45,9 @@ public class ComponentOwnershipRegistry implements DestructionAwareBeanPostProce
         if (authentication != null && !(authentication instanceof AnonymousAuthenticationToken)) {
             synchronized (componentOwners) {
                 componentOwners.put(bean, authentication.getName());
+                componentsByOwner
+                        .computeIfAbsent(authentication.getName(), k -> new WeakHashMap<>())
+                        .put(bean, Boolean.TRUE);
             }
         }
 
@@ -47,7 +57,19 @@ public class ComponentOwnershipRegistry implements DestructionAwareBeanPostProce
     @Override
     public void postProcessBeforeDestruction(Object bean, String beanName) throws BeansException {
         synchronized (componentOwners) {
-            componentOwners.remove(bean);
+            String owner = componentOwners.remove(bean);
+
+            if (owner != null) {
+                Map<Object, Boolean> ownedComponents = componentsByOwner.get(owner);
+
+                if (ownedComponents != null) {
+                    ownedComponents.remove(bean);
+
+                    if (ownedComponents.isEmpty()) {
+                        componentsByOwner.remove(owner);
+                    }
+                }
+            }
         }
     }
 
@@ -56,4 +78,22 @@ public class ComponentOwnershipRegistry implements DestructionAwareBeanPostProce
             return componentOwners.get(component);
         }
     }
+
+    List<Object> getComponentsOwnedBy(String username) {
+        synchronized (componentOwners) {
+            Map<Object, Boolean> ownedComponents = componentsByOwner.get(username);
+
+            if (ownedComponents == null) {
+                return Collections.emptyList();
+            }
+
+            if (ownedComponents.isEmpty()) {
+                // All components of this owner have been garbage collected.
+                componentsByOwner.remove(username);
+                return Collections.emptyList();
+            }
+
+            return new ArrayList<>(ownedComponents.keySet());
+        }
+    }
 }
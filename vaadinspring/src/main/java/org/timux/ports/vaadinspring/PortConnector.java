@@ -29,26 +29,68 @@ import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.beans.factory.config.DestructionAwareBeanPostProcessor;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
+import org.timux.ports.CacheScope;
 import org.timux.ports.EventWrapper;
-import org.timux.ports.In;
 import org.timux.ports.MissingPort;
-import org.timux.ports.Out;
 import org.timux.ports.PortNotConnectedException;
 import org.timux.ports.Ports;
 import org.timux.ports.PortsOptions;
 
-import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+/**
+ * Connects the ports of all beans that are Ports components according to their scopes.
+ *
+ * <p> If the property {@value #WIRING_REPORT_PROPERTY} is set to true, the time spent on each bean (scanning
+ * its ports and connecting it to other beans) is recorded, together with the number of bean pairs tried and
+ * actually connected. When the application is ready, a report of the most expensive beans and the size of the
+ * scope tree is logged.
+ *
+ * <p> Beans in VaadinSession, UI, view, and prototype scopes are wired under the lock of their session, so that
+ * the beans of different sessions can be wired concurrently. Beans in the shared scopes (singleton, application,
+ * session) are wired exclusively, because they may be connected to the beans of all sessions.
+ *
+ * <p> If the property {@value #LAZY_WIRING_PROPERTY} is set to true, the OUT ports of UI, view, and prototype
+ * scoped beans are not connected when the beans are created, but when they are used for the first time (see
+ * {@link Ports#connectLazily}). This saves the effort for views that never use most of their OUT ports. The IN
+ * ports of such beans are still connected when the beans are created.
+ *
+ * <p> Events that are sent to UI scoped beans from outside of the UI are delivered within {@link UI#access}.
+ * If the property {@value #UI_EVENT_BATCHING_PROPERTY} is set to true, such events are queued per UI and
+ * delivered in batches, one {@code access} call (and one push) per batch, and queued events of types annotated
+ * with {@link Conflate} are replaced by newer ones.
+ */
 @Component
-public class PortConnector implements DestructionAwareBeanPostProcessor, BeanFactoryPostProcessor {
+public class PortConnector implements DestructionAwareBeanPostProcessor, BeanFactoryPostProcessor, EnvironmentAware {
+
+    /**
+     * @since 0.7.0
+     */
+    public static final String WIRING_REPORT_PROPERTY = "ports.vaadinspring.wiring-report";
+
+    /**
+     * @since 0.7.0
+     */
+    public static final String LAZY_WIRING_PROPERTY = "ports.vaadinspring.lazy-wiring";
+
+    /**
+     * @since 0.7.0
+     */
+    public static final String UI_EVENT_BATCHING_PROPERTY = "ports.vaadinspring.ui-event-batching";
+
+    private static final int CONNECT_OPTIONS =
+            PortsOptions.FORCE_CONNECT_EVENT_PORTS | PortsOptions.FAIL_ON_AMBIGUOUS_REQUEST_CONNECTIONS;
 
     private static final String ROOT_SCOPE = "root";
     private static final String SINGLETON_SCOPE = ConfigurableBeanFactory.SCOPE_SINGLETON;
@@ -61,12 +103,33 @@ public class PortConnector implements DestructionAwareBeanPostProcessor, BeanFac
 
     private static final Logger logger = LoggerFactory.getLogger(PortConnector.class);
 
-    private final Map<Object, Scope> beans = new WeakHashMap<>();
+    private final Map<Object, Scope> beans = Collections.synchronizedMap(new WeakHashMap<>());
     private final Scope rootScope = new Scope(ROOT_SCOPE);
 
+    /* The scopes of the VaadinSessions and UIs by their keys, so that they can be found
+     * without searching the scope tree. */
+    private final Map<Object, Scope> scopesByKey = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /* The beans each bean has actually been connected to. Only these connections have to be
+     * removed when the bean is destroyed. */
+    private final Map<Object, Map<Object, Boolean>> connections = new WeakHashMap<>();
+
+    /* Held for reading while the beans of a session subtree are wired (together with the monitor of the
+     * session's scope), and for writing while beans of the shared scopes are wired. */
+    private final ReentrantReadWriteLock sharedScopesLock = new ReentrantReadWriteLock();
+
     private final Map<String, Integer> SCOPE_ORDERING = new HashMap<>();
 
-    private ConfigurableListableBeanFactory beanFactory;
+    private volatile ConfigurableListableBeanFactory beanFactory;
+
+    /* The wiring costs recorded until the application is ready, or null if not enabled. */
+    private volatile WiringReport wiringReport = null;
+
+    private volatile boolean isLazyWiringEnabled = false;
+    private volatile boolean isUiEventBatchingEnabled = false;
+
+    /* The lazily wired beans whose OUT ports have not been used (and connected) yet. */
+    private final Map<Object, String> unresolvedBeans = Collections.synchronizedMap(new WeakHashMap<>());
 
     public PortConnector() {
         SCOPE_ORDERING.put(APPLICATION_SCOPE, 0);
@@ -77,6 +140,17 @@ public class PortConnector implements DestructionAwareBeanPostProcessor, BeanFac
         SCOPE_ORDERING.put(PROTOTYPE_SCOPE, 5);
 
         UiWatchdog.setPortConnector(this);
+        Ports.setCacheScopeResolver(this::resolveCacheScope);
+    }
+
+    @Override
+    public synchronized void setEnvironment(Environment environment) {
+        if (environment.getProperty(WIRING_REPORT_PROPERTY, Boolean.class, false)) {
+            wiringReport = new WiringReport();
+        }
+
+        isLazyWiringEnabled = environment.getProperty(LAZY_WIRING_PROPERTY, Boolean.class, false);
+        isUiEventBatchingEnabled = environment.getProperty(UI_EVENT_BATCHING_PROPERTY, Boolean.class, false);
     }
 
     @Override
@@ -85,31 +159,10 @@ public class PortConnector implements DestructionAwareBeanPostProcessor, BeanFac
     }
 
     @Override
-    public synchronized Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
-        boolean isPortsComponent = false;
-
-        for (Field field : bean.getClass().getDeclaredFields()) {
-            Out outAnno = field.getAnnotation(Out.class);
-            In inAnno = field.getAnnotation(In.class);
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        long scanStartTime = wiringReport != null ? System.nanoTime() : 0;
 
-            if (outAnno != null || inAnno != null) {
-                isPortsComponent = true;
-                break;
-            }
-        }
-
-        if (!isPortsComponent) {
-            for (Method method : bean.getClass().getDeclaredMethods()) {
-                In inAnno = method.getAnnotation(In.class);
-
-                if (inAnno != null) {
-                    isPortsComponent = true;
-                    break;
-                }
-            }
-        }
-
-        if (isPortsComponent) {
+        if (Ports.isPortsComponent(bean)) {
             String beanScopeName;
 
             try {
@@ -124,73 +177,176 @@ public class PortConnector implements DestructionAwareBeanPostProcessor, BeanFac
                 }
             }
 
-            Scope beanScope = getScope(beanScopeName, bean);
+            Integer scopeOrder = SCOPE_ORDERING.get(beanScopeName);
 
-            beanScope.addBean(bean, beanName);
-            beans.put(bean, beanScope);
+            // Without a current VaadinSession, the bean ends up in a scope that is shared by all such beans,
+            // so it is wired like the beans of the shared scopes.
+            if (scopeOrder != null && scopeOrder >= 2 && VaadinSession.getCurrent() != null) {
+                sharedScopesLock.readLock().lock();
 
-            connectParentScopes(beanScope, bean, beanName);
-            connectChildScopes(beanScope, bean, beanName);
-        }
+                try {
+                    Scope beanScope = getScope(beanScopeName, bean);
 
-//        System.out.println(rootScope.toString());
+                    synchronized (getSessionScope(beanScope)) {
+                        addBean(beanScope, bean, beanName, scanStartTime);
+                    }
+                } finally {
+                    sharedScopesLock.readLock().unlock();
+                }
+            } else {
+                lockSharedScopes();
+
+                try {
+                    addBean(getScope(beanScopeName, bean), bean, beanName, scanStartTime);
+                } finally {
+                    unlockSharedScopes();
+                }
+            }
+        }
 
         return bean;
     }
 
     @Override
-    public synchronized void postProcessBeforeDestruction(Object bean, String beanName) throws BeansException {
+    public void postProcessBeforeDestruction(Object bean, String beanName) throws BeansException {
         Scope beanScope = beans.get(bean);
 
-        if (beanScope != null) {
-            logger.debug("removing bean {} due to destruction", beanName);
-            disconnectCompletely(beanScope, bean, beanName);
-            beanScope.removeBean(bean);
+        if (beanScope == null) {
+            return;
         }
 
-//        System.out.println(rootScope.toString());
+        Scope sessionScope = getSessionScope(beanScope);
+
+        if (sessionScope != null) {
+            sharedScopesLock.readLock().lock();
+
+            try {
+                synchronized (sessionScope) {
+                    removeBean(beanScope, bean, beanName);
+                }
+            } finally {
+                sharedScopesLock.readLock().unlock();
+            }
+        } else {
+            lockSharedScopes();
+
+            try {
+                removeBean(beanScope, bean, beanName);
+            } finally {
+                unlockSharedScopes();
+            }
+        }
+    }
+
+    private void addBean(Scope beanScope, Object bean, String beanName, long scanStartTime) {
+        beanScope.addBean(bean, beanName);
+        beans.put(bean, beanScope);
+
+        WiringReport wiringReport = this.wiringReport;
+
+        if (wiringReport != null) {
+            wiringReport.recordScan(bean, beanName, System.nanoTime() - scanStartTime);
+        }
+
+        if (isLazyWiringEnabled && isScopeInUi(beanScope)) {
+            unresolvedBeans.put(bean, beanName);
+            Ports.connectLazily(bean, this::resolveLazyBean);
+        }
+
+        connectParentScopes(beanScope, bean, beanName, false);
+        connectChildScopes(beanScope, bean, beanName, false);
+    }
+
+    private void removeBean(Scope beanScope, Object bean, String beanName) {
+        logger.debug("removing bean {} due to destruction", beanName);
+        disconnectCompletely(bean);
+        beanScope.removeBean(bean);
+    }
+
+    /*
+     * The shared scopes are locked exclusively. A thread that holds the read lock, i.e. that is wiring the beans
+     * of a session, cannot upgrade to the write lock, and wiring under the read lock alone would drop the
+     * exclusion of the shared scopes, so we fail instead.
+     */
+    private void lockSharedScopes() {
+        if (sharedScopesLock.getReadHoldCount() > 0) {
+            throw new IllegalStateException(
+                    "a bean of a shared scope cannot be wired while the beans of a session are being wired");
+        }
+
+        sharedScopesLock.writeLock().lock();
+    }
+
+    private void unlockSharedScopes() {
+        sharedScopesLock.writeLock().unlock();
+    }
+
+    /**
+     * Returns the scope of the VaadinSession that the provided scope belongs to, or null if the scope is a
+     * shared scope.
+     */
+    private static Scope getSessionScope(Scope scope) {
+        for (Scope currentScope = scope; currentScope != null; currentScope = currentScope.getParentScope()) {
+            if (currentScope.getKey() instanceof VaadinSession) {
+                return currentScope;
+            }
+        }
+
+        return null;
     }
 
-    private synchronized void connectParentScopes(Scope scope, Object bean, String beanName) {
+    private void connectParentScopes(Scope scope, Object bean, String beanName, boolean isResolving) {
         Scope currentScope = scope;
         boolean isScopeInUi = isScopeInUi(scope);
 
         do {
-            connectBeans(currentScope, bean, beanName, isScopeInUi);
+            connectBeans(currentScope, bean, beanName, isScopeInUi, isResolving);
             currentScope = currentScope.getParentScope();
         } while (currentScope != null);
     }
 
-    private synchronized void connectChildScopes(Scope scope, Object bean, String beanName) {
+    private void connectChildScopes(Scope scope, Object bean, String beanName, boolean isResolving) {
         boolean isScopeInSession = isScopeInUi(scope);
 
         for (Scope childScope : scope.getChildScopes()) {
-            connectChildScopes(childScope, bean, beanName);
-            connectBeans(childScope, bean, beanName, isScopeInSession);
+            connectChildScopes(childScope, bean, beanName, isResolving);
+            connectBeans(childScope, bean, beanName, isScopeInSession, isResolving);
         }
     }
 
-    private synchronized void disconnectCompletely(Scope beanScope, Object bean, String beanName) {
-        disconnectParentScopes(beanScope, bean, beanName);
-        disconnectChildScopes(beanScope, bean, beanName);
-        beans.remove(bean);
-    }
+    private void disconnectCompletely(Object bean) {
+        unresolvedBeans.remove(bean);
 
-    private synchronized void disconnectParentScopes(Scope currentScope, Object bean, String beanName) {
-        do {
-            disconnectBeans(currentScope, bean, beanName);
-            currentScope = currentScope.getParentScope();
-        } while (currentScope != null);
+        List<Object> connectedBeans;
+
+        synchronized (connections) {
+            Map<Object, Boolean> connectedBeanMap = connections.remove(bean);
+            connectedBeans = connectedBeanMap != null ? new ArrayList<>(connectedBeanMap.keySet()) : Collections.emptyList();
+
+            for (Object otherBean : connectedBeans) {
+                Map<Object, Boolean> otherConnectedBeans = connections.get(otherBean);
+
+                if (otherConnectedBeans != null) {
+                    otherConnectedBeans.remove(bean);
+                }
+            }
+        }
+
+        for (Object otherBean : connectedBeans) {
+            Ports.disconnect(bean).and(otherBean);
+        }
+
+        beans.remove(bean);
     }
 
-    private synchronized void disconnectChildScopes(Scope scope, Object bean, String beanName) {
-        for (Scope childScope : scope.getChildScopes()) {
-            disconnectChildScopes(childScope, bean, beanName);
-            disconnectBeans(childScope, bean, beanName);
+    private void recordConnection(Object bean, Object otherBean) {
+        synchronized (connections) {
+            connections.computeIfAbsent(bean, k -> new WeakHashMap<>(4)).put(otherBean, true);
+            connections.computeIfAbsent(otherBean, k -> new WeakHashMap<>(4)).put(bean, true);
         }
     }
 
-    private synchronized void connectBeans(Scope scope, Object bean, String beanName, boolean isBeanScopeInUi) {
+    private void connectBeans(Scope scope, Object bean, String beanName, boolean isBeanScopeInUi, boolean isResolving) {
         final boolean isScopeInUi = isScopeInUi(scope);
 
         for (Map.Entry<Object, String> e : scope.getBeans()) {
@@ -198,31 +354,32 @@ public class PortConnector implements DestructionAwareBeanPostProcessor, BeanFac
             final String otherBeanName = e.getValue();
 
             if (bean == otherBean) {
-                // We call this in order to ensure that all ports of the bean are instantiated.
-                // (In the rare case that the bean is the only Ports component,
-                // its ports would remain uninstantiated.)
-                Ports.connectDirected(bean, DummyComponent.INSTANCE, PortsOptions.FORCE_CONNECT_EVENT_PORTS);
+                if (!isResolving) {
+                    // We call this in order to ensure that all ports of the bean are instantiated.
+                    // (In the rare case that the bean is the only Ports component,
+                    // its ports would remain uninstantiated.)
+                    Ports.connectDirected(bean, DummyComponent.INSTANCE, PortsOptions.FORCE_CONNECT_EVENT_PORTS);
+                }
+
                 continue;
             }
 
-            boolean a;
-            boolean b;
+            WiringReport wiringReport = this.wiringReport;
+            long connectStartTime = wiringReport != null ? System.nanoTime() : 0;
 
-            if (isBeanScopeInUi == isScopeInUi) {
-                a = Ports.connectDirected(bean, otherBean, PortsOptions.FORCE_CONNECT_EVENT_PORTS | PortsOptions.FAIL_ON_AMBIGUOUS_REQUEST_CONNECTIONS);
-                b = Ports.connectDirected(otherBean, bean, PortsOptions.FORCE_CONNECT_EVENT_PORTS | PortsOptions.FAIL_ON_AMBIGUOUS_REQUEST_CONNECTIONS);
-            } else if (isBeanScopeInUi) {
-                UI ui = beans.get(bean).getUi();
-                EventWrapper eventWrapper = createEventWrapper(ui);
+            // The OUT ports of lazily wired beans are only connected when the beans resolve them.
+            boolean a = !unresolvedBeans.containsKey(bean)
+                    && connectDirected(bean, otherBean, isBeanScopeInUi, isScopeInUi);
+            boolean b = !isResolving
+                    && !unresolvedBeans.containsKey(otherBean)
+                    && connectDirected(otherBean, bean, isScopeInUi, isBeanScopeInUi);
 
-                a = Ports.connectDirected(bean, otherBean, PortsOptions.FORCE_CONNECT_EVENT_PORTS | PortsOptions.FAIL_ON_AMBIGUOUS_REQUEST_CONNECTIONS);
-                b = Ports.connectDirected(otherBean, bean, eventWrapper, PortsOptions.FORCE_CONNECT_EVENT_PORTS | PortsOptions.FAIL_ON_AMBIGUOUS_REQUEST_CONNECTIONS);
-            } else {
-                UI ui = beans.get(otherBean).getUi();
-                EventWrapper eventWrapper = createEventWrapper(ui);
+            if (wiringReport != null) {
+                wiringReport.recordPair(bean, beanName, System.nanoTime() - connectStartTime, a || b);
+            }
 
-                a = Ports.connectDirected(otherBean, bean, PortsOptions.FORCE_CONNECT_EVENT_PORTS | PortsOptions.FAIL_ON_AMBIGUOUS_REQUEST_CONNECTIONS);
-                b = Ports.connectDirected(bean, otherBean, eventWrapper, PortsOptions.FORCE_CONNECT_EVENT_PORTS | PortsOptions.FAIL_ON_AMBIGUOUS_REQUEST_CONNECTIONS);
+            if (a || b) {
+                recordConnection(bean, otherBean);
             }
 
             if (a && b) {
@@ -235,7 +392,70 @@ public class PortConnector implements DestructionAwareBeanPostProcessor, BeanFac
         }
     }
 
+    private boolean connectDirected(Object from, Object to, boolean isFromScopeInUi, boolean isToScopeInUi) {
+        // Events that are sent into a UI from outside have to be handled within the UI's lock.
+        EventWrapper eventWrapper = !isFromScopeInUi && isToScopeInUi
+                ? createEventWrapper(beans.get(to).getUi())
+                : null;
+
+        return Ports.connectDirected(from, to, eventWrapper, CONNECT_OPTIONS);
+    }
+
+    /**
+     * Connects the OUT ports of a lazily wired bean. This is called by Ports when the bean uses one of its
+     * OUT ports for the first time. Beans that have joined the scopes of the bean since its creation are
+     * taken into account, because the scopes are searched at this point.
+     */
+    private void resolveLazyBean(Object bean) {
+        Scope beanScope = beans.get(bean);
+
+        if (beanScope == null) {
+            return;
+        }
+
+        sharedScopesLock.readLock().lock();
+
+        try {
+            Scope sessionScope = getSessionScope(beanScope);
+
+            synchronized (sessionScope != null ? sessionScope : beanScope) {
+                String beanName = unresolvedBeans.remove(bean);
+
+                if (beanName == null) {
+                    return;
+                }
+
+                connectParentScopes(beanScope, bean, beanName, true);
+                connectChildScopes(beanScope, bean, beanName, true);
+            }
+        } finally {
+            sharedScopesLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Logs the wiring report, if enabled, and stops recording wiring costs.
+     */
+    void logWiringReport() {
+        lockSharedScopes();
+
+        try {
+            if (wiringReport == null) {
+                return;
+            }
+
+            logger.info(wiringReport.format(rootScope));
+            wiringReport = null;
+        } finally {
+            unlockSharedScopes();
+        }
+    }
+
     private EventWrapper createEventWrapper(UI ui) {
+        if (isUiEventBatchingEnabled) {
+            return UiEventBatcher.of(ui);
+        }
+
         return
                 f -> {
                     if (ui.getPushConfiguration().getPushMode() == PushMode.MANUAL) {
@@ -253,16 +473,8 @@ public class PortConnector implements DestructionAwareBeanPostProcessor, BeanFac
         logger.debug("Connecting to broadcaster: {}", beanName);
     }
 
-    private synchronized void disconnectBeans(Scope scope, Object bean, String beanName) {
-        for (Map.Entry<Object, String> e : scope.getBeans()) {
-            if (bean != e.getKey()) {
-                Ports.disconnect(bean).and(e.getKey());
-            }
-        }
-    }
-
-    synchronized void onSessionDestroyed(VaadinSession session) {
-        Scope scope = findScope(rootScope, session);
+    void onSessionDestroyed(VaadinSession session) {
+        Scope scope = scopesByKey.remove(session);
 
         if (scope == null) {
             logger.warn("cannot handle session destruction: cannot find scope of session {}", session.getPushId());
@@ -271,13 +483,22 @@ public class PortConnector implements DestructionAwareBeanPostProcessor, BeanFac
 
         logger.debug("destroying scope of session {}", session.getPushId());
 
-        disconnectChildBeans(scope);
-        scope.getParentScope().removeChildScope(session);
+        sharedScopesLock.readLock().lock();
+
+        try {
+            synchronized (scope) {
+                disconnectChildBeans(scope);
+                scope.getParentScope().removeChildScope(session);
+            }
+        } finally {
+            sharedScopesLock.readLock().unlock();
+        }
+
+        Ports.releaseCacheScope(session);
     }
 
-    synchronized void onUiDestroyed(UI ui) {
-//        System.out.println(rootScope);
-        Scope scope = findScope(rootScope, ui);
+    void onUiDestroyed(UI ui) {
+        Scope scope = scopesByKey.remove(ui);
 
         if (scope == null) {
             logger.warn("cannot handle UI destruction: cannot find scope of UI {}", ui.getUIId());
@@ -286,49 +507,79 @@ public class PortConnector implements DestructionAwareBeanPostProcessor, BeanFac
 
         logger.debug("destroying scope of UI {}", ui.getUIId());
 
-        disconnectChildBeans(scope);
-        scope.getParentScope().removeChildScope(ui);
-//        System.out.println(rootScope);
+        sharedScopesLock.readLock().lock();
+
+        try {
+            Scope sessionScope = getSessionScope(scope);
+
+            synchronized (sessionScope != null ? sessionScope : scope) {
+                disconnectChildBeans(scope);
+                scope.getParentScope().removeChildScope(ui);
+            }
+        } finally {
+            sharedScopesLock.readLock().unlock();
+        }
+
+        Ports.releaseCacheScope(ui);
     }
 
-    private synchronized void disconnectChildBeans(Scope scope) {
-        scope.getBeans().forEach(e -> {
-            Object bean = e.getKey();
-            String beanName = e.getValue();
+    /**
+     * Maps the provided bean to the VaadinSession or UI it belongs to.
+     */
+    private Object resolveCacheScope(CacheScope cacheScope, Object bean) {
+        Class<?> keyType;
 
-            disconnectCompletely(scope, bean, beanName);
-        });
+        switch (cacheScope) {
+            case SESSION:
+                keyType = VaadinSession.class;
+                break;
 
-        scope.removeBeans();
+            case UI:
+                keyType = UI.class;
+                break;
 
-        for (Scope childScope : scope.getChildScopes()) {
-            disconnectChildBeans(childScope);
+            default:
+                return null;
         }
 
-        scope.removeChildScopes();
+        for (Scope scope = beans.get(bean); scope != null; scope = scope.getParentScope()) {
+            Object key = scope.getKey();
 
-//        System.out.println(rootScope.toString());
+            if (keyType.isInstance(key)) {
+                return key;
+            }
+        }
+
+        return null;
     }
 
-    private synchronized Scope findScope(Scope parent, Object key) {
-        Scope scope = parent.findChildScope(key);
+    private void disconnectChildBeans(Scope scope) {
+        scope.getBeans().forEach(e -> disconnectCompletely(e.getKey()));
 
-        if (scope != null) {
-            return scope;
-        }
+        scope.removeBeans();
 
-        for (Scope childScope : parent.getChildScopes()) {
-            scope = findScope(childScope, key);
+        for (Scope childScope : scope.getChildScopes()) {
+            disconnectChildBeans(childScope);
 
-            if (scope != null) {
-                return scope;
+            if (childScope.getKey() instanceof UI) {
+                // A destroyed session may still contain UIs that have not been detached.
+                scopesByKey.remove(childScope.getKey());
+                Ports.releaseCacheScope(childScope.getKey());
             }
         }
 
-        return null;
+        scope.removeChildScopes();
+
+//        System.out.println(rootScope.toString());
+    }
+
+    private Scope getKeyedChildScope(Scope parent, Object key) {
+        Scope scope = parent.getChildScope(key);
+        scopesByKey.put(key, scope);
+        return scope;
     }
 
-    private synchronized Scope getScope(String scopeName, Object bean) {
+    private Scope getScope(String scopeName, Object bean) {
         Scope scope = rootScope.getChildScope(SINGLETON_SCOPE);
 
         Integer scopeOrder = SCOPE_ORDERING.get(scopeName);
@@ -341,7 +592,7 @@ public class PortConnector implements DestructionAwareBeanPostProcessor, BeanFac
             }
 
             if (scopeOrder >= 2) {
-                scope = scope.getChildScope(VAADIN_SESSION_SCOPE).getChildScope(VaadinSession.getCurrent());
+                scope = getKeyedChildScope(scope.getChildScope(VAADIN_SESSION_SCOPE), VaadinSession.getCurrent());
             }
 
             if (scopeOrder >= 3) {
@@ -356,7 +607,7 @@ public class PortConnector implements DestructionAwareBeanPostProcessor, BeanFac
                                     bean.getClass().getName()));
                 }
 
-                scope = scope.getChildScope(ui);
+                scope = getKeyedChildScope(scope, ui);
                 scope.setUi(ui);
             }
 
@@ -382,7 +633,7 @@ public class PortConnector implements DestructionAwareBeanPostProcessor, BeanFac
         return scope;
     }
 
-    private synchronized boolean isScopeInUi(Scope scope) {
+    private boolean isScopeInUi(Scope scope) {
         if (SINGLETON_SCOPE.equals(scope.getName()) || ROOT_SCOPE.equals(scope.getName())) {
             return false;
         }
@@ -403,7 +654,7 @@ public class PortConnector implements DestructionAwareBeanPostProcessor, BeanFac
                 fromName, Integer.toHexString(from.hashCode()), operator, toName, Integer.toHexString(to.hashCode()));
     }
 
-    synchronized void verify() {
+    void verify() {
         List<MissingPort> missingPorts = new ArrayList<>();
 
         Method verifyMethod;
@@ -415,6 +666,8 @@ public class PortConnector implements DestructionAwareBeanPostProcessor, BeanFac
             throw new RuntimeException(e);
         }
 
+        // No lock is taken here, because checking the ports of lazily wired beans resolves them, which
+        // requires the locks of their sessions. The scopes provide snapshots of their contents.
         verifyScope(rootScope, missingPorts, verifyMethod);
 
         if (!missingPorts.isEmpty()) {
@@ -423,7 +676,7 @@ public class PortConnector implements DestructionAwareBeanPostProcessor, BeanFac
     }
 
     @SuppressWarnings("unchecked")
-    synchronized void verifyScope(Scope scope, List<MissingPort> missingPorts, Method verifyMethod) {
+    void verifyScope(Scope scope, List<MissingPort> missingPorts, Method verifyMethod) {
         scope.getBeans().forEach(e -> {
             try {
                 List<MissingPort> newMissingPorts =
@@ -21,11 +21,13 @@ import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationListener;
 import org.springframework.stereotype.Component;
+import org.timux.ports.Event;
 import org.timux.ports.Ports;
 import org.timux.ports.types.Either;
 import org.timux.ports.types.Unknown;
 
 import javax.annotation.PostConstruct;
+import java.util.List;
 
 /**
  * A utility class for functionality specific for the Vaadin/Spring tandem.
@@ -52,6 +54,8 @@ public final class PortsVaadinSpring implements ApplicationListener<ApplicationR
 
     @Override
     public void onApplicationEvent(ApplicationReadyEvent event) {
+        applicationContext.getBean(PortConnector.class).logWiringReport();
+
         if (!greetingHasBeenDisplayed) {
             greetingHasBeenDisplayed = true;
             LoggerFactory.getLogger(PortsVaadinSpring.class).info("Running with Ports {}", Ports.getVersionString());
@@ -90,4 +94,24 @@ public final class PortsVaadinSpring implements ApplicationListener<ApplicationR
                 unknown -> false
         );
     }
+
+    /**
+     * Sends the provided payload via the provided {@link Event} port, but only to those receivers that are
+     * "owned" by the user with the provided username (w.r.t. Spring Security). Other receivers that are
+     * connected to the port do not get the event.
+     *
+     * <p> The owned components are looked up in a per-user index, so the cost of this method depends on the
+     * number of components of that user, not on the number of connected receivers.
+     *
+     * <p> A user "owns" a component if it was created by a thread that runs in that user's security context.
+     *
+     * @see Event#trigger(Object, java.util.Collection)
+     */
+    public static <T> void triggerForOwner(Event<T> event, T payload, String username) {
+        List<Object> ownedComponents = self.applicationContext
+                .getBean(ComponentOwnershipRegistry.class)
+                .getComponentsOwnedBy(username);
+
+        event.trigger(payload, ownedComponents);
+    }
 }
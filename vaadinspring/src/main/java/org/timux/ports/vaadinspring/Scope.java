@@ -19,6 +19,10 @@ package org.timux.ports.vaadinspring;
 import com.vaadin.flow.component.UI;
 import org.apache.commons.lang3.StringUtils;
 
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
 
@@ -29,14 +33,16 @@ class Scope {
     private Scope parentScope = null;
     private final Map<Object, String> beans = new WeakHashMap<>();
     private UI ui = null;
+    private final WeakReference<Object> key;
 
     public Scope(String name) {
-        this(name, null);
+        this(name, null, null);
     }
 
-    public Scope(String name, Scope parentScope) {
+    public Scope(String name, Scope parentScope, Object key) {
         this.name = name;
         this.parentScope = parentScope;
+        this.key = new WeakReference<>(key);
     }
 
     public String getName() {
@@ -61,7 +67,7 @@ class Scope {
 
     public Scope addChildScope(Object scopeKey) {
         synchronized (childScopes) {
-            Scope newScope = new Scope(scopeKey.toString(), this);
+            Scope newScope = new Scope(scopeKey.toString(), this, scopeKey);
             childScopes.put(scopeKey, newScope);
             return newScope;
         }
@@ -85,6 +91,14 @@ class Scope {
         }
     }
 
+    /**
+     * Returns the key that this scope has been registered with in its parent scope, or null if
+     * there is no such key (anymore).
+     */
+    public Object getKey() {
+        return key.get();
+    }
+
     public Scope getParentScope() {
         return parentScope;
     }
@@ -101,15 +115,23 @@ class Scope {
         }
     }
 
+    /**
+     * Returns a snapshot of the child scopes, so that the scope tree can be modified concurrently.
+     */
     public Iterable<Scope> getChildScopes() {
         synchronized (childScopes) {
-            return childScopes.values();
+            return new ArrayList<>(childScopes.values());
         }
     }
 
+    /**
+     * Returns a snapshot of the beans, so that the scope can be modified concurrently.
+     */
     public Iterable<Map.Entry<Object, String>> getBeans() {
         synchronized (beans) {
-            return beans.entrySet();
+            List<Map.Entry<Object, String>> snapshot = new ArrayList<>(beans.size());
+            beans.forEach((bean, beanName) -> snapshot.add(new AbstractMap.SimpleImmutableEntry<>(bean, beanName)));
+            return snapshot;
         }
     }
 
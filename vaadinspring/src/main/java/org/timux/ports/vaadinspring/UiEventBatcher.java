@@ -0,0 +1,162 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports.vaadinspring;
+
+import com.vaadin.flow.component.ComponentUtil;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.shared.communication.PushMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.timux.ports.EventWrapper;
+import org.timux.ports.PortsCommand;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delivers the events for the components of a UI in batches. Events are queued, and all queued events are
+ * delivered within a single {@link UI#access} call (and, with manual push, followed by a single push), so
+ * that the VaadinSession is locked only once per batch instead of once per event. Events of types annotated
+ * with {@link Conflate} replace queued events of the same type for the same receiver.
+ */
+class UiEventBatcher implements EventWrapper {
+
+    private static final Logger logger = LoggerFactory.getLogger(UiEventBatcher.class);
+
+    private static final class ConflationKey {
+
+        final Class<?> eventType;
+        final Object receiver;
+
+        ConflationKey(Class<?> eventType, Object receiver) {
+            this.eventType = eventType;
+            this.receiver = receiver;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ConflationKey)) {
+                return false;
+            }
+
+            ConflationKey other = (ConflationKey) o;
+            return eventType == other.eventType && receiver == other.receiver;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * eventType.hashCode() + System.identityHashCode(receiver);
+        }
+    }
+
+    private final UI ui;
+
+    private List<PortsCommand> queue = new ArrayList<>();
+    private final Map<ConflationKey, Integer> queueIndexesByConflationKey = new HashMap<>();
+    private boolean isDeliveryScheduled = false;
+
+    private UiEventBatcher(UI ui) {
+        this.ui = ui;
+    }
+
+    /**
+     * Returns the batcher of the provided UI. There is one batcher per UI, which lives as long as the UI.
+     */
+    static UiEventBatcher of(UI ui) {
+        synchronized (ui) {
+            UiEventBatcher batcher = ComponentUtil.getData(ui, UiEventBatcher.class);
+
+            if (batcher == null) {
+                batcher = new UiEventBatcher(ui);
+                ComponentUtil.setData(ui, UiEventBatcher.class, batcher);
+            }
+
+            return batcher;
+        }
+    }
+
+    @Override
+    public void execute(PortsCommand f) {
+        execute(f, null, null);
+    }
+
+    @Override
+    public void execute(PortsCommand f, Object event, Object receiver) {
+        synchronized (this) {
+            if (event != null && event.getClass().isAnnotationPresent(Conflate.class)) {
+                ConflationKey key = new ConflationKey(event.getClass(), receiver);
+                Integer queueIndex = queueIndexesByConflationKey.get(key);
+
+                if (queueIndex != null) {
+                    queue.set(queueIndex, f);
+                    return;
+                }
+
+                queueIndexesByConflationKey.put(key, queue.size());
+            }
+
+            queue.add(f);
+
+            if (isDeliveryScheduled) {
+                return;
+            }
+
+            isDeliveryScheduled = true;
+        }
+
+        try {
+            ui.access(this::deliver);
+        } catch (RuntimeException e) {
+            // The UI has been detached, so the queued events cannot be delivered anymore.
+            synchronized (this) {
+                queue.clear();
+                queueIndexesByConflationKey.clear();
+                isDeliveryScheduled = false;
+            }
+
+            throw e;
+        }
+    }
+
+    /*
+     * Runs within the lock of the VaadinSession.
+     */
+    private void deliver() {
+        List<PortsCommand> batch;
+
+        synchronized (this) {
+            batch = queue;
+            queue = new ArrayList<>();
+            queueIndexesByConflationKey.clear();
+            isDeliveryScheduled = false;
+        }
+
+        for (PortsCommand f : batch) {
+            try {
+                f.execute();
+            } catch (RuntimeException e) {
+                logger.error("cannot deliver event to UI {}", ui.getUIId(), e);
+            }
+        }
+
+        if (ui.getPushConfiguration().getPushMode() == PushMode.MANUAL) {
+            ui.push();
+        }
+    }
+}
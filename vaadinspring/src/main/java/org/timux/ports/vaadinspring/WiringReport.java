@@ -0,0 +1,150 @@
+/*
+ * Copyright 2018-2021 Tim Rohlfs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.timux.ports.vaadinspring;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records where the {@link PortConnector} spends its time during context startup, per bean, so that the
+ * components that make wiring slow can be identified.
+ */
+class WiringReport {
+
+    private static final int MAX_NUMBER_OF_RANKED_BEANS = 20;
+
+    private static class BeanCost {
+
+        final String beanName;
+        final String className;
+
+        int numberOfInstances = 0;
+        long scanNanos = 0;
+        long connectNanos = 0;
+        int numberOfPairsTried = 0;
+        int numberOfPairsConnected = 0;
+
+        BeanCost(String beanName, String className) {
+            this.beanName = beanName;
+            this.className = className;
+        }
+
+        long getTotalNanos() {
+            return scanNanos + connectNanos;
+        }
+    }
+
+    private final Map<String, BeanCost> costs = new HashMap<>();
+
+    private final long startTime = System.nanoTime();
+
+    /**
+     * Records the time spent on scanning the ports of a new instance of the provided bean. The costs of all
+     * instances of a bean (e.g. of a prototype or UI scoped bean) are accumulated.
+     */
+    synchronized void recordScan(Object bean, String beanName, long nanos) {
+        BeanCost cost = getCost(bean, beanName);
+        cost.numberOfInstances++;
+        cost.scanNanos += nanos;
+    }
+
+    /**
+     * Records an attempt to connect the provided bean to another bean.
+     */
+    synchronized void recordPair(Object bean, String beanName, long nanos, boolean isConnected) {
+        BeanCost cost = getCost(bean, beanName);
+        cost.connectNanos += nanos;
+        cost.numberOfPairsTried++;
+
+        if (isConnected) {
+            cost.numberOfPairsConnected++;
+        }
+    }
+
+    private BeanCost getCost(Object bean, String beanName) {
+        return costs.computeIfAbsent(beanName, k -> new BeanCost(beanName, bean.getClass().getName()));
+    }
+
+    synchronized String format(Scope rootScope) {
+        List<BeanCost> rankedCosts = new ArrayList<>(costs.values());
+        rankedCosts.sort((a, b) -> Long.compare(b.getTotalNanos(), a.getTotalNanos()));
+
+        long scanNanos = 0;
+        long connectNanos = 0;
+        long numberOfPairsTried = 0;
+        long numberOfPairsConnected = 0;
+
+        for (BeanCost cost : rankedCosts) {
+            scanNanos += cost.scanNanos;
+            connectNanos += cost.connectNanos;
+            numberOfPairsTried += cost.numberOfPairsTried;
+            numberOfPairsConnected += cost.numberOfPairsConnected;
+        }
+
+        int[] scopeTreeSize = new int[3];
+        measureScopeTree(rootScope, 0, scopeTreeSize);
+
+        StringBuilder sb = new StringBuilder();
+
+        sb.append(String.format("Ports wiring report (%.1f ms since the PortConnector was created)%n",
+                millis(System.nanoTime() - startTime)));
+        sb.append(String.format("  scanning: %.1f ms, connecting: %.1f ms, pairs tried: %d, pairs connected: %d%n",
+                millis(scanNanos), millis(connectNanos), numberOfPairsTried, numberOfPairsConnected));
+        sb.append(String.format("  scope tree: %d scopes, %d beans, depth %d%n",
+                scopeTreeSize[0], scopeTreeSize[1], scopeTreeSize[2]));
+        sb.append(String.format("  %10s %10s %10s %8s %8s %6s  %s%n",
+                "total ms", "scan ms", "conn. ms", "tried", "conn.", "inst.", "bean"));
+
+        for (int i = 0; i < Math.min(MAX_NUMBER_OF_RANKED_BEANS, rankedCosts.size()); i++) {
+            BeanCost cost = rankedCosts.get(i);
+
+            sb.append(String.format("  %10.2f %10.2f %10.2f %8d %8d %6d  %s (%s)%n",
+                    millis(cost.getTotalNanos()),
+                    millis(cost.scanNanos),
+                    millis(cost.connectNanos),
+                    cost.numberOfPairsTried,
+                    cost.numberOfPairsConnected,
+                    cost.numberOfInstances,
+                    cost.beanName,
+                    cost.className));
+        }
+
+        return sb.toString();
+    }
+
+    /*
+     * Computes the number of scopes, the number of beans, and the depth of the provided scope tree.
+     */
+    private static void measureScopeTree(Scope scope, int level, int[] result) {
+        result[0]++;
+        result[2] = Math.max(result[2], level + 1);
+
+        for (Map.Entry<Object, String> ignored : scope.getBeans()) {
+            result[1]++;
+        }
+
+        for (Scope childScope : scope.getChildScopes()) {
+            measureScopeTree(childScope, level + 1, result);
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}